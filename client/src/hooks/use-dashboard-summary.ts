@@ -1,10 +1,79 @@
-import type { DashboardSummaryDTO } from '@/types/dashboard'; // Bu DTO tipini birazdan oluşturacağız
+import { useEffect } from 'react';
+
+import type { DashboardSummaryDTO } from '@/types/dashboard';
 import { useApiSWR } from './use-api-swr';
 
+const STREAM_URL = '/api/v1/dashboard/stream';
+const RECONNECT_DELAY_MS = 5000;
+
 export const useDashboardSummary = () => {
-  // SWR, bu endpoint'ten gelen verileri otomatik olarak yönetecek,
-  // önbelleğe alacak ve gerektiğinde yenileyecektir.
-  const { data, error, isLoading, mutate } = useApiSWR<DashboardSummaryDTO>('/dashboard/summary');
+  // İlk özet SWR ile bir kez alınır; sonraki değişiklikler sunucudan canlı akışla (SSE) gelir.
+  // Bu yüzden odaklanınca yeniden istek atmıyoruz.
+  const { data, error, isLoading, mutate } = useApiSWR<DashboardSummaryDTO>('/dashboard/summary', {
+    revalidateOnFocus: false,
+  });
+
+  useEffect(() => {
+    const controller = new AbortController();
+    let reconnectTimer: ReturnType<typeof setTimeout> | undefined;
+
+    // EventSource Authorization başlığı gönderemediği için akış fetch ile okunur
+    const connect = async (isReconnect: boolean) => {
+      const token = localStorage.getItem('authToken');
+      try {
+        const response = await fetch(STREAM_URL, {
+          headers: token ? { Authorization: `Bearer ${token}` } : {},
+          signal: controller.signal,
+        });
+        if (!response.ok || !response.body) {
+          throw new Error(`Canlı dashboard akışı açılamadı: ${response.status}`);
+        }
+        // Bağlantı koptuğu sürede kaçan değişiklikler için özet bir kez yenilenir
+        if (isReconnect) {
+          void mutate();
+        }
+
+        const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+        let buffer = '';
+        for (;;) {
+          const { value, done } = await reader.read();
+          if (done) break;
+          buffer += value;
+          const events = buffer.split('\n\n');
+          buffer = events.pop() ?? '';
+          for (const raw of events) {
+            handleEvent(raw);
+          }
+        }
+      } catch {
+        if (controller.signal.aborted) return;
+      }
+      if (!controller.signal.aborted) {
+        reconnectTimer = setTimeout(() => void connect(true), RECONNECT_DELAY_MS);
+      }
+    };
+
+    // Sadece değişen alanları içeren kısmi özet mevcut veriyle birleştirilir (yeniden istek atılmaz)
+    const handleEvent = (raw: string) => {
+      let eventName = 'message';
+      const dataLines: string[] = [];
+      for (const line of raw.split('\n')) {
+        if (line.startsWith('event:')) eventName = line.slice(6).trim();
+        else if (line.startsWith('data:')) dataLines.push(line.slice(5));
+      }
+      if (eventName !== 'summary-delta' || dataLines.length === 0) return;
+
+      const delta = JSON.parse(dataLines.join('\n')) as Partial<DashboardSummaryDTO>;
+      void mutate((current) => (current ? { ...current, ...delta } : current), { revalidate: false });
+    };
+
+    void connect(false);
+
+    return () => {
+      controller.abort();
+      if (reconnectTimer) clearTimeout(reconnectTimer);
+    };
+  }, [mutate]);
 
   return {
     summary: data,
@@ -12,4 +81,4 @@ export const useDashboardSummary = () => {
     isLoading,
     mutate, // Dashboard'u manuel olarak yenilemek için
   };
-};
\ No newline at end of file
+};
@@ -19,6 +19,11 @@ export interface DashboardSummaryDTO {
   ordersToShipToday?: number;
   recentGoodsReceiptsCount?: number;
   stockDistribution?: StockByWarehouseDTO[];
+  stockByPlantType?: StockByPlantTypeDTO[];
+
+  // Süre sınırını aşan bölümler (son bilinen değerle dolduruldu / boş bırakıldı)
+  staleSections?: string[];
+  missingSections?: string[];
 }
 
 export interface TopSellingPlantDTO {
@@ -35,4 +40,9 @@ export interface DailyCashFlowDTO {
 export interface StockByWarehouseDTO {
   warehouseName: string;
   plantCount: number;
-}
\ No newline at end of file
+}
+
+export interface StockByPlantTypeDTO {
+  plantTypeName: string;
+  plantCount: number;
+}
@@ -1,8 +1,15 @@
 package com.fidanlik.fidanysserver.accounting.controller;
 
+import com.fidanlik.fidanysserver.accounting.dto.AccountBalanceReconciliationDTO;
 import com.fidanlik.fidanysserver.accounting.dto.RealProfitLossReportDTO;
+import com.fidanlik.fidanysserver.accounting.dto.ReportSectionStatsDTO;
+import com.fidanlik.fidanysserver.accounting.model.AccountBalance;
+import com.fidanlik.fidanysserver.accounting.model.ClosedPeriod;
 import com.fidanlik.fidanysserver.accounting.model.Transaction;
+import com.fidanlik.fidanysserver.accounting.service.AccountBalanceService;
 import com.fidanlik.fidanysserver.accounting.service.FinancialReportService;
+import com.fidanlik.fidanysserver.accounting.service.PeriodCloseService;
+import com.fidanlik.fidanysserver.accounting.service.ReportSectionRunner;
 import com.fidanlik.fidanysserver.accounting.service.TransactionService;
 import com.fidanlik.fidanysserver.user.model.User;
 import lombok.RequiredArgsConstructor;
@@ -13,6 +20,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 @RestController
@@ -23,6 +31,9 @@ public class AccountingController {
 
     private final TransactionService transactionService;
     private final FinancialReportService financialReportService;
+    private final PeriodCloseService periodCloseService;
+    private final ReportSectionRunner reportSectionRunner;
+    private final AccountBalanceService accountBalanceService;
 
     /**
      * Bir müşterinin hesap hareketlerini (bakiye raporu) listeler.
@@ -50,6 +61,35 @@ public class AccountingController {
         return ResponseEntity.ok(transactions);
     }
 
+    /**
+     * Müşteri veya tedarikçi cari hesap bakiyelerini (toplam borç, toplam alacak, son işlem tarihi) listeler.
+     * Satışçılar müşteri bakiyelerini görebilir.
+     * @param type Cari hesap tipi (CUSTOMER veya SUPPLIER).
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Cari hesap bakiyeleri.
+     */
+    @GetMapping("/balances")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_ACCOUNTANT') or (hasAuthority('ROLE_SALES') and #type.name() == 'CUSTOMER')")
+    public ResponseEntity<List<AccountBalance>> getAccountBalances(
+            @RequestParam("type") AccountBalance.CounterpartyType type,
+            @AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(accountBalanceService.getBalances(authenticatedUser.getTenantId(), type));
+    }
+
+    /**
+     * Cari hesap bakiyelerini işlemler defteriyle karşılaştırır; repair=true ise farkları düzeltir. Sadece ADMIN erişebilir.
+     * @param repair Farklar düzeltilsin mi (varsayılan: true).
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Doğrulama sonucu.
+     */
+    @PostMapping("/balances/reconcile")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<AccountBalanceReconciliationDTO> reconcileAccountBalances(
+            @RequestParam(value = "repair", defaultValue = "true") boolean repair,
+            @AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(accountBalanceService.reconcile(authenticatedUser.getTenantId(), repair));
+    }
+
     /**
      * Enflasyona göre düzeltilmiş reel kâr/zarar raporu oluşturur.
      * @param startDate Rapor başlangıç tarihi.
@@ -68,4 +108,53 @@ public class AccountingController {
         RealProfitLossReportDTO report = financialReportService.generateRealProfitLossReport(startDate, endDate, baseDate, tenantId);
         return ResponseEntity.ok(report);
     }
-}
\ No newline at end of file
+
+    /**
+     * Reel kâr/zarar raporu bölümlerinin (gelir, gider, SMM) süre ölçümlerini getirir. Sadece ADMIN erişebilir.
+     * @return Bölüm bazında çağrı sayısı, ortalama / en uzun / son süre ve hata sayısı.
+     */
+    @GetMapping("/reports/section-stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<List<ReportSectionStatsDTO>> getReportSectionStats() {
+        return ResponseEntity.ok(reportSectionRunner.getStats());
+    }
+
+    /**
+     * Bir ayı kapatır: nominal gelir, gider ve SMM toplamları dondurulur ve reel kâr/zarar raporunda yeniden hesaplanmaz.
+     * Kapatılan aya tarihli gider girişleri dönem yeniden açılana kadar reddedilir.
+     * @param period Kapatılacak ay (ör. 2025-01). Sadece geçmiş aylar kapatılabilir.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Kapatılan dönem kaydı.
+     */
+    @PostMapping("/periods/{period}/close")
+    public ResponseEntity<ClosedPeriod> closePeriod(
+            @PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth period,
+            @AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(periodCloseService.closePeriod(period, authenticatedUser.getId(), authenticatedUser.getTenantId()));
+    }
+
+    /**
+     * Kapatılmış bir ayı yeniden açar; ay tekrar ham kayıtlardan hesaplanır. Sadece ADMIN erişebilir.
+     * @param period Yeniden açılacak ay (ör. 2025-01).
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return İçerik olmadan yanıt.
+     */
+    @DeleteMapping("/periods/{period}/close")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Void> reopenPeriod(
+            @PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth period,
+            @AuthenticationPrincipal User authenticatedUser) {
+        periodCloseService.reopenPeriod(period, authenticatedUser.getTenantId());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Kapatılmış dönemleri en yeniden eskiye listeler.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Kapatılmış dönemler.
+     */
+    @GetMapping("/periods/closed")
+    public ResponseEntity<List<ClosedPeriod>> getClosedPeriods(@AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(periodCloseService.getClosedPeriods(authenticatedUser.getTenantId()));
+    }
+}
@@ -0,0 +1,16 @@
+package com.fidanlik.fidanysserver.accounting.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class AccountBalanceReconciliationDTO {
+    private String tenantId;
+    private int checked;     // Defterde işlemi olan cari hesap sayısı
+    private int mismatched;  // Tutarı veya işlem sayısı defterle uyuşmayan bakiyeler
+    private int missing;     // Defterde işlemi olduğu halde bakiye kaydı olmayanlar
+    private int orphaned;    // Defterde karşılığı olmayan bakiye kayıtları
+    private int repaired;    // Düzeltilen kayıtlar
+    private int skipped;     // Doğrulama sırasında yeni işlem geldiği için atlananlar (sonraki çalışmada düzelir)
+}
@@ -0,0 +1,15 @@
+package com.fidanlik.fidanysserver.accounting.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ReportSectionStatsDTO {
+    private String section;
+    private long count;
+    private double averageMillis;
+    private long maxMillis;
+    private long lastMillis;
+    private long failures;
+}
@@ -0,0 +1,39 @@
+package com.fidanlik.fidanysserver.accounting.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Müşteri / tedarikçi bazında cari hesap bakiyesi.
+// TransactionService her işlemde $inc ile günceller; bakiye ekranları ve dışa aktarımlar işlemleri toplamak yerine bunu okur.
+@Data
+@Document(collection = "accountBalances")
+@CompoundIndex(name = "tenant_type_counterparty", def = "{'tenantId': 1, 'counterpartyType': 1, 'counterpartyId': 1}", unique = true)
+public class AccountBalance {
+    @Id
+    private String id;
+    private String tenantId;
+    private CounterpartyType counterpartyType;
+    private String counterpartyId;
+
+    // $inc ve $sum ile güncellenebilmesi için Decimal128 olarak saklanır
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal totalDebit;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal totalCredit;
+
+    private LocalDateTime lastTransactionDate;
+    private long transactionCount; // Doğrulama işinde defterle karşılaştırılır
+
+    public enum CounterpartyType {
+        CUSTOMER,
+        SUPPLIER
+    }
+}
@@ -0,0 +1,49 @@
+package com.fidanlik.fidanysserver.accounting.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Kapatılmış bir ayın dondurulmuş nominal kâr/zarar toplamları.
+// Reel kâr/zarar raporu kapalı aylar için ham belgeler yerine bu kaydı kullanır, yalnızca açık aylar canlı hesaplanır.
+@Data
+@Document(collection = "closedPeriods")
+@CompoundIndex(name = "tenant_period", def = "{'tenantId': 1, 'periodStart': 1}", unique = true)
+public class ClosedPeriod {
+    @Id
+    private String id;
+    private String tenantId;
+    private LocalDate periodStart; // Ayın ilk günü
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal revenue;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal operatingExpenses;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal costOfGoodsSold;
+
+    // SMM, reel değere maliyetin oluştuğu aya göre çevrildiği için maliyet ayı bazında da saklanır
+    private List<MonthlyAmount> costOfGoodsSoldByCostMonth = new ArrayList<>();
+
+    private LocalDateTime closedAt;
+    private String closedBy;
+
+    @Data
+    public static class MonthlyAmount {
+        private LocalDate month; // Ayın ilk günü
+
+        @Field(targetType = FieldType.DECIMAL128)
+        private BigDecimal amount;
+    }
+}
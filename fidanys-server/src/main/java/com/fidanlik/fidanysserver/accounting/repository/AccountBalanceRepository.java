@@ -0,0 +1,11 @@
+package com.fidanlik.fidanysserver.accounting.repository;
+
+import com.fidanlik.fidanysserver.accounting.model.AccountBalance;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface AccountBalanceRepository extends MongoRepository<AccountBalance, String> {
+    List<AccountBalance> findAllByTenantIdAndCounterpartyType(String tenantId, AccountBalance.CounterpartyType counterpartyType);
+    List<AccountBalance> findAllByTenantId(String tenantId);
+}
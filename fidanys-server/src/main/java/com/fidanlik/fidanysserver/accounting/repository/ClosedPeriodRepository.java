@@ -0,0 +1,16 @@
+package com.fidanlik.fidanysserver.accounting.repository;
+
+import com.fidanlik.fidanysserver.accounting.model.ClosedPeriod;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface ClosedPeriodRepository extends MongoRepository<ClosedPeriod, String> {
+    List<ClosedPeriod> findAllByTenantIdAndPeriodStartBetween(String tenantId, Range<LocalDate> range);
+    List<ClosedPeriod> findAllByTenantIdOrderByPeriodStartDesc(String tenantId);
+    Optional<ClosedPeriod> findByTenantIdAndPeriodStart(String tenantId, LocalDate periodStart);
+    boolean existsByTenantIdAndPeriodStart(String tenantId, LocalDate periodStart);
+}
@@ -0,0 +1,336 @@
+package com.fidanlik.fidanysserver.accounting.service;
+
+import com.fidanlik.fidanysserver.accounting.dto.AccountBalanceReconciliationDTO;
+import com.fidanlik.fidanysserver.accounting.model.AccountBalance;
+import com.fidanlik.fidanysserver.accounting.model.Transaction;
+import com.fidanlik.fidanysserver.accounting.repository.AccountBalanceRepository;
+import com.fidanlik.fidanysserver.supplier.model.Supplier;
+import com.fidanlik.fidanysserver.tenant.model.Tenant;
+import com.fidanlik.fidanysserver.tenant.repository.TenantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+
+/**
+ * Müşteri ve tedarikçi cari hesap bakiyeleri (accountBalances).
+ * Her işlem yazıldığında bakiye tek bir atomik upsert ($inc) ile güncellenir. Güncelleme, işlemi yazan belgenin
+ * MongoDB işlemi (transaction) commit edildikten sonra yapılır: aynı cari hesaba eşzamanlı gelen iki belge
+ * tek bir bakiye satırında write conflict'e düşmez. Commit ile $inc arasında kalan boşluklar (ör. uygulama kapanması)
+ * gecelik doğrulama işiyle transactions defterinden düzeltilir.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AccountBalanceService {
+
+    private static final Decimal128 DECIMAL_ZERO = new Decimal128(BigDecimal.ZERO);
+    // İşlem commit edildikten sonra uygulanan $inc henüz gelmemişken yanlış fark düzeltilmesin diye son dakikalarda hareket görmüş hesaplar atlanır
+    private static final long RECENT_ACTIVITY_MINUTES = 5;
+
+    private final AccountBalanceRepository accountBalanceRepository;
+    private final TenantRepository tenantRepository;
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * İşlemi ilgili cari hesabın bakiyesine işler; müşteri/tedarikçisi olmayan (dahili) işlemler atlanır.
+     * Çağıranın işlemi (transaction) varsa $inc commit sonrasına bırakılır, geri alınan işlemler bakiyeye yansımaz.
+     */
+    public void apply(Transaction transaction) {
+        AccountBalance.CounterpartyType counterpartyType = counterpartyType(transaction);
+        if (counterpartyType == null || transaction.getAmount() == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        increment(transaction, counterpartyType);
+                    } catch (RuntimeException e) {
+                        log.error("Cari hesap bakiyesi güncellenemedi, gecelik doğrulamada düzeltilecek. İşlem: {}", transaction.getId(), e);
+                    }
+                }
+            });
+        } else {
+            increment(transaction, counterpartyType);
+        }
+    }
+
+    private void increment(Transaction transaction, AccountBalance.CounterpartyType counterpartyType) {
+        boolean debit = transaction.getType() == Transaction.TransactionType.DEBIT;
+        Decimal128 amount = new Decimal128(transaction.getAmount());
+        Update update = new Update()
+                // Her iki alan da Decimal128 olarak başlatılsın diye diğerine 0 eklenir
+                .inc("totalDebit", debit ? amount : DECIMAL_ZERO)
+                .inc("totalCredit", debit ? DECIMAL_ZERO : amount)
+                .inc("transactionCount", 1)
+                .max("lastTransactionDate", transaction.getTransactionDate());
+        mongoTemplate.upsert(keyQuery(transaction.getTenantId(), counterpartyType, counterpartyId(transaction)), update, AccountBalance.class);
+    }
+
+    public List<AccountBalance> getBalances(String tenantId, AccountBalance.CounterpartyType counterpartyType) {
+        return accountBalanceRepository.findAllByTenantIdAndCounterpartyType(tenantId, counterpartyType);
+    }
+
+    public Map<String, AccountBalance> getBalancesByCounterparty(String tenantId, AccountBalance.CounterpartyType counterpartyType) {
+        Map<String, AccountBalance> balances = new HashMap<>();
+        getBalances(tenantId, counterpartyType).forEach(balance -> balances.put(balance.getCounterpartyId(), balance));
+        return balances;
+    }
+
+    // Tedarikçilere toplam borç: mevcut tedarikçilerin bakiyelerinde CREDIT - DEBIT (küçük dokümanlar üzerinde tek $group).
+    // Silinmiş tedarikçilerin bakiyeleri defterde kaldığı için id listesiyle dışarıda bırakılır.
+    public BigDecimal getTotalSupplierDebt(String tenantId) {
+        Query supplierQuery = new Query(Criteria.where("tenantId").is(tenantId));
+        supplierQuery.fields().include("_id");
+        List<String> supplierIds = mongoTemplate.find(supplierQuery, Supplier.class).stream().map(Supplier::getId).toList();
+        if (supplierIds.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        Aggregation aggregation = newAggregation(
+                match(Criteria.where("tenantId").is(tenantId)
+                        .and("counterpartyType").is(AccountBalance.CounterpartyType.SUPPLIER)
+                        .and("counterpartyId").in(supplierIds)),
+                group().sum("totalCredit").as("totalCredit").sum("totalDebit").as("totalDebit")
+        );
+        Document result = mongoTemplate.aggregate(aggregation, AccountBalance.class, Document.class).getUniqueMappedResult();
+        if (result == null) {
+            return BigDecimal.ZERO;
+        }
+        return toBigDecimal(result.get("totalCredit")).subtract(toBigDecimal(result.get("totalDebit")));
+    }
+
+    // Bakiye koleksiyonu henüz hiç doldurulmamışsa (ilk kurulum) açılışta defterden oluşturulur
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeBalances() {
+        if (mongoTemplate.exists(new Query(), AccountBalance.class) || !mongoTemplate.exists(new Query(), Transaction.class)) {
+            return;
+        }
+        log.info("Cari hesap bakiyeleri ilk kez işlemler defterinden oluşturuluyor.");
+        reconcileAllTenants();
+    }
+
+    // Her gece tüm tenant'ların bakiyelerini defterle karşılaştırır ve düzeltir
+    @Scheduled(cron = "${accounting.balances.reconcile-cron:0 40 3 * * *}")
+    public void reconcileAllTenants() {
+        for (Tenant tenant : tenantRepository.findAll()) {
+            try {
+                AccountBalanceReconciliationDTO result = reconcile(tenant.getId(), true);
+                if (result.getMismatched() + result.getMissing() + result.getOrphaned() > 0) {
+                    log.warn("Cari hesap bakiyelerinde fark bulundu: {}", result);
+                }
+            } catch (Exception e) {
+                log.error("Cari hesap bakiyeleri doğrulanamadı. Tenant: {}", tenant.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Bakiyeleri transactions defterinden yeniden hesaplanan değerlerle karşılaştırır.
+     * repair true ise farklı veya eksik kayıtlar defter değerleriyle yazılır, karşılığı olmayanlar silinir.
+     * Düzeltme, bakiye okunduğundan beri değişmemişse ve hesapta son dakikalarda hareket yoksa uygulanır;
+     * aksi halde kayıt atlanır ve sonraki çalışmada yeniden değerlendirilir.
+     * Bakiye koleksiyonu ilk kez doldurulurken de bu metot kullanılır (tüm kayıtlar eksik olarak bulunur).
+     */
+    public AccountBalanceReconciliationDTO reconcile(String tenantId, boolean repair) {
+        LocalDateTime recentActivityCutoff = LocalDateTime.now().minusMinutes(RECENT_ACTIVITY_MINUTES);
+        Map<String, AccountBalance> expected = new HashMap<>();
+        expected.putAll(ledgerTotals(tenantId, AccountBalance.CounterpartyType.CUSTOMER, "customerId"));
+        expected.putAll(ledgerTotals(tenantId, AccountBalance.CounterpartyType.SUPPLIER, "supplierId"));
+
+        Map<String, AccountBalance> actual = new HashMap<>();
+        accountBalanceRepository.findAllByTenantId(tenantId)
+                .forEach(balance -> actual.put(key(balance.getCounterpartyType(), balance.getCounterpartyId()), balance));
+
+        int mismatched = 0;
+        int missing = 0;
+        int orphaned = 0;
+        int repaired = 0;
+        int skipped = 0;
+        for (Map.Entry<String, AccountBalance> entry : expected.entrySet()) {
+            AccountBalance ledger = entry.getValue();
+            AccountBalance current = actual.remove(entry.getKey());
+            if (current == null) {
+                missing++;
+            } else if (matches(current, ledger)) {
+                continue;
+            } else {
+                mismatched++;
+            }
+            if (repair) {
+                if (!isRecent(current, recentActivityCutoff) && !isRecent(ledger, recentActivityCutoff) && overwrite(current, ledger)) {
+                    repaired++;
+                } else {
+                    skipped++;
+                }
+            }
+        }
+        for (AccountBalance orphan : actual.values()) {
+            orphaned++;
+            if (repair) {
+                if (!isRecent(orphan, recentActivityCutoff) && overwrite(orphan, null)) {
+                    repaired++;
+                } else {
+                    skipped++;
+                }
+            }
+        }
+
+        return AccountBalanceReconciliationDTO.builder()
+                .tenantId(tenantId)
+                .checked(expected.size())
+                .mismatched(mismatched)
+                .missing(missing)
+                .orphaned(orphaned)
+                .repaired(repaired)
+                .skipped(skipped)
+                .build();
+    }
+
+    // --- Yardımcı Metotlar ---
+
+    // Defterdeki işlemler cari hesap ve tipe göre tek $group ile toplanır
+    private Map<String, AccountBalance> ledgerTotals(String tenantId, AccountBalance.CounterpartyType counterpartyType, String counterpartyField) {
+        Aggregation aggregation = newAggregation(
+                match(Criteria.where("tenantId").is(tenantId).and(counterpartyField).ne(null)),
+                project("type", "transactionDate")
+                        .and(counterpartyField).as("counterpartyId")
+                        .and(ConvertOperators.valueOf("amount").convertToDecimal()).as("amount"),
+                group("counterpartyId", "type")
+                        .sum("amount").as("total")
+                        .count().as("count")
+                        .max("transactionDate").as("lastTransactionDate")
+        );
+
+        Map<String, AccountBalance> totals = new HashMap<>();
+        for (Document result : mongoTemplate.aggregate(aggregation, Transaction.class, Document.class)) {
+            Document id = result.get("_id", Document.class);
+            String counterpartyId = id.getString("counterpartyId");
+            AccountBalance balance = totals.computeIfAbsent(key(counterpartyType, counterpartyId), k -> {
+                AccountBalance created = new AccountBalance();
+                created.setTenantId(tenantId);
+                created.setCounterpartyType(counterpartyType);
+                created.setCounterpartyId(counterpartyId);
+                created.setTotalDebit(BigDecimal.ZERO);
+                created.setTotalCredit(BigDecimal.ZERO);
+                return created;
+            });
+            BigDecimal total = toBigDecimal(result.get("total"));
+            if (Transaction.TransactionType.DEBIT.name().equals(id.getString("type"))) {
+                balance.setTotalDebit(balance.getTotalDebit().add(total));
+            } else if (Transaction.TransactionType.CREDIT.name().equals(id.getString("type"))) {
+                balance.setTotalCredit(balance.getTotalCredit().add(total));
+            }
+            balance.setTransactionCount(balance.getTransactionCount() + ((Number) result.get("count")).longValue());
+            LocalDateTime last = toLocalDateTime(result.get("lastTransactionDate"));
+            if (last != null && (balance.getLastTransactionDate() == null || last.isAfter(balance.getLastTransactionDate()))) {
+                balance.setLastTransactionDate(last);
+            }
+        }
+        return totals;
+    }
+
+    private boolean isRecent(AccountBalance balance, LocalDateTime cutoff) {
+        return balance != null && balance.getLastTransactionDate() != null && balance.getLastTransactionDate().isAfter(cutoff);
+    }
+
+    private boolean matches(AccountBalance current, AccountBalance ledger) {
+        return current.getTransactionCount() == ledger.getTransactionCount()
+                && compare(current.getTotalDebit(), ledger.getTotalDebit())
+                && compare(current.getTotalCredit(), ledger.getTotalCredit());
+    }
+
+    private boolean compare(BigDecimal left, BigDecimal right) {
+        return (left == null ? BigDecimal.ZERO : left).compareTo(right == null ? BigDecimal.ZERO : right) == 0;
+    }
+
+    /**
+     * Bakiye kaydını defter değeriyle değiştirir (ledger null ise siler).
+     * Mevcut kayıt, okunduğu andaki işlem sayısıyla eşleşiyorsa güncellenir; arada $inc geldiyse false döner.
+     */
+    private boolean overwrite(AccountBalance current, AccountBalance ledger) {
+        if (current == null) {
+            // Eksik kayıt: eşzamanlı bir $inc upsert'i kaydı oluşturmuşsa benzersiz indeks ihlali yerine atlanır
+            Query absent = keyQuery(ledger.getTenantId(), ledger.getCounterpartyType(), ledger.getCounterpartyId());
+            if (mongoTemplate.exists(absent, AccountBalance.class)) {
+                return false;
+            }
+            mongoTemplate.insert(ledger);
+            return true;
+        }
+        Query unchanged = new Query(Criteria.where("_id").is(current.getId()).and("transactionCount").is(current.getTransactionCount()));
+        if (ledger == null) {
+            return mongoTemplate.remove(unchanged, AccountBalance.class).getDeletedCount() > 0;
+        }
+        Update update = new Update()
+                .set("totalDebit", new Decimal128(ledger.getTotalDebit()))
+                .set("totalCredit", new Decimal128(ledger.getTotalCredit()))
+                .set("transactionCount", ledger.getTransactionCount())
+                .set("lastTransactionDate", ledger.getLastTransactionDate());
+        return mongoTemplate.updateFirst(unchanged, update, AccountBalance.class).getModifiedCount() > 0;
+    }
+
+    private Query keyQuery(String tenantId, AccountBalance.CounterpartyType counterpartyType, String counterpartyId) {
+        return new Query(Criteria.where("tenantId").is(tenantId)
+                .and("counterpartyType").is(counterpartyType)
+                .and("counterpartyId").is(counterpartyId));
+    }
+
+    private AccountBalance.CounterpartyType counterpartyType(Transaction transaction) {
+        if (transaction.getCustomerId() != null) {
+            return AccountBalance.CounterpartyType.CUSTOMER;
+        }
+        return transaction.getSupplierId() != null ? AccountBalance.CounterpartyType.SUPPLIER : null;
+    }
+
+    private String counterpartyId(Transaction transaction) {
+        return transaction.getCustomerId() != null ? transaction.getCustomerId() : transaction.getSupplierId();
+    }
+
+    private String key(AccountBalance.CounterpartyType counterpartyType, String counterpartyId) {
+        return counterpartyType + "|" + counterpartyId;
+    }
+
+    private LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Date date) {
+            return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+        }
+        return null;
+    }
+
+    private BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        if (value instanceof Number number) {
+            return new BigDecimal(number.toString());
+        }
+        return BigDecimal.ZERO;
+    }
+}
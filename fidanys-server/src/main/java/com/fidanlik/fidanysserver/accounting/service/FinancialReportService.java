@@ -1,21 +1,23 @@
 package com.fidanlik.fidanysserver.accounting.service;
 
 import com.fidanlik.fidanysserver.accounting.dto.RealProfitLossReportDTO;
+import com.fidanlik.fidanysserver.accounting.model.ClosedPeriod;
+import com.fidanlik.fidanysserver.accounting.repository.ClosedPeriodRepository;
 import com.fidanlik.fidanysserver.common.inflation.InflationCalculationService;
-import com.fidanlik.fidanysserver.expense.model.Expense;
-import com.fidanlik.fidanysserver.expense.repository.ExpenseRepository;
 import com.fidanlik.fidanysserver.fidan.model.Plant;
 import com.fidanlik.fidanysserver.fidan.model.ProductionBatch;
 import com.fidanlik.fidanysserver.fidan.repository.PlantRepository;
 import com.fidanlik.fidanysserver.fidan.repository.ProductionBatchRepository;
 import com.fidanlik.fidanysserver.inflation.model.InflationData;
 import com.fidanlik.fidanysserver.inflation.repository.InflationDataRepository;
-import com.fidanlik.fidanysserver.invoicing.model.Invoice;
-import com.fidanlik.fidanysserver.invoicing.repository.InvoiceRepository;
 import com.fidanlik.fidanysserver.order.model.Order;
 import com.fidanlik.fidanysserver.order.repository.OrderRepository;
+import com.fidanlik.fidanysserver.rollup.model.DailyRollup;
+import com.fidanlik.fidanysserver.rollup.service.DailyRollupService;
+import com.fidanlik.fidanysserver.stock.service.CostLayerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -25,9 +27,16 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,69 +44,78 @@ import java.util.stream.Collectors;
 @Slf4j
 public class FinancialReportService {
 
-    private final InvoiceRepository invoiceRepository;
-    private final ExpenseRepository expenseRepository;
     private final OrderRepository orderRepository;
     private final ProductionBatchRepository productionBatchRepository;
     private final PlantRepository plantRepository;
     private final InflationCalculationService inflationCalculationService;
     private final InflationDataRepository inflationDataRepository;
+    private final DailyRollupService dailyRollupService;
+    private final CostLayerService costLayerService;
+    private final ClosedPeriodRepository closedPeriodRepository;
+    private final ReportSectionRunner reportSectionRunner;
 
     public RealProfitLossReportDTO generateRealProfitLossReport(LocalDate startDate, LocalDate endDate, LocalDate baseDate, String tenantId) {
         log.info("Reel Kâr/Zarar Raporu oluşturuluyor. Aral?k: {}-{}, Baz Tarih: {}, Tenant: {}", startDate, endDate, baseDate, tenantId);
 
-        // 1. Gelirleri Hesapla (Faturalardan)
-        List<Invoice> invoices = invoiceRepository.findAllByTenantIdAndIssueDateBetween(tenantId, startDate, endDate);
-        BigDecimal nominalRevenue = invoices.stream().map(Invoice::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
-        BigDecimal realRevenue = invoices.stream()
-                .map(inv -> inflationCalculationService.calculateRealValue(inv.getTotalAmount(), inv.getIssueDate(), baseDate))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        log.info("Hesaplanan Gelirler -> Nominal: {}, Reel: {}", nominalRevenue, realRevenue);
-
-        // 2. İşletme Giderlerini Hesapla
-        List<Expense> expenses = expenseRepository.findAllByTenantIdAndExpenseDateBetweenOrderByExpenseDateAsc(tenantId, startDate, endDate);
-        BigDecimal nominalOperatingExpenses = expenses.stream().map(Expense::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
-        BigDecimal realOperatingExpenses = expenses.stream()
-                .map(exp -> inflationCalculationService.calculateRealValue(exp.getAmount(), exp.getExpenseDate(), baseDate))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        log.info("Hesaplanan Giderler -> Nominal: {}, Reel: {}", nominalOperatingExpenses, realOperatingExpenses);
-
-        // 3. Satılan Malın Maliyetini (SMM) Hesapla
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        List<Order> shippedOrders = orderRepository.findAllByTenantIdAndStatusInAndOrderDateBetween(
-                tenantId, List.of(Order.OrderStatus.SHIPPED, Order.OrderStatus.DELIVERED), startDateTime, endDateTime);
+        // Aralığa tamamen giren kapalı aylar dondurulmuş toplamlarından okunur; kalan günler canlı hesaplanır
+        Map<LocalDate, ClosedPeriod> closedPeriods = closedPeriodRepository.findAllByTenantIdAndPeriodStartBetween(
+                        tenantId, Range.closed(startDate.withDayOfMonth(1), endDate.withDayOfMonth(1))).stream()
+                .filter(period -> !period.getPeriodStart().isBefore(startDate)
+                        && !YearMonth.from(period.getPeriodStart()).atEndOfMonth().isAfter(endDate))
+                .collect(Collectors.toMap(ClosedPeriod::getPeriodStart, period -> period));
+        List<LocalDate[]> openSegments = openSegments(startDate, endDate, closedPeriods.keySet());
+        log.info("Kapalı dönem sayısı: {}, canlı hesaplanan aralık sayısı: {}", closedPeriods.size(), openSegments.size());
 
-        BigDecimal nominalCostOfGoodsSold = BigDecimal.ZERO;
-        BigDecimal realCostOfGoodsSold = BigDecimal.ZERO;
+        // Gelir, gider ve SMM birbirinden bağımsızdır; reportExecutor üzerinde eşzamanlı hesaplanır
+        CompletableFuture<SectionTotals> revenueSection = reportSectionRunner.submit("revenue", () -> {
+            Map<LocalDate, BigDecimal> amounts = new TreeMap<>();
+            closedPeriods.values().forEach(period -> amounts.merge(period.getPeriodStart(), period.getRevenue(), BigDecimal::add));
+            openSegments.forEach(segment -> mergeInto(amounts,
+                    dailyRollupService.getDailyTotals(tenantId, DailyRollup.Metric.INVOICED_REVENUE, segment[0], segment[1])));
+            return new SectionTotals(sum(amounts), toRealValue(amounts, baseDate));
+        });
+        CompletableFuture<SectionTotals> expenseSection = reportSectionRunner.submit("operating-expenses", () -> {
+            Map<LocalDate, BigDecimal> amounts = new TreeMap<>();
+            closedPeriods.values().forEach(period -> amounts.merge(period.getPeriodStart(), period.getOperatingExpenses(), BigDecimal::add));
+            openSegments.forEach(segment -> mergeInto(amounts,
+                    dailyRollupService.getDailyTotals(tenantId, DailyRollup.Metric.EXPENSES, segment[0], segment[1])));
+            return new SectionTotals(sum(amounts), toRealValue(amounts, baseDate));
+        });
+        CompletableFuture<SectionTotals> costSection = reportSectionRunner.submit("cost-of-goods-sold", () -> {
+            Map<LocalDate, BigDecimal> amounts = new TreeMap<>();
+            closedPeriods.values().forEach(period -> period.getCostOfGoodsSoldByCostMonth()
+                    .forEach(entry -> amounts.merge(entry.getMonth(), entry.getAmount(), BigDecimal::add)));
+            openSegments.forEach(segment -> mergeInto(amounts, costOfGoodsSold(segment[0], segment[1], tenantId)));
+            return new SectionTotals(sum(amounts), toRealValue(amounts, baseDate));
+        });
 
-        for (Order order : shippedOrders) {
-            for (Order.OrderItem item : order.getItems()) {
-                // Her bir sipariş kalemi için üretim maliyetini bul ve topla
-                CostInfo costInfo = findCostForOrderItem(item, order.getOrderDate().toLocalDate(), tenantId);
-                nominalCostOfGoodsSold = nominalCostOfGoodsSold.add(costInfo.getNominalCost());
+        // 1. Gelirler (Faturaların günlük toplamlarından)
+        SectionTotals revenue = reportSectionRunner.await(revenueSection);
+        log.info("Hesaplanan Gelirler -> Nominal: {}, Reel: {}", revenue.nominal(), revenue.real());
 
-                BigDecimal realItemCost = inflationCalculationService.calculateRealValue(costInfo.getNominalCost(), costInfo.getCostDate(), baseDate);
-                realCostOfGoodsSold = realCostOfGoodsSold.add(realItemCost);
-            }
-        }
-        log.info("Hesaplanan SMM -> Nominal: {}, Reel: {}", nominalCostOfGoodsSold, realCostOfGoodsSold);
+        // 2. İşletme Giderleri (Giderlerin günlük toplamlarından)
+        SectionTotals operatingExpenses = reportSectionRunner.await(expenseSection);
+        log.info("Hesaplanan Giderler -> Nominal: {}, Reel: {}", operatingExpenses.nominal(), operatingExpenses.real());
+
+        // 3. Satılan Malın Maliyeti (SMM), reel değer maliyetin oluştuğu güne göre dönüştürülür
+        SectionTotals costOfGoodsSold = reportSectionRunner.await(costSection);
+        log.info("Hesaplanan SMM -> Nominal: {}, Reel: {}", costOfGoodsSold.nominal(), costOfGoodsSold.real());
 
         // 4. Kâr/Zarar Hesaplamaları
-        BigDecimal nominalGrossProfit = nominalRevenue.subtract(nominalCostOfGoodsSold);
-        BigDecimal realGrossProfit = realRevenue.subtract(realCostOfGoodsSold);
-        BigDecimal nominalNetProfit = nominalGrossProfit.subtract(nominalOperatingExpenses);
-        BigDecimal realNetProfit = realGrossProfit.subtract(realOperatingExpenses);
+        BigDecimal nominalGrossProfit = revenue.nominal().subtract(costOfGoodsSold.nominal());
+        BigDecimal realGrossProfit = revenue.real().subtract(costOfGoodsSold.real());
+        BigDecimal nominalNetProfit = nominalGrossProfit.subtract(operatingExpenses.nominal());
+        BigDecimal realNetProfit = realGrossProfit.subtract(operatingExpenses.real());
         log.info("Hesaplanan Net Kâr -> Nominal: {}, Reel: {}", nominalNetProfit, realNetProfit);
 
         return RealProfitLossReportDTO.builder()
                 .period(YearMonth.from(startDate))
-                .nominalRevenue(nominalRevenue)
-                .realRevenue(realRevenue)
-                .nominalCostOfGoodsSold(nominalCostOfGoodsSold)
-                .realCostOfGoodsSold(realCostOfGoodsSold)
-                .nominalOperatingExpenses(nominalOperatingExpenses)
-                .realOperatingExpenses(realOperatingExpenses)
+                .nominalRevenue(revenue.nominal())
+                .realRevenue(revenue.real())
+                .nominalCostOfGoodsSold(costOfGoodsSold.nominal())
+                .realCostOfGoodsSold(costOfGoodsSold.real())
+                .nominalOperatingExpenses(operatingExpenses.nominal())
+                .realOperatingExpenses(operatingExpenses.real())
                 .nominalGrossProfit(nominalGrossProfit)
                 .realGrossProfit(realGrossProfit)
                 .nominalNetProfit(nominalNetProfit)
@@ -106,17 +124,117 @@ public class FinancialReportService {
                 .build();
     }
 
+    /**
+     * Bir tarih aralığının nominal gelir, gider ve SMM toplamlarını ham kayıtlardan (günlük toplamlar, FIFO tüketimleri) hesaplar.
+     * Gelir ve giderler belge gününe, SMM maliyetin oluştuğu güne göre gruplanır. Dönem kapatma bu hesabı dondurur.
+     */
+    public PeriodTotals computeNominalTotals(LocalDate startDate, LocalDate endDate, String tenantId) {
+        Map<LocalDate, BigDecimal> revenue = dailyRollupService.getDailyTotals(tenantId, DailyRollup.Metric.INVOICED_REVENUE, startDate, endDate);
+        Map<LocalDate, BigDecimal> expenses = dailyRollupService.getDailyTotals(tenantId, DailyRollup.Metric.EXPENSES, startDate, endDate);
+        return new PeriodTotals(new TreeMap<>(revenue), new TreeMap<>(expenses), new TreeMap<>(costOfGoodsSold(startDate, endDate, tenantId)));
+    }
+
+    // FIFO defterinin karşıladığı günlerde SMM, satış tüketimlerinin (SALE - SALE_CANCEL) toplamıdır.
+    // Defter kurulmadan önceki günler (veya hiç kurulmadıysa tüm aralık) üretim partilerinden tahmin edilir.
+    private Map<LocalDate, BigDecimal> costOfGoodsSold(LocalDate startDate, LocalDate endDate, String tenantId) {
+        Optional<LocalDate> coveredFrom = costLayerService.getCoveredFrom(tenantId);
+        if (coveredFrom.isEmpty()) {
+            log.warn("Tenant {} için FIFO maliyet defteri kurulmamış, SMM üretim partilerinden tahmin ediliyor.", tenantId);
+            return estimateCostOfGoodsSold(startDate, endDate, tenantId);
+        }
+        if (!coveredFrom.get().isAfter(startDate)) {
+            return costLayerService.getCostOfGoodsSoldByCostDate(tenantId, startDate, endDate);
+        }
+        LocalDate estimateEnd = coveredFrom.get().isAfter(endDate) ? endDate : coveredFrom.get().minusDays(1);
+        Map<LocalDate, BigDecimal> amounts = new TreeMap<>(estimateCostOfGoodsSold(startDate, estimateEnd, tenantId));
+        if (!coveredFrom.get().isAfter(endDate)) {
+            mergeInto(amounts, costLayerService.getCostOfGoodsSoldByCostDate(tenantId, coveredFrom.get(), endDate));
+        }
+        return amounts;
+    }
+
+    private static void mergeInto(Map<LocalDate, BigDecimal> target, Map<LocalDate, BigDecimal> amounts) {
+        amounts.forEach((date, amount) -> target.merge(date, amount, BigDecimal::add));
+    }
+
+    // Kapalı aylar dışında kalan, ardışık günlerden oluşan [başlangıç, bitiş] aralıkları (kapalı aylar aralığa tamamen girmelidir)
+    static List<LocalDate[]> openSegments(LocalDate startDate, LocalDate endDate, Set<LocalDate> closedMonths) {
+        List<LocalDate[]> segments = new ArrayList<>();
+        LocalDate segmentStart = null;
+        for (YearMonth month = YearMonth.from(startDate); !month.isAfter(YearMonth.from(endDate)); month = month.plusMonths(1)) {
+            LocalDate monthStart = month.atDay(1).isBefore(startDate) ? startDate : month.atDay(1);
+            if (closedMonths.contains(month.atDay(1))) {
+                if (segmentStart != null) {
+                    segments.add(new LocalDate[]{segmentStart, monthStart.minusDays(1)});
+                    segmentStart = null;
+                }
+            } else if (segmentStart == null) {
+                segmentStart = monthStart;
+            }
+        }
+        if (segmentStart != null) {
+            segments.add(new LocalDate[]{segmentStart, endDate});
+        }
+        return segments;
+    }
+
+    private BigDecimal sum(Map<LocalDate, BigDecimal> dailyTotals) {
+        return sum(dailyTotals.values());
+    }
+
+    // Günlük toplamlar toplu dönüşümle düzeltilir (kaynak ay başına tek çarpan)
+    private BigDecimal toRealValue(Map<LocalDate, BigDecimal> dailyTotals, LocalDate baseDate) {
+        return sum(inflationCalculationService.calculateRealValues(
+                new ArrayList<>(dailyTotals.values()), new ArrayList<>(dailyTotals.keySet()), baseDate));
+    }
+
+    private BigDecimal sum(Collection<BigDecimal> amounts) {
+        return amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    // FIFO defterinin karşılamadığı günler için eski tahmin: sipariş tarihinden önce başlamış son üretim partisinin birim maliyeti.
+    // Maliyetler partinin başlangıç gününe göre gruplanır.
+    private Map<LocalDate, BigDecimal> estimateCostOfGoodsSold(LocalDate startDate, LocalDate endDate, String tenantId) {
+        LocalDateTime startDateTime = startDate.atStartOfDay();
+        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
+        List<Order> shippedOrders = orderRepository.findAllByTenantIdAndStatusInAndOrderDateBetween(
+                tenantId, List.of(Order.OrderStatus.SHIPPED, Order.OrderStatus.DELIVERED), startDateTime, endDateTime);
+
+        // Fidanlar ve üretim partileri rapor başına bir kez yüklenir; kalem sayısından bağımsız sabit sayıda sorgu
+        Map<String, Plant> plantsById = loadPlants(shippedOrders);
+        BatchIndex batchIndex = new BatchIndex(productionBatchRepository.findAllByTenantId(tenantId));
+
+        Map<LocalDate, BigDecimal> costByCostDate = new TreeMap<>();
+        for (Order order : shippedOrders) {
+            for (Order.OrderItem item : order.getItems()) {
+                // Her bir sipariş kalemi için üretim maliyetini bul
+                CostInfo costInfo = findCostForOrderItem(item, order.getOrderDate().toLocalDate(), plantsById, batchIndex);
+                costByCostDate.merge(costInfo.getCostDate(), costInfo.getNominalCost(), BigDecimal::add);
+            }
+        }
+        return costByCostDate;
+    }
+
+    // Siparişlerdeki tüm fidanları tek bir findAllById ile yükler
+    private Map<String, Plant> loadPlants(List<Order> orders) {
+        Set<String> plantIds = orders.stream()
+                .flatMap(order -> order.getItems().stream())
+                .map(Order.OrderItem::getPlantId)
+                .collect(Collectors.toSet());
+        Map<String, Plant> plantsById = new HashMap<>();
+        plantRepository.findAllById(plantIds).forEach(plant -> plantsById.put(plant.getId(), plant));
+        return plantsById;
+    }
+
     // Satılan bir ürünün maliyetini ve maliyet tarihini bulan yardımcı metot
-    private CostInfo findCostForOrderItem(Order.OrderItem item, LocalDate orderDate, String tenantId) {
-        Plant plant = plantRepository.findById(item.getPlantId())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Siparişteki fidan bulunamadı: " + item.getPlantId()));
+    private CostInfo findCostForOrderItem(Order.OrderItem item, LocalDate orderDate, Map<String, Plant> plantsById, BatchIndex batchIndex) {
+        Plant plant = plantsById.get(item.getPlantId());
+        if (plant == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Siparişteki fidan bulunamadı: " + item.getPlantId());
+        }
 
         // Fidanla eşleşen ve sipariş tarihinden önce başlamış en son üretim partisini bul
-        Optional<ProductionBatch> latestBatchOpt = productionBatchRepository.findAllByTenantId(tenantId).stream()
-                .filter(pb -> pb.getPlantTypeId().equals(plant.getPlantTypeId()) &&
-                        pb.getPlantVarietyId().equals(plant.getPlantVarietyId()) &&
-                        !pb.getStartDate().isAfter(orderDate))
-                .max(Comparator.comparing(ProductionBatch::getStartDate));
+        Optional<ProductionBatch> latestBatchOpt = batchIndex.findLatest(plant.getPlantTypeId(), plant.getPlantVarietyId(), orderDate);
 
         if (latestBatchOpt.isPresent()) {
             ProductionBatch batch = latestBatchOpt.get();
@@ -131,6 +249,62 @@ public class FinancialReportService {
         return new CostInfo(BigDecimal.ZERO, orderDate); // Maliyet bulunamazsa sıfır ve sipariş tarihi
     }
 
+    // Rapor süresince kullanılan üretim partisi indeksi: (tür, çeşit) bazında gruplanır ve başlangıç tarihine göre sıralanır.
+    // Sipariş tarihinde veya öncesinde başlamış en son parti ikili arama ile bulunur.
+    private static class BatchIndex {
+        private final Map<String, List<ProductionBatch>> batchesByKey;
+
+        BatchIndex(List<ProductionBatch> batches) {
+            // Sıralama kararlı olduğundan aynı başlangıç tarihli partilerde veritabanı sırası korunur
+            this.batchesByKey = batches.stream()
+                    .filter(batch -> batch.getStartDate() != null)
+                    .sorted(Comparator.comparing(ProductionBatch::getStartDate))
+                    .collect(Collectors.groupingBy(batch -> key(batch.getPlantTypeId(), batch.getPlantVarietyId())));
+        }
+
+        Optional<ProductionBatch> findLatest(String plantTypeId, String plantVarietyId, LocalDate date) {
+            List<ProductionBatch> batches = batchesByKey.get(key(plantTypeId, plantVarietyId));
+            if (batches == null) {
+                return Optional.empty();
+            }
+            // startDate <= date olan ilk olmayan konum (upper bound)
+            int low = 0;
+            int high = batches.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (batches.get(mid).getStartDate().isAfter(date)) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            if (low == 0) {
+                return Optional.empty();
+            }
+            // Aynı tarihte başlamış birden fazla parti varsa önceki davranıştaki gibi ilki seçilir
+            int index = low - 1;
+            LocalDate latestStart = batches.get(index).getStartDate();
+            while (index > 0 && batches.get(index - 1).getStartDate().equals(latestStart)) {
+                index--;
+            }
+            return Optional.of(batches.get(index));
+        }
+
+        private static String key(String plantTypeId, String plantVarietyId) {
+            return plantTypeId + "|" + plantVarietyId;
+        }
+    }
+
+    // Nominal dönem toplamları: gelir ve giderler belge gününe, SMM maliyet gününe göre (dönem kapatmada kullanılır)
+    public record PeriodTotals(Map<LocalDate, BigDecimal> revenue,
+                               Map<LocalDate, BigDecimal> operatingExpenses,
+                               Map<LocalDate, BigDecimal> costOfGoodsSold) {
+    }
+
+    // Bir rapor bölümünün nominal ve reel toplamı
+    private record SectionTotals(BigDecimal nominal, BigDecimal real) {
+    }
+
     // Maliyet bilgilerini taşımak için küçük bir yardımcı sınıf
     private static class CostInfo {
         private final BigDecimal nominalCost;
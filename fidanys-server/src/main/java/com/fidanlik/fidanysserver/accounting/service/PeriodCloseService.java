@@ -0,0 +1,111 @@
+package com.fidanlik.fidanysserver.accounting.service;
+
+import com.fidanlik.fidanysserver.accounting.model.ClosedPeriod;
+import com.fidanlik.fidanysserver.accounting.repository.ClosedPeriodRepository;
+import com.fidanlik.fidanysserver.rollup.service.DailyRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aylık dönem kapatma. Kapatılan ayın nominal gelir, gider ve SMM toplamları closedPeriods koleksiyonuna dondurulur;
+ * reel kâr/zarar raporu bu ayları ham belgelerden yeniden hesaplamaz.
+ * Dondurulan toplamlar yalnızca fatura geliri (INVOICED_REVENUE), giderler (EXPENSES) ve FIFO SMM'dir.
+ * Faturalar kesim günü, SMM ise sevk anı ile tarihlendiği için kapalı aya yalnızca geriye tarihli gider girilebilir;
+ * bu giriş assertPeriodOpen ile reddedilir. Tahsilat/tediye ve dashboard satış geliri dondurulmaz ve kilitlenmez.
+ * Düzeltme için dönem yeniden açılıp kapatılır.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PeriodCloseService {
+
+    private final ClosedPeriodRepository closedPeriodRepository;
+    private final FinancialReportService financialReportService;
+    private final DailyRollupService dailyRollupService;
+
+    public ClosedPeriod closePeriod(YearMonth period, String userId, String tenantId) {
+        if (!period.isBefore(YearMonth.now())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sadece geçmiş aylar kapatılabilir.");
+        }
+        if (closedPeriodRepository.existsByTenantIdAndPeriodStart(tenantId, period.atDay(1))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Bu dönem zaten kapatılmış: " + period);
+        }
+        // Günlük toplamlar oluşturulmadan kapatılan ay sıfır gelir/gider ile kalıcı olarak dondurulurdu
+        if (!dailyRollupService.isInitialized(tenantId)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Günlük finansal toplamlar henüz oluşturulmadı, dönem kapatılamaz.");
+        }
+
+        FinancialReportService.PeriodTotals totals = financialReportService.computeNominalTotals(period.atDay(1), period.atEndOfMonth(), tenantId);
+
+        // SMM maliyet ayına göre toplanır (reel dönüşüm ay bazında yapıldığı için gün detayı gerekmez)
+        Map<LocalDate, BigDecimal> costByMonth = new TreeMap<>();
+        totals.costOfGoodsSold().forEach((date, amount) -> costByMonth.merge(date.withDayOfMonth(1), amount, BigDecimal::add));
+
+        ClosedPeriod closedPeriod = new ClosedPeriod();
+        closedPeriod.setTenantId(tenantId);
+        closedPeriod.setPeriodStart(period.atDay(1));
+        closedPeriod.setRevenue(sum(totals.revenue()));
+        closedPeriod.setOperatingExpenses(sum(totals.operatingExpenses()));
+        closedPeriod.setCostOfGoodsSold(sum(costByMonth));
+        costByMonth.forEach((month, amount) -> {
+            ClosedPeriod.MonthlyAmount entry = new ClosedPeriod.MonthlyAmount();
+            entry.setMonth(month);
+            entry.setAmount(amount);
+            closedPeriod.getCostOfGoodsSoldByCostMonth().add(entry);
+        });
+        closedPeriod.setClosedAt(LocalDateTime.now());
+        closedPeriod.setClosedBy(userId);
+
+        log.info("Dönem kapatıldı. Tenant: {}, Dönem: {}, Gelir: {}, Gider: {}, SMM: {}", tenantId, period,
+                closedPeriod.getRevenue(), closedPeriod.getOperatingExpenses(), closedPeriod.getCostOfGoodsSold());
+        try {
+            return closedPeriodRepository.insert(closedPeriod);
+        } catch (DuplicateKeyException e) {
+            // Aynı dönem için eşzamanlı kapatma isteği önce kaydedildi
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Bu dönem zaten kapatılmış: " + period);
+        }
+    }
+
+    /**
+     * Belge tarihi kapatılmış bir aya düşüyorsa yazmayı reddeder (dondurulan toplamlara giren geriye tarihli giderler).
+     * Çağıranın işlemi (transaction) içinde, belge yazılmadan önce çağrılır.
+     */
+    public void assertPeriodOpen(String tenantId, LocalDate documentDate) {
+        if (documentDate == null) {
+            return;
+        }
+        LocalDate periodStart = documentDate.withDayOfMonth(1);
+        if (closedPeriodRepository.existsByTenantIdAndPeriodStart(tenantId, periodStart)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Kapatılmış döneme (" + YearMonth.from(periodStart) + ") tarihli kayıt girilemez. Önce dönemi yeniden açın.");
+        }
+    }
+
+    // Dönemi yeniden açar; rapor bu ayı tekrar canlı hesaplar
+    public void reopenPeriod(YearMonth period, String tenantId) {
+        ClosedPeriod closedPeriod = closedPeriodRepository.findByTenantIdAndPeriodStart(tenantId, period.atDay(1))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Kapatılmış dönem bulunamadı: " + period));
+        closedPeriodRepository.delete(closedPeriod);
+        log.info("Dönem yeniden açıldı. Tenant: {}, Dönem: {}", tenantId, period);
+    }
+
+    public List<ClosedPeriod> getClosedPeriods(String tenantId) {
+        return closedPeriodRepository.findAllByTenantIdOrderByPeriodStartDesc(tenantId);
+    }
+
+    private BigDecimal sum(Map<LocalDate, BigDecimal> amounts) {
+        return amounts.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
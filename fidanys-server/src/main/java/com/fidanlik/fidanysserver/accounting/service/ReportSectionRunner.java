@@ -0,0 +1,96 @@
+package com.fidanlik.fidanysserver.accounting.service;
+
+import com.fidanlik.fidanysserver.accounting.dto.ReportSectionStatsDTO;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Finansal raporun birbirinden bağımsız bölümlerini (gelir, gider, SMM) reportExecutor üzerinde eşzamanlı çalıştırır.
+ * Her bölümün süresi ayrı ölçülür: çağrı sayısı, ortalama, en uzun ve son süre ile hata sayısı tutulur.
+ * Rapor eksik sonuç döndüremeyeceği için dashboard bölümlerinden farklı olarak zaman aşımı uygulanmaz.
+ */
+@Component
+public class ReportSectionRunner {
+
+    private final ExecutorService executor;
+    private final Map<String, SectionTimer> timers = new ConcurrentHashMap<>();
+
+    public ReportSectionRunner(@Qualifier("reportExecutor") ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public <T> CompletableFuture<T> submit(String section, Supplier<T> loader) {
+        return CompletableFuture.supplyAsync(() -> {
+            long started = System.nanoTime();
+            boolean failed = true;
+            try {
+                T result = loader.get();
+                failed = false;
+                return result;
+            } finally {
+                record(section, System.nanoTime() - started, failed);
+            }
+        }, executor);
+    }
+
+    // Bölüm sonucunu bekler; bölümde oluşan hata (ör. ResponseStatusException) olduğu gibi fırlatılır
+    public <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public List<ReportSectionStatsDTO> getStats() {
+        return timers.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> {
+                    SectionTimer timer = entry.getValue();
+                    long count = timer.count.get();
+                    return ReportSectionStatsDTO.builder()
+                            .section(entry.getKey())
+                            .count(count)
+                            .averageMillis(count == 0 ? 0 : (double) timer.totalMillis.get() / count)
+                            .maxMillis(timer.maxMillis.get())
+                            .lastMillis(timer.lastMillis.get())
+                            .failures(timer.failures.get())
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+
+    private void record(String section, long elapsedNanos, boolean failed) {
+        SectionTimer timer = timers.computeIfAbsent(section, key -> new SectionTimer());
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        timer.count.incrementAndGet();
+        timer.totalMillis.addAndGet(elapsedMillis);
+        timer.maxMillis.accumulateAndGet(elapsedMillis, Math::max);
+        timer.lastMillis.set(elapsedMillis);
+        if (failed) {
+            timer.failures.incrementAndGet();
+        }
+    }
+
+    private static class SectionTimer {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+        private final AtomicLong lastMillis = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+    }
+}
@@ -14,6 +14,7 @@ import java.util.List;
 public class TransactionService {
 
     private final TransactionRepository transactionRepository;
+    private final AccountBalanceService accountBalanceService;
 
     public void createCustomerTransaction(String customerId, Transaction.TransactionType type, BigDecimal amount, String description, String relatedDocumentId, String userId, String tenantId) {
         Transaction transaction = Transaction.builder()
@@ -27,6 +28,7 @@ public class TransactionService {
                 .userId(userId)
                 .build();
         transactionRepository.save(transaction);
+        accountBalanceService.apply(transaction);
     }
 
     public void createSupplierTransaction(String supplierId, Transaction.TransactionType type, BigDecimal amount, String description, String relatedDocumentId, String userId, String tenantId) {
@@ -41,6 +43,7 @@ public class TransactionService {
                 .userId(userId)
                 .build();
         transactionRepository.save(transaction);
+        accountBalanceService.apply(transaction);
     }
 
     // YENİ: Dahili işlemler (örn. üretimden stok girişi) için genel işlem metodu
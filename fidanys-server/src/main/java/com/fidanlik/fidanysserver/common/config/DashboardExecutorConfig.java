@@ -0,0 +1,50 @@
+package com.fidanlik.fidanysserver.common.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@Slf4j
+public class DashboardExecutorConfig {
+
+    // Dashboard alt sorgularının paralel çalıştırıldığı executor.
+    // Çalışma zamanı destekliyorsa (Java 21+) ve etkinse sanal thread'ler, aksi halde sınırlı bir thread havuzu kullanılır.
+    @Bean(name = "dashboardExecutor", destroyMethod = "shutdown")
+    public ExecutorService dashboardExecutor(
+            @Value("${dashboard.executor.virtual-threads:true}") boolean virtualThreads,
+            @Value("${dashboard.executor.pool-size:8}") int poolSize,
+            @Value("${dashboard.executor.queue-capacity:200}") int queueCapacity) {
+        if (virtualThreads) {
+            try {
+                // Proje Java 17 ile derlendiği için metoda yansıma ile erişilir
+                ExecutorService executor = (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+                log.info("Dashboard alt sorguları sanal thread'lerde çalıştırılacak.");
+                return executor;
+            } catch (ReflectiveOperationException e) {
+                log.info("Sanal thread desteklenmiyor, sınırlı thread havuzu kullanılacak. Boyut: {}", poolSize);
+            }
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        // Kuyruk dolarsa görev çağıran thread'de çalışır; istek reddedilmez, sadece paralellik kaybolur
+        return new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
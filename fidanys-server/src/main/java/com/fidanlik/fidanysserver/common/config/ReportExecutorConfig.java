@@ -0,0 +1,36 @@
+package com.fidanlik.fidanysserver.common.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@Slf4j
+public class ReportExecutorConfig {
+
+    // Finansal rapor bölümlerinin (gelir, gider, SMM) eşzamanlı hesaplandığı executor.
+    // Rapor sorguları ağır olduğundan dashboard'dan ayrı, sınırlı bir havuz kullanılır.
+    @Bean(name = "reportExecutor", destroyMethod = "shutdown")
+    public ExecutorService reportExecutor(
+            @Value("${report.executor.pool-size:4}") int poolSize,
+            @Value("${report.executor.queue-capacity:50}") int queueCapacity) {
+        log.info("Rapor bölümleri için thread havuzu oluşturuluyor. Boyut: {}", poolSize);
+        AtomicInteger counter = new AtomicInteger();
+        // Kuyruk dolarsa görev çağıran thread'de çalışır; rapor reddedilmez, sadece paralellik kaybolur
+        return new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
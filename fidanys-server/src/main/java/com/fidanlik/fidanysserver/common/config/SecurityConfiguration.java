@@ -5,6 +5,7 @@ import com.fidanlik.fidanysserver.common.security.CustomAccessDeniedHandler;
 import com.fidanlik.fidanysserver.common.security.JwtAuthenticationEntryPoint;
 import com.fidanlik.fidanysserver.common.security.JwtAuthenticationFilter;
 import com.fidanlik.fidanysserver.common.security.TenantAuthenticationProvider;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -42,6 +43,8 @@ public class SecurityConfiguration {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        // SSE gibi asenkron yanıtların tamamlanma dispatch'i; asıl istek zaten doğrulanmış olur
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/v1/auth/login", "/graphql").permitAll()
                         .anyRequest().authenticated()
                 )
@@ -0,0 +1,22 @@
+package com.fidanlik.fidanysserver.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Yazma işlemlerinden sonra ApplicationEventPublisher ile yayınlanan olay.
+// Dinleyiciler (ör. dashboard önbelleği) yalnızca ilgili tenant ve veri türü için tepki verir.
+@Data
+@AllArgsConstructor
+public class DomainEvent {
+    private String tenantId;
+    private Type type;
+
+    public enum Type {
+        ORDER_CHANGED,
+        STOCK_CHANGED,
+        EXPENSE_CHANGED,
+        PAYMENT_CHANGED,
+        GOODS_RECEIPT_CHANGED,
+        INVOICE_CHANGED
+    }
+}
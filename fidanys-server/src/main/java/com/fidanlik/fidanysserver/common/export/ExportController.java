@@ -1,6 +1,7 @@
 package com.fidanlik.fidanysserver.common.export;
 
-import com.fidanlik.fidanysserver.accounting.repository.TransactionRepository;
+import com.fidanlik.fidanysserver.accounting.model.AccountBalance;
+import com.fidanlik.fidanysserver.accounting.service.AccountBalanceService;
 import com.fidanlik.fidanysserver.customer.model.Customer;
 import com.fidanlik.fidanysserver.customer.repository.CustomerRepository;
 import com.fidanlik.fidanysserver.customer.service.CustomerService;
@@ -63,7 +64,7 @@ public class ExportController {
     private final ProductionBatchService productionBatchService;
     private final PlantTypeRepository plantTypeRepository;
     private final StockService stockService;
-    private final TransactionRepository transactionRepository;
+    private final AccountBalanceService accountBalanceService;
     private final InvoiceService invoiceService;
     private final PaymentService paymentService;
     private final ExpenseCategoryRepository expenseCategoryRepository;
@@ -281,25 +282,18 @@ public class ExportController {
                 reportTitle = "Müşteri Cari Hesap Raporu";
                 headers = List.of("Müşteri", "Toplam Borç", "Toplam Alacak", "Bakiye");
 
-                // 1. Tenant'a ait tüm müşterileri çek
+                // 1. Tenant'a ait tüm müşteri bakiyelerini tek sorguda çek (accountBalances)
+                Map<String, AccountBalance> customerBalances =
+                        accountBalanceService.getBalancesByCounterparty(tenantId, AccountBalance.CounterpartyType.CUSTOMER);
+
+                // 2. Tenant'a ait tüm müşterileri çek
                 customerRepository.findAllByTenantId(tenantId).forEach(customer -> {
                     Map<String, Object> row = new LinkedHashMap<>();
 
-                    // 2. Her müşterinin tüm işlemlerini çek
-                    List<com.fidanlik.fidanysserver.accounting.model.Transaction> transactions =
-                            transactionRepository.findByCustomerIdAndTenantIdOrderByTransactionDateDesc(customer.getId(), tenantId);
-
-                    BigDecimal totalDebit = BigDecimal.ZERO;
-                    BigDecimal totalCredit = BigDecimal.ZERO;
-
-                    // 3. Borç ve alacakları hesapla
-                    for (com.fidanlik.fidanysserver.accounting.model.Transaction tx : transactions) {
-                        if (tx.getType() == com.fidanlik.fidanysserver.accounting.model.Transaction.TransactionType.DEBIT) {
-                            totalDebit = totalDebit.add(tx.getAmount());
-                        } else if (tx.getType() == com.fidanlik.fidanysserver.accounting.model.Transaction.TransactionType.CREDIT) {
-                            totalCredit = totalCredit.add(tx.getAmount());
-                        }
-                    }
+                    // 3. Müşterinin borç ve alacak toplamları (işlemi olmayan müşteri için sıfır)
+                    AccountBalance accountBalance = customerBalances.get(customer.getId());
+                    BigDecimal totalDebit = accountBalance != null ? accountBalance.getTotalDebit() : BigDecimal.ZERO;
+                    BigDecimal totalCredit = accountBalance != null ? accountBalance.getTotalCredit() : BigDecimal.ZERO;
 
                     // 4. Bakiyeyi hesapla (Borç - Alacak)
                     BigDecimal balance = totalDebit.subtract(totalCredit);
@@ -316,25 +310,18 @@ public class ExportController {
                 reportTitle = "Tedarikçi Cari Hesap Raporu";
                 headers = List.of("Tedarikçi", "Toplam Alacak", "Toplam Borç (Ödenen)", "Bakiye");
 
-                // 1. Tenant'a ait tüm tedarikçileri çek
+                // 1. Tenant'a ait tüm tedarikçi bakiyelerini tek sorguda çek (accountBalances)
+                Map<String, AccountBalance> supplierBalances =
+                        accountBalanceService.getBalancesByCounterparty(tenantId, AccountBalance.CounterpartyType.SUPPLIER);
+
+                // 2. Tenant'a ait tüm tedarikçileri çek
                 supplierRepository.findAllByTenantId(tenantId).forEach(supplier -> {
                     Map<String, Object> row = new LinkedHashMap<>();
 
-                    // 2. Her tedarikçinin tüm işlemlerini çek
-                    List<com.fidanlik.fidanysserver.accounting.model.Transaction> transactions =
-                            transactionRepository.findBySupplierIdAndTenantIdOrderByTransactionDateDesc(supplier.getId(), tenantId);
-
-                    BigDecimal totalCredit = BigDecimal.ZERO; // Tedarikçinin bizden alacağı
-                    BigDecimal totalDebit = BigDecimal.ZERO;  // Bizim tedarikçiye ödediğimiz
-
-                    // 3. Alacak ve borçları hesapla
-                    for (com.fidanlik.fidanysserver.accounting.model.Transaction tx : transactions) {
-                        if (tx.getType() == com.fidanlik.fidanysserver.accounting.model.Transaction.TransactionType.CREDIT) {
-                            totalCredit = totalCredit.add(tx.getAmount());
-                        } else if (tx.getType() == com.fidanlik.fidanysserver.accounting.model.Transaction.TransactionType.DEBIT) {
-                            totalDebit = totalDebit.add(tx.getAmount());
-                        }
-                    }
+                    // 3. Alacak ve borç toplamları (işlemi olmayan tedarikçi için sıfır)
+                    AccountBalance accountBalance = supplierBalances.get(supplier.getId());
+                    BigDecimal totalCredit = accountBalance != null ? accountBalance.getTotalCredit() : BigDecimal.ZERO; // Tedarikçinin bizden alacağı
+                    BigDecimal totalDebit = accountBalance != null ? accountBalance.getTotalDebit() : BigDecimal.ZERO;  // Bizim tedarikçiye ödediğimiz
 
                     // 4. Bakiyeyi hesapla (Alacak - Borç)
                     BigDecimal balance = totalCredit.subtract(totalDebit);
@@ -0,0 +1,30 @@
+package com.fidanlik.fidanysserver.common.index;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/admin/indexes")
+@RequiredArgsConstructor
+public class IndexController {
+
+    private final IndexVerificationService indexVerificationService;
+
+    /**
+     * Açılışta yapılan indeks doğrulamasının sonucunu getirir (repository sorgularından türetilen ve tanımlı indeksler).
+     * Doğrulama tüm tenant'ların ortak koleksiyonlarında indeks oluşturduğu için API üzerinden tetiklenemez.
+     * Sadece ADMIN erişebilir.
+     * @return İndeks raporu.
+     */
+    @GetMapping
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<List<IndexReportDTO>> getIndexReport() {
+        return ResponseEntity.ok(indexVerificationService.getLastReport());
+    }
+}
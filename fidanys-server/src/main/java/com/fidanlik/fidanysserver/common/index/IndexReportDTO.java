@@ -0,0 +1,25 @@
+package com.fidanlik.fidanysserver.common.index;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+
+// Başlangıç indeks doğrulamasında tek bir indeks ihtiyacının sonucu.
+@Data
+@Builder
+public class IndexReportDTO {
+    private String collection;
+    private LinkedHashMap<String, Integer> keys; // Alan -> yön (1 / -1), indeks sırasıyla
+    private String source; // İhtiyacı doğuran repository metodu veya entity üzerindeki indeks tanımı
+    private Status status;
+    private String message;
+
+    public enum Status {
+        EXISTING, // Mevcut bir indeks bu ihtiyacı karşılıyor
+        CREATED,  // Eksikti, oluşturuldu
+        MISSING,  // Eksik (dry-run modunda oluşturulmadı)
+        OPTIONS_MISMATCH, // Aynı anahtarlı indeks var fakat seçenekleri (ör. unique) tanımdan farklı; elle düzeltilmeli
+        FAILED    // Oluşturma denemesi hata verdi (ör. benzersiz indekste tekrarlı veri)
+    }
+}
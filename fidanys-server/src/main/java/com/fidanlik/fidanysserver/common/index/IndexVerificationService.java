@@ -0,0 +1,298 @@
+package com.fidanlik.fidanysserver.common.index;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Uygulama açılışında tüm Spring Data repository'lerinin türetilmiş sorgu metotlarını (findBy..., countBy...)
+ * inceler ve her birinin ihtiyaç duyduğu bileşik indeksi ESR kuralına göre çıkarır:
+ * önce eşitlik alanları, sonra sıralama alanları, en son aralık (range) alanları.
+ * Entity'ler üzerindeki @Indexed / @CompoundIndex tanımları da doğrulanır
+ * (auto-index-creation kapalı olduğu için bunlar da aksi halde oluşturulmaz).
+ * Tanımlı indekslerde anahtarlarla birlikte seçenekler (unique, sparse, partial, TTL) de karşılaştırılır;
+ * aynı anahtarlı fakat farklı seçenekli bir indeks varsa oluşturulmaz, OPTIONS_MISMATCH olarak raporlanır.
+ * Eksik indeksler oluşturulur; dry-run modunda yalnızca raporlanır.
+ * Doğrulama tüm tenant'ların ortak koleksiyonlarını etkilediği için yalnızca açılışta çalışır.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IndexVerificationService {
+
+    private final ApplicationContext applicationContext;
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    @Value("${indexes.verification.enabled:true}")
+    private boolean enabled;
+
+    // true ise eksik indeksler oluşturulmaz, yalnızca raporlanır
+    @Value("${indexes.verification.dry-run:false}")
+    private boolean dryRun;
+
+    private static final Set<Part.Type> EQUALITY_TYPES = EnumSet.of(
+            Part.Type.SIMPLE_PROPERTY, Part.Type.IN, Part.Type.TRUE, Part.Type.FALSE, Part.Type.IS_NULL);
+
+    private static final Set<Part.Type> RANGE_TYPES = EnumSet.of(
+            Part.Type.BETWEEN, Part.Type.LESS_THAN, Part.Type.LESS_THAN_EQUAL, Part.Type.GREATER_THAN,
+            Part.Type.GREATER_THAN_EQUAL, Part.Type.BEFORE, Part.Type.AFTER);
+
+    private volatile List<IndexReportDTO> lastReport = List.of();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        if (!enabled) {
+            log.info("Başlangıç indeks doğrulaması kapalı.");
+            return;
+        }
+        try {
+            verify();
+        } catch (Exception e) {
+            // İndeks doğrulaması uygulamanın açılmasını engellememeli
+            log.error("Başlangıç indeks doğrulaması başarısız oldu.", e);
+        }
+    }
+
+    public List<IndexReportDTO> getLastReport() {
+        return lastReport;
+    }
+
+    private synchronized void verify() {
+        List<IndexRequirement> requirements = new ArrayList<>();
+        MongoPersistentEntityIndexResolver indexResolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        Repositories repositories = new Repositories(applicationContext);
+
+        for (Class<?> domainType : repositories) {
+            if (mappingContext.getPersistentEntity(domainType) == null) {
+                continue;
+            }
+            String collection = mongoTemplate.getCollectionName(domainType);
+
+            // 1. Entity üzerinde tanımlı indeksler
+            indexResolver.resolveIndexFor(domainType).forEach(definition -> requirements.add(
+                    IndexRequirement.declared(collection, definition, domainType.getSimpleName())));
+
+            // 2. Türetilmiş sorgu metotlarından çıkarılan indeksler
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            for (Method method : information.getQueryMethods()) {
+                if (method.isAnnotationPresent(Query.class) || method.isAnnotationPresent(Aggregation.class)) {
+                    continue;
+                }
+                DerivedKeys derived = deriveKeys(method.getName(), domainType);
+                if (derived != null && !derived.keys().isEmpty() && !derived.keys().keySet().equals(Set.of("_id"))) {
+                    requirements.add(IndexRequirement.derived(collection, derived,
+                            information.getRepositoryInterface().getSimpleName() + "." + method.getName()));
+                }
+            }
+        }
+
+        List<IndexReportDTO> report = new ArrayList<>();
+        Map<String, List<IndexShape>> existingByCollection = new LinkedHashMap<>();
+        Map<String, List<IndexShape>> plannedByCollection = new LinkedHashMap<>();
+
+        // Uzun anahtarlar önce: önek olarak kapsanan kısa ihtiyaçlar ayrı indeks gerektirmez
+        requirements.sort((a, b) -> Integer.compare(b.keys().size(), a.keys().size()));
+        for (IndexRequirement requirement : requirements) {
+            List<IndexShape> existing = existingByCollection.computeIfAbsent(requirement.collection(),
+                    collection -> mongoTemplate.indexOps(collection).getIndexInfo().stream().map(IndexShape::of).toList());
+            List<IndexShape> planned = plannedByCollection.computeIfAbsent(requirement.collection(), c -> new ArrayList<>());
+            List<String> fields = new ArrayList<>(requirement.keys().keySet());
+            IndexShape required = new IndexShape(fields, requirement.options());
+
+            boolean covered = existing.stream().anyMatch(index -> covers(index, required, requirement))
+                    || planned.stream().anyMatch(index -> covers(index, required, requirement));
+            if (covered) {
+                report.add(requirement.toReport(IndexReportDTO.Status.EXISTING, null));
+                continue;
+            }
+            // Aynı anahtarlarla farklı seçenekli indeks oluşturulamaz (IndexOptionsConflict); elle düzeltilmeli
+            IndexShape conflicting = requirement.declared()
+                    ? existing.stream().filter(index -> index.fields().equals(fields)).findFirst().orElse(null)
+                    : null;
+            if (conflicting != null) {
+                report.add(requirement.toReport(IndexReportDTO.Status.OPTIONS_MISMATCH,
+                        "Mevcut: " + conflicting.options() + ", Tanımlı: " + requirement.options()));
+                log.warn("İndeks seçenekleri uyuşmuyor: {} {} ({}). Mevcut: {}, Tanımlı: {}", requirement.collection(),
+                        requirement.keys(), requirement.source(), conflicting.options(), requirement.options());
+                continue;
+            }
+            if (dryRun) {
+                report.add(requirement.toReport(IndexReportDTO.Status.MISSING, null));
+                planned.add(required);
+                continue;
+            }
+            try {
+                String name = mongoTemplate.indexOps(requirement.collection()).createIndex(requirement.definition());
+                report.add(requirement.toReport(IndexReportDTO.Status.CREATED, name));
+                planned.add(required);
+                log.info("İndeks oluşturuldu: {} {} ({})", requirement.collection(), requirement.keys(), requirement.source());
+            } catch (RuntimeException e) {
+                report.add(requirement.toReport(IndexReportDTO.Status.FAILED, e.getMessage()));
+                log.warn("İndeks oluşturulamadı: {} {} ({}): {}", requirement.collection(), requirement.keys(),
+                        requirement.source(), e.getMessage());
+            }
+        }
+
+        long missing = report.stream().filter(r -> r.getStatus() == IndexReportDTO.Status.MISSING).count();
+        long created = report.stream().filter(r -> r.getStatus() == IndexReportDTO.Status.CREATED).count();
+        log.info("İndeks doğrulaması tamamlandı. İhtiyaç: {}, Oluşturulan: {}, Eksik (dry-run): {}", report.size(), created, missing);
+        lastReport = List.copyOf(report);
+    }
+
+    // Metot adından ESR sırasına göre indeks anahtarlarını çıkarır. Ayrıştırılamayan metotlar için null döner.
+    private DerivedKeys deriveKeys(String methodName, Class<?> domainType) {
+        PartTree tree;
+        try {
+            tree = new PartTree(methodName, domainType);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        // OR içeren sorgularda her dal ayrı indeks ister; bunlar otomatik türetilmez
+        if (tree.stream().count() > 1) {
+            return null;
+        }
+
+        LinkedHashMap<String, Integer> equality = new LinkedHashMap<>();
+        LinkedHashMap<String, Integer> range = new LinkedHashMap<>();
+        for (Part part : tree.getParts()) {
+            if (EQUALITY_TYPES.contains(part.getType())) {
+                equality.put(fieldName(part.getProperty()), 1);
+            } else if (RANGE_TYPES.contains(part.getType())) {
+                range.put(fieldName(part.getProperty()), 1);
+            } else {
+                // Regex, NOT, NEAR gibi ifadeler için indeks önekini burada kes
+                break;
+            }
+        }
+
+        LinkedHashMap<String, Integer> keys = new LinkedHashMap<>(equality);
+        for (Sort.Order order : tree.getSort()) {
+            keys.putIfAbsent(fieldName(PropertyPath.from(order.getProperty(), domainType)), order.isAscending() ? 1 : -1);
+        }
+        range.forEach(keys::putIfAbsent);
+        return new DerivedKeys(keys, equality.size());
+    }
+
+    private String fieldName(PropertyPath path) {
+        return mappingContext.getPersistentPropertyPath(path).toDotPath(MongoPersistentProperty::getFieldName);
+    }
+
+    /**
+     * Mevcut indeks ihtiyacı karşılıyor mu? Tanımlı indekslerde anahtarlar ve seçenekler birebir aynı olmalıdır.
+     * Türetilmiş ihtiyaçlar, tüm belgeleri içeren (sparse / partial olmayan) bir indeksin öneki ile karşılanır;
+     * eşitlik alanlarının sırası önemsizdir.
+     */
+    private boolean covers(IndexShape index, IndexShape required, IndexRequirement requirement) {
+        List<String> indexFields = index.fields();
+        List<String> requiredFields = required.fields();
+        if (indexFields.size() < requiredFields.size()) {
+            return false;
+        }
+        if (requirement.declared()) {
+            return indexFields.equals(requiredFields) && index.options().equals(required.options());
+        }
+        if (!index.options().coversAllDocuments()) {
+            return false;
+        }
+        int equalityCount = requirement.equalityCount();
+        Set<String> indexPrefix = new HashSet<>(indexFields.subList(0, equalityCount));
+        Set<String> requiredPrefix = new HashSet<>(requiredFields.subList(0, equalityCount));
+        return indexPrefix.equals(requiredPrefix)
+                && indexFields.subList(equalityCount, requiredFields.size()).equals(requiredFields.subList(equalityCount, requiredFields.size()));
+    }
+
+    // Türetilmiş indeks anahtarları; ilk equalityCount alan eşitlik koşullarıdır (sıraları önemsiz)
+    private record DerivedKeys(LinkedHashMap<String, Integer> keys, int equalityCount) {
+    }
+
+    // Karşılaştırmada kullanılan indeks özeti: alanlar (sırasıyla) ve seçenekler
+    private record IndexShape(List<String> fields, IndexOptions options) {
+        static IndexShape of(IndexInfo info) {
+            return new IndexShape(info.getIndexFields().stream().map(IndexField::getKey).toList(), IndexOptions.of(info));
+        }
+    }
+
+    // Kısıtı veya kapsanan belgeleri değiştiren indeks seçenekleri (expireAfterSeconds yoksa null)
+    private record IndexOptions(boolean unique, boolean sparse, boolean partial, Long expireAfterSeconds) {
+        static final IndexOptions NONE = new IndexOptions(false, false, false, null);
+
+        static IndexOptions of(IndexInfo info) {
+            return new IndexOptions(info.isUnique(), info.isSparse(), info.getPartialFilterExpression() != null,
+                    info.getExpireAfter().map(Duration::getSeconds).orElse(null));
+        }
+
+        static IndexOptions of(IndexDefinition definition) {
+            Document options = definition.getIndexOptions();
+            if (options == null) {
+                return NONE;
+            }
+            Object expireAfter = options.get("expireAfterSeconds");
+            return new IndexOptions(Boolean.TRUE.equals(options.get("unique")), Boolean.TRUE.equals(options.get("sparse")),
+                    options.containsKey("partialFilterExpression"), expireAfter instanceof Number n ? n.longValue() : null);
+        }
+
+        boolean coversAllDocuments() {
+            return !sparse && !partial;
+        }
+    }
+
+    private record IndexRequirement(String collection, LinkedHashMap<String, Integer> keys, IndexDefinition definition,
+                                    IndexOptions options, String source, boolean declared, int equalityCount) {
+
+        static IndexRequirement declared(String collection, IndexDefinition definition, String entityName) {
+            LinkedHashMap<String, Integer> keys = new LinkedHashMap<>();
+            Document indexKeys = definition.getIndexKeys();
+            indexKeys.forEach((field, direction) -> keys.put(field, direction instanceof Number n ? n.intValue() : 1));
+            return new IndexRequirement(collection, keys, definition, IndexOptions.of(definition),
+                    entityName + " (tanımlı indeks)", true, keys.size());
+        }
+
+        static IndexRequirement derived(String collection, DerivedKeys derived, String source) {
+            Index index = new Index();
+            derived.keys().forEach((field, direction) -> index.on(field, direction > 0 ? Sort.Direction.ASC : Sort.Direction.DESC));
+            return new IndexRequirement(collection, derived.keys(), index, IndexOptions.NONE, source, false, derived.equalityCount());
+        }
+
+        IndexReportDTO toReport(IndexReportDTO.Status status, String message) {
+            return IndexReportDTO.builder()
+                    .collection(collection)
+                    .keys(keys)
+                    .source(source)
+                    .status(status)
+                    .message(message)
+                    .build();
+        }
+    }
+}
@@ -5,15 +5,18 @@ import com.fidanlik.fidanysserver.inflation.model.InflationData;
 import com.fidanlik.fidanysserver.inflation.repository.InflationDataRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @RequiredArgsConstructor
@@ -21,37 +24,29 @@ import java.util.Optional;
 public class InflationCalculationService {
 
     private final InflationDataRepository inflationDataRepository;
-    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    // Kümülatif endeks tablosu; enflasyon verisi kaydedildiğinde reloadIndex ile yenisiyle değiştirilir
+    private volatile InflationIndex index;
+    private final AtomicLong indexVersion = new AtomicLong();
 
     // Belirli bir aya ait aylık enflasyon oranını (ondalık formda) döndürür.
-    // Eğer o aya ait veri yoksa, o tarihten önceki veya o tarihe eşit en son mevcut veriyi bulmaya çalışır.
+    // Eğer o aya ait veri yoksa, o tarihten önceki veya o tarihe eşit en son mevcut veri kullanılır.
     // Hiç veri bulunamazsa, 0 (sıfır) oran döndürülür, yani enflasyon etkisi olmadığı varsayılır.
     public BigDecimal getMonthlyInflationRate(LocalDate date) {
-        LocalDate lastDayOfMonth = date.withDayOfMonth(date.lengthOfMonth());
-
-        Optional<InflationData> inflationDataOptional = inflationDataRepository.findByDate(lastDayOfMonth);
+        return getIndex().rateFor(YearMonth.from(date));
+    }
 
-        if (inflationDataOptional.isPresent()) {
-            BigDecimal rate = inflationDataOptional.get().getValue();
-            BigDecimal decimalRate = rate.divide(HUNDRED, 10, RoundingMode.HALF_UP);
-            log.info("Aylık enflasyon oranı bulundu: {} -> {}% (ondalık: {})", lastDayOfMonth, rate, decimalRate);
-            return decimalRate;
-        } else {
-            log.warn("Aylık enflasyon oranı tam olarak {} için bulunamadı. Önceki en son mevcut tarih aranıyor...", lastDayOfMonth);
-            Optional<InflationData> latestBeforeOrEqualToOptional = inflationDataRepository.findTopByDateLessThanEqualOrderByDateDesc(lastDayOfMonth);
+    public InflationIndex getIndex() {
+        InflationIndex current = index;
+        return current != null ? current : reloadIndex();
+    }
 
-            if (latestBeforeOrEqualToOptional.isPresent()) {
-                InflationData latestData = latestBeforeOrEqualToOptional.get();
-                BigDecimal rate = latestData.getValue();
-                BigDecimal decimalRate = rate.divide(HUNDRED, 10, RoundingMode.HALF_UP);
-                log.info("Aylık enflasyon oranı {} için bulunamadığından, en yakın önceki tarih {} kullanıldı. Oran: {}% (ondalık: {})",
-                        lastDayOfMonth, latestData.getDate(), rate, decimalRate);
-                return decimalRate;
-            } else {
-                log.warn("Enflasyon oranı bulunamadı: {} için hiçbir geçmiş veya eşleşen kayıt yok. Oran 0 kabul ediliyor.", lastDayOfMonth);
-                return BigDecimal.ZERO;
-            }
-        }
+    // Tüm enflasyon verisini okuyup yeni bir endeks tablosu oluşturur (veri kaydedildikten sonra çağrılır)
+    public synchronized InflationIndex reloadIndex() {
+        InflationIndex reloaded = InflationIndex.build(inflationDataRepository.findAll(), indexVersion.incrementAndGet());
+        index = reloaded;
+        log.info("Enflasyon endeks tablosu yüklendi. Versiyon: {}", reloaded.getVersion());
+        return reloaded;
     }
 
     // Veritabanındaki en son (en güncel tarihli) enflasyon verisinin tarihini döndürür.
@@ -61,41 +56,42 @@ public class InflationCalculationService {
     }
 
     // Nominal bir tutarı, işlem tarihinden hedef tarihe kadar aylık enflasyon oranlarına göre düzeltir.
+    // Çarpan, bellekteki kümülatif endeks tablosundan iki okuma ve bir bölme ile bulunur (veritabanı sorgusu yapılmaz).
     public BigDecimal calculateRealValue(BigDecimal nominalAmount, LocalDate transactionDate, LocalDate targetDate) {
-        log.info("calculateRealValue çağrıldı. Nominal: {}, İşlem Tarihi: {}, Hedef Tarih: {}", nominalAmount, transactionDate, targetDate);
-
         // Eğer işlem ve hedef tarihler aynı aydaysa, düzeltme yapma
         if (transactionDate.getYear() == targetDate.getYear() && transactionDate.getMonth() == targetDate.getMonth()) {
-            log.info("İşlem tarihi ve hedef tarih aynı ayda olduğundan reel düzeltme yapılmadı. Nominal: {}, Tarihler: {} -> {}", nominalAmount, transactionDate, targetDate);
             return nominalAmount;
         }
 
-        BigDecimal cumulativeFactor = BigDecimal.ONE;
-        LocalDate startMonth = transactionDate.withDayOfMonth(1);
-        LocalDate endMonth = targetDate.withDayOfMonth(1);
+        BigDecimal cumulativeFactor = getIndex().factor(YearMonth.from(transactionDate), YearMonth.from(targetDate));
+        BigDecimal realValue = nominalAmount.multiply(cumulativeFactor).setScale(2, RoundingMode.HALF_UP);
+        log.debug("Reel hesaplama. Nominal: {}, {} -> {}, Çarpan: {}, Reel: {}", nominalAmount, transactionDate, targetDate, cumulativeFactor, realValue);
+        return realValue;
+    }
 
-        if (startMonth.isBefore(endMonth)) { // İleriye doğru düzeltme (Enflasyon)
-            // Düzeltme: İşlem ayının enflasyonunu da dahil etmek için başlangıcı değiştir.
-            LocalDate currentMonthIterator = startMonth; // **DEĞİŞİKLİK BURADA**
-            while (!currentMonthIterator.isAfter(endMonth)) { // Hedef ay dahil
-                BigDecimal monthlyRate = getMonthlyInflationRate(currentMonthIterator);
-                cumulativeFactor = cumulativeFactor.multiply(BigDecimal.ONE.add(monthlyRate));
-                log.info("Ay (İleri): {}, Oran: {} (Decimal), Kümülatif Çarpan: {}", currentMonthIterator.getMonth(), monthlyRate, cumulativeFactor);
-                currentMonthIterator = currentMonthIterator.plusMonths(1);
-            }
-        } else { // Geriye doğru düzeltme (Deflasyon veya farklı birim değerine getirme)
-            // Düzeltme: Hedef ayının enflasyonunu da dahil etmek için başlangıcı değiştir.
-            LocalDate currentMonthIterator = endMonth; // **DEĞİŞİKLİK BURADA**
-            while (!currentMonthIterator.isAfter(startMonth)) { // İşlem ayı dahil
-                BigDecimal monthlyRate = getMonthlyInflationRate(currentMonthIterator);
-                BigDecimal inverseFactor = BigDecimal.ONE.divide(BigDecimal.ONE.add(monthlyRate), 10, RoundingMode.HALF_UP);
-                cumulativeFactor = cumulativeFactor.multiply(inverseFactor);
-                log.info("Ay (Geri): {}, Oran: {} (Decimal), Ters Çarpan: {}, Kümülatif Çarpan: {}", currentMonthIterator.getMonth(), monthlyRate, inverseFactor, cumulativeFactor);
-                currentMonthIterator = currentMonthIterator.plusMonths(1);
-            }
+    /**
+     * Toplu reel değer dönüşümü: amounts[i] tutarı dates[i] tarihinden targetDate'e düzeltilir.
+     * Girdiler kaynak aya göre gruplanır ve her ay için çarpan tek kez hesaplanır; her eleman için sonuç
+     * calculateRealValue ile birebir aynıdır. Sonuç listesi girdi sırasını korur.
+     */
+    public List<BigDecimal> calculateRealValues(List<BigDecimal> amounts, List<LocalDate> dates, LocalDate targetDate) {
+        if (amounts.size() != dates.size()) {
+            throw new IllegalArgumentException("Tutar ve tarih listelerinin boyutları farklı: " + amounts.size() + " / " + dates.size());
         }
+        InflationIndex currentIndex = getIndex();
+        YearMonth targetMonth = YearMonth.from(targetDate);
+        Map<YearMonth, BigDecimal> factorsByMonth = new HashMap<>();
 
-        log.info("Reel hesaplama tamamlandı. Nominal: {}, Kümülatif Çarpan: {}, Reel: {}", nominalAmount, cumulativeFactor, nominalAmount.multiply(cumulativeFactor).setScale(2, RoundingMode.HALF_UP));
-        return nominalAmount.multiply(cumulativeFactor).setScale(2, RoundingMode.HALF_UP);
+        List<BigDecimal> realValues = new ArrayList<>(amounts.size());
+        for (int i = 0; i < amounts.size(); i++) {
+            YearMonth sourceMonth = YearMonth.from(dates.get(i));
+            if (sourceMonth.equals(targetMonth)) {
+                realValues.add(amounts.get(i)); // Aynı ayda düzeltme yapılmaz
+                continue;
+            }
+            BigDecimal factor = factorsByMonth.computeIfAbsent(sourceMonth, month -> currentIndex.factor(month, targetMonth));
+            realValues.add(amounts.get(i).multiply(factor).setScale(2, RoundingMode.HALF_UP));
+        }
+        return realValues;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,139 @@
+package com.fidanlik.fidanysserver.common.inflation;
+
+import com.fidanlik.fidanysserver.inflation.model.InflationData;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Aylık enflasyon oranlarından üretilen, değişmez (immutable) kümülatif endeks tablosu.
+ * forwardPrefix[k] = (1 + r0) * ... * (1 + rk), inversePrefix[k] = 1/(1 + r0) * ... * 1/(1 + rk).
+ * İki ay arasındaki düzeltme çarpanı iki dizi okuması ve bir bölme ile bulunur.
+ * Ay oranı, InflationCalculationService'in önceki davranışıyla aynı şekilde belirlenir: o ayın son gününe eşit veya
+ * daha önceki en son kayıt; hiç kayıt yoksa 0. Tablonun son ayından sonraki aylar son oranı kullanmaya devam eder.
+ */
+public final class InflationIndex {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final MathContext PRECISION = MathContext.DECIMAL128;
+
+    private final long version;
+    private final YearMonth firstMonth; // Boş tabloda null
+    private final BigDecimal[] rates;
+    private final BigDecimal[] forwardPrefix;
+    private final BigDecimal[] inversePrefix;
+
+    private InflationIndex(long version, YearMonth firstMonth, BigDecimal[] rates) {
+        this.version = version;
+        this.firstMonth = firstMonth;
+        this.rates = rates;
+        this.forwardPrefix = new BigDecimal[rates.length];
+        this.inversePrefix = new BigDecimal[rates.length];
+
+        BigDecimal forward = BigDecimal.ONE;
+        BigDecimal inverse = BigDecimal.ONE;
+        for (int i = 0; i < rates.length; i++) {
+            forward = forward.multiply(BigDecimal.ONE.add(rates[i]), PRECISION);
+            inverse = inverse.multiply(inverseFactor(rates[i]), PRECISION);
+            forwardPrefix[i] = forward;
+            inversePrefix[i] = inverse;
+        }
+    }
+
+    public static InflationIndex build(List<InflationData> data, long version) {
+        List<InflationData> sorted = data.stream()
+                .filter(item -> item.getDate() != null && item.getValue() != null)
+                .sorted(Comparator.comparing(InflationData::getDate))
+                .toList();
+        if (sorted.isEmpty()) {
+            return new InflationIndex(version, null, new BigDecimal[0]);
+        }
+
+        YearMonth first = YearMonth.from(sorted.get(0).getDate());
+        YearMonth last = YearMonth.from(sorted.get(sorted.size() - 1).getDate());
+        BigDecimal[] rates = new BigDecimal[(int) ChronoUnit.MONTHS.between(first, last) + 1];
+
+        // Aynı aya ait birden fazla kayıt varsa tarihi en geç olan geçerlidir (sıralı olduğu için sonuncusu)
+        for (InflationData item : sorted) {
+            rates[(int) ChronoUnit.MONTHS.between(first, YearMonth.from(item.getDate()))] =
+                    item.getValue().divide(HUNDRED, 10, RoundingMode.HALF_UP);
+        }
+        // Kaydı olmayan aylar bir önceki ayın oranını kullanır
+        for (int i = 1; i < rates.length; i++) {
+            if (rates[i] == null) {
+                rates[i] = rates[i - 1];
+            }
+        }
+        return new InflationIndex(version, first, rates);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Ayın oranı (ondalık form)
+    public BigDecimal rateFor(YearMonth month) {
+        int index = indexOf(month);
+        if (index < 0) {
+            return BigDecimal.ZERO;
+        }
+        return rates[Math.min(index, rates.length - 1)];
+    }
+
+    /**
+     * fromMonth'taki bir tutarı toMonth'a taşıyan çarpan.
+     * İleri yönde iki ay dahil (1 + r) çarpımı, geri yönde iki ay dahil 1/(1 + r) çarpımıdır; aynı ayda 1'dir.
+     */
+    public BigDecimal factor(YearMonth fromMonth, YearMonth toMonth) {
+        int from = indexOf(fromMonth);
+        int to = indexOf(toMonth);
+        if (from == to) {
+            return BigDecimal.ONE;
+        }
+        if (from < to) {
+            return forward(to).divide(forward(from - 1), PRECISION);
+        }
+        return inverse(from).divide(inverse(to - 1), PRECISION);
+    }
+
+    private int indexOf(YearMonth month) {
+        if (firstMonth == null) {
+            return -1;
+        }
+        long index = ChronoUnit.MONTHS.between(firstMonth, month);
+        // Tablonun öncesindeki aylar için oran 0'dır; hepsi aynı (boş) önek ile temsil edilir
+        return (int) Math.max(-1, Math.min(index, Integer.MAX_VALUE));
+    }
+
+    private BigDecimal forward(int index) {
+        if (index < 0) {
+            return BigDecimal.ONE;
+        }
+        int last = rates.length - 1;
+        if (index <= last) {
+            return forwardPrefix[index];
+        }
+        return forwardPrefix[last].multiply(BigDecimal.ONE.add(rates[last]).pow(index - last, PRECISION), PRECISION);
+    }
+
+    private BigDecimal inverse(int index) {
+        if (index < 0) {
+            return BigDecimal.ONE;
+        }
+        int last = rates.length - 1;
+        if (index <= last) {
+            return inversePrefix[index];
+        }
+        return inversePrefix[last].multiply(inverseFactor(rates[last]).pow(index - last, PRECISION), PRECISION);
+    }
+
+    // Geri yönde her ayın ters çarpanı, önceki hesaplamayla aynı şekilde 10 basamağa yuvarlanır
+    private static BigDecimal inverseFactor(BigDecimal rate) {
+        return BigDecimal.ONE.divide(BigDecimal.ONE.add(rate), 10, RoundingMode.HALF_UP);
+    }
+}
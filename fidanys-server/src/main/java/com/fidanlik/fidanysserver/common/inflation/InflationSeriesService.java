@@ -0,0 +1,64 @@
+package com.fidanlik.fidanysserver.common.inflation;
+
+import com.fidanlik.fidanysserver.inflation.model.InflationData;
+import com.fidanlik.fidanysserver.inflation.repository.InflationDataRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Range;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aylık enflasyon serisinin tarih aralığına göre paylaşılan önbelleği.
+ * Aralık, tarih indeksli bir repository sorgusuyla okunur; aynı aralığı isteyen raporlar (ör. farklı üretim
+ * partileri için maliyet analizi ekranları) sonucu yeniden kullanır. Enflasyon endeksi yeniden yüklendiğinde
+ * (yeni veri kaydedildiğinde) versiyon değiştiği için önbellek temizlenir.
+ */
+@Service
+@RequiredArgsConstructor
+public class InflationSeriesService {
+
+    private static final int MAX_CACHED_RANGES = 64;
+
+    private final InflationDataRepository inflationDataRepository;
+    private final InflationCalculationService inflationCalculationService;
+
+    private final Map<RangeKey, List<InflationData>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<RangeKey, List<InflationData>> eldest) {
+            return size() > MAX_CACHED_RANGES;
+        }
+    };
+    private long cachedVersion = -1;
+
+    // [fromMonth, toMonth] aralığındaki aylık veriler (her iki ay dahil), tarihe göre artan sırada
+    public List<InflationData> getSeries(YearMonth fromMonth, YearMonth toMonth) {
+        long version = inflationCalculationService.getIndex().getVersion();
+        RangeKey key = new RangeKey(fromMonth, toMonth);
+        synchronized (cache) {
+            if (version != cachedVersion) {
+                cache.clear();
+                cachedVersion = version;
+            }
+            List<InflationData> cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        List<InflationData> series = List.copyOf(inflationDataRepository.findAllByDateBetweenOrderByDateAsc(
+                Range.closed(fromMonth.atDay(1), toMonth.atDay(1))));
+        synchronized (cache) {
+            if (version == cachedVersion) {
+                cache.put(key, series);
+            }
+        }
+        return series;
+    }
+
+    private record RangeKey(YearMonth fromMonth, YearMonth toMonth) {
+    }
+}
@@ -1,15 +1,19 @@
 package com.fidanlik.fidanysserver.dashboard.controller;
 
+import com.fidanlik.fidanysserver.dashboard.dto.DashboardCacheStatsDTO;
 import com.fidanlik.fidanysserver.dashboard.dto.DashboardSummaryDTO;
 import com.fidanlik.fidanysserver.dashboard.service.DashboardService;
+import com.fidanlik.fidanysserver.dashboard.service.DashboardStreamService;
 import com.fidanlik.fidanysserver.user.model.User;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/v1/dashboard")
@@ -17,6 +21,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final DashboardStreamService dashboardStreamService;
 
     /**
      * Giriş yapmış kullanıcının rolüne göre özet dashboard verilerini getirir.
@@ -31,4 +36,28 @@ public class DashboardController {
         DashboardSummaryDTO summary = dashboardService.getDashboardSummaryForUser(currentUser);
         return ResponseEntity.ok(summary);
     }
-}
\ No newline at end of file
+
+    /**
+     * Dashboard için canlı güncelleme akışı (Server-Sent Events).
+     * Sipariş, stok ve mal kabul işlemlerinden sonra yalnızca değişen özet alanları "summary-delta" olayıyla gönderilir;
+     * bağlantıyı açık tutmak için periyodik heartbeat yollanır. Tenant başına açık bağlantı sayısı sınırlıdır.
+     * @param currentUser Giriş yapmış kullanıcı.
+     * @return Olay akışı.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public SseEmitter streamDashboard(@AuthenticationPrincipal User currentUser) {
+        return dashboardStreamService.subscribe(currentUser);
+    }
+
+    /**
+     * Dashboard özet önbelleğinin isabet/ıska ve çıkarma istatistiklerini getirir.
+     * Sadece ADMIN yetkisine sahip kullanıcılar erişebilir.
+     * @return Önbellek istatistikleri.
+     */
+    @GetMapping("/cache-stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<DashboardCacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(dashboardService.getCacheStats());
+    }
+}
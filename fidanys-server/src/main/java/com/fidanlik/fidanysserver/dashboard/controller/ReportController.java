@@ -2,6 +2,7 @@ package com.fidanlik.fidanysserver.dashboard.controller;
 
 import com.fidanlik.fidanysserver.dashboard.dto.CostAnalysisReportDTO;
 import com.fidanlik.fidanysserver.dashboard.dto.InflationOverviewDTO;
+import com.fidanlik.fidanysserver.dashboard.dto.InflationTrendDTO;
 import com.fidanlik.fidanysserver.dashboard.service.ReportService;
 import com.fidanlik.fidanysserver.user.model.User;
 import lombok.RequiredArgsConstructor;
@@ -16,6 +17,8 @@ import org.springframework.web.bind.annotation.RestController;
 import com.fidanlik.fidanysserver.dashboard.dto.PricePerformanceReportDTO;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -45,6 +48,29 @@ public class ReportController {
         return ResponseEntity.ok(reportData);
     }
 
+    /**
+     * Piyasa enflasyonu ve üretim partisi maliyet serilerini tek çağrıda, seçilen baz aya göre endekslenmiş olarak getirir.
+     * @param startDate Başlangıç tarihi.
+     * @param endDate Bitiş tarihi.
+     * @param baseMonth Endeksin 100 kabul edileceği ay (ör. 2024-01); verilmezse her seri kendi ilk ayını baz alır.
+     * @param includeMarket Piyasa enflasyon serisi dahil edilsin mi.
+     * @param productionBatchIds Maliyet serisi istenen üretim partileri; verilmezse tüm giderlerden genel seri döner.
+     * @param currentUser Giriş yapmış kullanıcı.
+     * @return Endeks serileri.
+     */
+    @GetMapping("/inflation-trend")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_ACCOUNTANT')")
+    public ResponseEntity<InflationTrendDTO> getInflationTrend(
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "baseMonth", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth baseMonth,
+            @RequestParam(value = "includeMarket", defaultValue = "true") boolean includeMarket,
+            @RequestParam(value = "productionBatchIds", required = false) List<String> productionBatchIds,
+            @AuthenticationPrincipal User currentUser) {
+
+        return ResponseEntity.ok(reportService.getInflationTrend(startDate, endDate, baseMonth, includeMarket, productionBatchIds, currentUser.getTenantId()));
+    }
+
     @GetMapping("/price-performance")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_ACCOUNTANT')")
     public ResponseEntity<PricePerformanceReportDTO> getPricePerformanceReport(
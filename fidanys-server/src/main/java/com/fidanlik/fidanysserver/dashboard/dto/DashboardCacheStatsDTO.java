@@ -0,0 +1,17 @@
+package com.fidanlik.fidanysserver.dashboard.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class DashboardCacheStatsDTO {
+    private int size;
+    private int maxEntries;
+    private long ttlSeconds;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long evictions; // Boyut sınırı veya süre dolumu nedeniyle çıkarılanlar
+    private long invalidations; // Yazma olaylarıyla geçersiz kılınanlar
+}
@@ -31,6 +31,12 @@ public class DashboardSummaryDTO {
     private Long ordersToShipToday;
     private Long recentGoodsReceiptsCount;
     private List<StockByWarehouseDTO> stockDistribution;
+    private List<StockByPlantTypeDTO> stockByPlantType;
+
+    // --- Kısmi Sonuç İşaretleri ---
+    // Süre sınırını aşan bölümler: son bilinen değerle dolduruldu (stale) veya boş bırakıldı (missing)
+    private List<String> staleSections;
+    private List<String> missingSections;
 
     // --- Diğer DTO'lar (Bu dosyanın içinde alt sınıf olarak tanımlayabiliriz) ---
 
@@ -55,4 +61,11 @@ public class DashboardSummaryDTO {
         private String warehouseName;
         private int plantCount;
     }
-}
\ No newline at end of file
+
+    @Data
+    @Builder
+    public static class StockByPlantTypeDTO {
+        private String plantTypeName;
+        private int plantCount;
+    }
+}
@@ -0,0 +1,24 @@
+package com.fidanlik.fidanysserver.dashboard.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.YearMonth;
+import java.util.List;
+
+// Birden fazla endeks serisini (piyasa enflasyonu ve üretim partisi bazında maliyet) tek yanıtta taşır.
+// Tüm seriler aynı baz aya göre 100'e endekslenir.
+@Data
+@Builder
+public class InflationTrendDTO {
+
+    private YearMonth baseMonth;
+    private List<SeriesDTO> series;
+
+    @Data
+    @Builder
+    public static class SeriesDTO {
+        private String key;   // "market", "general" veya üretim partisi ID'si
+        private List<CostAnalysisReportDTO.DataPointDTO> points;
+    }
+}
@@ -0,0 +1,34 @@
+package com.fidanlik.fidanysserver.dashboard.service;
+
+import com.fidanlik.fidanysserver.common.event.DomainEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Yazma olaylarını dinler ve yalnızca o veriyi gösteren rollerin dashboard özetlerini geçersiz kılar.
+@Component
+@RequiredArgsConstructor
+public class DashboardCacheInvalidator {
+
+    private final DashboardSummaryCache dashboardSummaryCache;
+
+    // Olay türü -> o veriyi özetinde gösteren roller (DashboardService'teki rol bazlı özetlere göre)
+    private static final Map<DomainEvent.Type, List<String>> AFFECTED_ROLES = new EnumMap<>(Map.of(
+            DomainEvent.Type.ORDER_CHANGED, List.of("ADMIN", "WAREHOUSE_STAFF"),
+            DomainEvent.Type.STOCK_CHANGED, List.of("ADMIN", "WAREHOUSE_STAFF"),
+            DomainEvent.Type.EXPENSE_CHANGED, List.of("ADMIN", "ACCOUNTANT"),
+            DomainEvent.Type.PAYMENT_CHANGED, List.of("ACCOUNTANT"),
+            DomainEvent.Type.GOODS_RECEIPT_CHANGED, List.of("WAREHOUSE_STAFF", "ACCOUNTANT"),
+            DomainEvent.Type.INVOICE_CHANGED, List.of("ACCOUNTANT")
+    ));
+
+    // İşlem (transaction) içinde yayınlanan olaylar commit sonrasında, işlem dışındakiler hemen işlenir
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDomainEvent(DomainEvent event) {
+        dashboardSummaryCache.invalidate(event.getTenantId(), AFFECTED_ROLES.getOrDefault(event.getType(), List.of()));
+    }
+}
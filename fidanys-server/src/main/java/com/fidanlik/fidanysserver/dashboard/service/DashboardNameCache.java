@@ -0,0 +1,69 @@
+package com.fidanlik.fidanysserver.dashboard.service;
+
+import com.fidanlik.fidanysserver.fidan.repository.PlantTypeRepository;
+import com.fidanlik.fidanysserver.fidan.repository.PlantVarietyRepository;
+import com.fidanlik.fidanysserver.warehouse.repository.WarehouseRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Dashboard aggregation sonuçlarındaki id'leri adlara çevirmek için tenant bazında kısa süreli ad önbelleği.
+// Depo, fidan türü ve çeşit sayısı küçük olduğundan tenant'ın tüm kayıtları tek sorguyla yüklenir.
+@Component
+@RequiredArgsConstructor
+public class DashboardNameCache {
+
+    private final WarehouseRepository warehouseRepository;
+    private final PlantTypeRepository plantTypeRepository;
+    private final PlantVarietyRepository plantVarietyRepository;
+
+    @Value("${dashboard.name-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Map<String, CachedNames> warehouseNames = new ConcurrentHashMap<>();
+    private final Map<String, CachedNames> plantTypeNames = new ConcurrentHashMap<>();
+    private final Map<String, CachedNames> plantVarietyNames = new ConcurrentHashMap<>();
+
+    // Depo id -> ad (depolar ada göre değil, veritabanı sırasıyla döner)
+    public Map<String, String> getWarehouseNames(String tenantId) {
+        return get(warehouseNames, tenantId, () -> {
+            Map<String, String> names = new LinkedHashMap<>();
+            warehouseRepository.findAllByTenantId(tenantId).forEach(warehouse -> names.put(warehouse.getId(), warehouse.getName()));
+            return names;
+        });
+    }
+
+    public Map<String, String> getPlantTypeNames(String tenantId) {
+        return get(plantTypeNames, tenantId, () -> {
+            Map<String, String> names = new LinkedHashMap<>();
+            plantTypeRepository.findAllByTenantId(tenantId).forEach(plantType -> names.put(plantType.getId(), plantType.getName()));
+            return names;
+        });
+    }
+
+    public Map<String, String> getPlantVarietyNames(String tenantId) {
+        return get(plantVarietyNames, tenantId, () -> {
+            Map<String, String> names = new LinkedHashMap<>();
+            plantVarietyRepository.findAllByTenantId(tenantId).forEach(variety -> names.put(variety.getId(), variety.getName()));
+            return names;
+        });
+    }
+
+    private Map<String, String> get(Map<String, CachedNames> cache, String tenantId, Supplier<Map<String, String>> loader) {
+        CachedNames cached = cache.get(tenantId);
+        if (cached == null || System.currentTimeMillis() > cached.expiresAt()) {
+            cached = new CachedNames(Collections.unmodifiableMap(loader.get()), System.currentTimeMillis() + ttlSeconds * 1000);
+            cache.put(tenantId, cached);
+        }
+        return cached.names();
+    }
+
+    private record CachedNames(Map<String, String> names, long expiresAt) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.fidanlik.fidanysserver.dashboard.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Bir dashboard özetinin birbirinden bağımsız alt sorgularını (bölümlerini) dashboardExecutor üzerinde
+ * eşzamanlı çalıştırır. Her bölümün kendi süre sınırı vardır; süresi dolan veya hata veren bölüm için
+ * son başarılı değer "stale" olarak döner, hiç değer yoksa bölüm "missing" olarak işaretlenir.
+ */
+@Component
+@Slf4j
+public class DashboardSectionLoader {
+
+    private final ExecutorService executor;
+
+    @Value("${dashboard.section-timeout-ms:1500}")
+    private long sectionTimeoutMs;
+
+    // tenantId:bölüm -> son başarılı değer (bölüm adları tüm roller arasında benzersiz olmalıdır)
+    private final Map<String, Object> lastKnownValues = new ConcurrentHashMap<>();
+
+    public DashboardSectionLoader(@Qualifier("dashboardExecutor") ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public Batch newBatch(String tenantId) {
+        return new Batch(tenantId);
+    }
+
+    public class Batch {
+        private final String tenantId;
+        private final List<String> staleSections = new ArrayList<>();
+        private final List<String> missingSections = new ArrayList<>();
+
+        private Batch(String tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        // Bölümü hemen başlatır; sonuç get ile, bölümün kendi süre sınırı içinde beklenir
+        public <T> Section<T> submit(String name, Supplier<T> query) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+            return new Section<>(name, executor.submit(query::get), deadline);
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T get(Section<T> section) {
+            String key = tenantId + ":" + section.name;
+            try {
+                T value = section.future.get(Math.max(0, section.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (value != null) {
+                    lastKnownValues.put(key, value);
+                }
+                return value;
+            } catch (TimeoutException e) {
+                section.future.cancel(true);
+                log.warn("Dashboard bölümü süre sınırını aştı. Tenant: {}, Bölüm: {}", tenantId, section.name);
+            } catch (ExecutionException e) {
+                log.error("Dashboard bölümü hesaplanamadı. Tenant: {}, Bölüm: {}", tenantId, section.name, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            Object lastKnown = lastKnownValues.get(key);
+            if (lastKnown != null) {
+                staleSections.add(section.name);
+                return (T) lastKnown;
+            }
+            missingSections.add(section.name);
+            return null;
+        }
+
+        // Boş listeler JSON'a eklenmesin diye null döner
+        public List<String> getStaleSections() {
+            return staleSections.isEmpty() ? null : staleSections;
+        }
+
+        public List<String> getMissingSections() {
+            return missingSections.isEmpty() ? null : missingSections;
+        }
+    }
+
+    public static class Section<T> {
+        private final String name;
+        private final Future<T> future;
+        private final long deadline;
+
+        private Section(String name, Future<T> future, long deadline) {
+            this.name = name;
+            this.future = future;
+            this.deadline = deadline;
+        }
+    }
+}
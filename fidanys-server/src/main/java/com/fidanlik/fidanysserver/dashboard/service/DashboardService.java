@@ -1,33 +1,38 @@
 package com.fidanlik.fidanysserver.dashboard.service;
 
+import com.fidanlik.fidanysserver.common.event.DomainEvent;
+import com.fidanlik.fidanysserver.dashboard.dto.DashboardCacheStatsDTO;
 import com.fidanlik.fidanysserver.dashboard.dto.DashboardSummaryDTO;
 import com.fidanlik.fidanysserver.user.model.User;
 import com.fidanlik.fidanysserver.role.model.Role;
 import com.fidanlik.fidanysserver.order.model.Order;
+import com.fidanlik.fidanysserver.fidan.model.Plant;
 import com.fidanlik.fidanysserver.stock.model.Stock;
-import com.fidanlik.fidanysserver.warehouse.model.Warehouse;
 import com.fidanlik.fidanysserver.expense.model.Expense;
-import com.fidanlik.fidanysserver.fidan.model.Plant;
-import com.fidanlik.fidanysserver.fidan.repository.PlantRepository;
 import com.fidanlik.fidanysserver.invoicing.model.Invoice; // Gerekli import
-import com.fidanlik.fidanysserver.payment.model.Payment; // Gerekli import
-import com.fidanlik.fidanysserver.accounting.model.Transaction; // Gerekli import
+import com.fidanlik.fidanysserver.accounting.service.AccountBalanceService;
 
 
 import com.fidanlik.fidanysserver.order.repository.OrderRepository;
-import com.fidanlik.fidanysserver.expense.repository.ExpenseRepository;
-import com.fidanlik.fidanysserver.stock.repository.StockRepository;
 import com.fidanlik.fidanysserver.invoicing.repository.InvoiceRepository;
-import com.fidanlik.fidanysserver.payment.repository.PaymentRepository;
 import com.fidanlik.fidanysserver.expense.repository.ExpenseCategoryRepository;
-import com.fidanlik.fidanysserver.warehouse.repository.WarehouseRepository;
 import com.fidanlik.fidanysserver.goodsreceipt.repository.GoodsReceiptRepository;
-import com.fidanlik.fidanysserver.supplier.repository.SupplierRepository; // Gerekli import
-import com.fidanlik.fidanysserver.accounting.repository.TransactionRepository; // Gerekli import
+import com.fidanlik.fidanysserver.stock.service.StockThresholdService;
+import com.fidanlik.fidanysserver.stock.service.StockValuationService;
+import com.fidanlik.fidanysserver.rollup.model.DailyRollup;
+import com.fidanlik.fidanysserver.rollup.service.DailyRollupService;
 
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -35,221 +40,379 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter; // Gerekli import
-import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.limit;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.unwind;
+
 @Service
 @RequiredArgsConstructor
 public class DashboardService {
 
     private final MongoTemplate mongoTemplate;
     private final OrderRepository orderRepository;
-    private final ExpenseRepository expenseRepository;
-    private final StockRepository stockRepository;
     private final InvoiceRepository invoiceRepository;
-    private final PaymentRepository paymentRepository;
     private final ExpenseCategoryRepository expenseCategoryRepository;
-    private final WarehouseRepository warehouseRepository;
     private final GoodsReceiptRepository goodsReceiptRepository;
-    private final PlantRepository plantRepository;
-    private final SupplierRepository supplierRepository; // Yeni enjeksiyon
-    private final TransactionRepository transactionRepository; // Yeni enjeksiyon
+    private final StockValuationService stockValuationService;
+    private final StockThresholdService stockThresholdService;
+    private final DashboardSummaryCache dashboardSummaryCache;
+    private final DashboardSectionLoader dashboardSectionLoader;
+    private final DailyRollupService dailyRollupService;
+    private final DashboardNameCache dashboardNameCache;
+    private final AccountBalanceService accountBalanceService;
+
+    // Gider dağılımı için zaman penceresi (gün). 0: tüm zamanlar.
+    @Value("${dashboard.expense-distribution.window-days:0}")
+    private int expenseDistributionWindowDays;
+
+    private static final List<Order.OrderStatus> SOLD_STATUSES = List.of(Order.OrderStatus.SHIPPED, Order.OrderStatus.DELIVERED);
 
 
     public DashboardSummaryDTO getDashboardSummaryForUser(User currentUser) {
         // ... (Bu metodun içeriği aynı kalacak)
-        String roleName = currentUser.getRoles().stream()
+        String roleName = resolveRoleName(currentUser);
+
+        String tenantId = currentUser.getTenantId();
+        switch (roleName) {
+            case "ADMIN":
+                return dashboardSummaryCache.getOrCompute(tenantId, roleName, () -> getAdminSummary(tenantId));
+            case "ACCOUNTANT":
+                return dashboardSummaryCache.getOrCompute(tenantId, roleName, () -> getAccountantSummary(tenantId));
+            case "WAREHOUSE_STAFF":
+                return dashboardSummaryCache.getOrCompute(tenantId, roleName, () -> getWarehouseSummary(tenantId));
+            default:
+                return DashboardSummaryDTO.builder().build();
+        }
+    }
+
+    // Dashboard içeriğini belirleyen rol: kullanıcının alfabetik olarak ilk rolü
+    static String resolveRoleName(User user) {
+        return user.getRoles().stream()
                 .map(Role::getName)
                 .sorted()
                 .findFirst()
                 .orElse("DEFAULT");
+    }
 
+    /**
+     * Canlı akış (SSE) için, bir yazma olayından etkilenen özet alanlarının güncel değerlerini hesaplar.
+     * Yalnızca değişen alanlar dolu olan kısmi bir özet döner; rol bu olaydan etkilenmiyorsa null döner.
+     */
+    public DashboardSummaryDTO getSummaryDelta(String tenantId, String roleName, DomainEvent.Type type) {
         switch (roleName) {
             case "ADMIN":
-                return getAdminSummary(currentUser.getTenantId());
-            case "ACCOUNTANT":
-                return getAccountantSummary(currentUser.getTenantId());
+                if (type == DomainEvent.Type.ORDER_CHANGED) {
+                    return DashboardSummaryDTO.builder()
+                            .pendingOrdersCount(orderRepository.countByTenantIdAndStatus(tenantId, Order.OrderStatus.PREPARING))
+                            .build();
+                }
+                if (type == DomainEvent.Type.STOCK_CHANGED) {
+                    return DashboardSummaryDTO.builder()
+                            .totalStockValue(stockValuationService.getTotalStockValue(tenantId))
+                            .build();
+                }
+                return null;
             case "WAREHOUSE_STAFF":
-                return getWarehouseSummary(currentUser.getTenantId());
+                if (type == DomainEvent.Type.ORDER_CHANGED) {
+                    return DashboardSummaryDTO.builder()
+                            .ordersToShipToday(orderRepository.countByTenantIdAndStatusAndExpectedDeliveryDate(
+                                    tenantId, Order.OrderStatus.PREPARING, LocalDate.now()))
+                            .build();
+                }
+                if (type == DomainEvent.Type.STOCK_CHANGED) {
+                    return DashboardSummaryDTO.builder()
+                            .criticalStockCount(stockThresholdService.getCriticalStockCount(tenantId))
+                            .build();
+                }
+                if (type == DomainEvent.Type.GOODS_RECEIPT_CHANGED) {
+                    return DashboardSummaryDTO.builder()
+                            .recentGoodsReceiptsCount(goodsReceiptRepository.countByTenantIdAndReceiptDateAfter(
+                                    tenantId, LocalDateTime.now().minusHours(24)))
+                            .build();
+                }
+                return null;
             default:
-                return DashboardSummaryDTO.builder().build();
+                return null;
         }
     }
 
+    public DashboardCacheStatsDTO getCacheStats() {
+        return dashboardSummaryCache.getStats();
+    }
+
+    // Bölümler dashboardExecutor üzerinde eşzamanlı çalışır; yanıt süresi en yavaş bölüm kadardır
     private DashboardSummaryDTO getAdminSummary(String tenantId) {
-        // ... (Bu metodun içeriği aynı kalacak)
-        LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        BigDecimal revenueLast30Days = orderRepository.findByTenantIdAndStatusInAndOrderDateAfter(
-                        tenantId,
-                        Arrays.asList(Order.OrderStatus.SHIPPED, Order.OrderStatus.DELIVERED),
-                        thirtyDaysAgo
-                ).stream()
-                .map(Order::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        LocalDate startOfMonth = YearMonth.now().atDay(1);
-        BigDecimal expensesThisMonth = expenseRepository.findByTenantIdAndExpenseDateAfter(tenantId, startOfMonth)
-                .stream()
-                .map(Expense::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        long pendingOrdersCount = orderRepository.countByTenantIdAndStatus(tenantId, Order.OrderStatus.PREPARING);
-        BigDecimal mockStockValue = new BigDecimal("1240500.00");
-
-        List<DashboardSummaryDTO.DailyCashFlowDTO> monthlySalesTrend = Stream.iterate(YearMonth.now().minusMonths(5), ym -> ym.plusMonths(1))
-                .limit(6)
-                .map(yearMonth -> {
-                    LocalDateTime start = yearMonth.atDay(1).atStartOfDay();
-                    LocalDateTime end = yearMonth.atEndOfMonth().atTime(23, 59, 59);
-                    BigDecimal monthlyRevenue = orderRepository.findByTenantIdAndStatusInAndOrderDateBetween(
-                                    tenantId,
-                                    Arrays.asList(Order.OrderStatus.SHIPPED, Order.OrderStatus.DELIVERED),
-                                    start,
-                                    end
-                            ).stream()
-                            .map(Order::getTotalAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                    return DashboardSummaryDTO.DailyCashFlowDTO.builder()
-                            .date(yearMonth.toString())
-                            .income(monthlyRevenue)
-                            .outcome(BigDecimal.ZERO)
-                            .build();
-                }).collect(Collectors.toList());
-
-        List<DashboardSummaryDTO.TopSellingPlantDTO> topSellingPlants = orderRepository.findByTenantIdAndStatusIn(
-                        tenantId,
-                        Arrays.asList(Order.OrderStatus.SHIPPED, Order.OrderStatus.DELIVERED)
-                ).stream()
-                .flatMap(order -> order.getItems().stream())
-                .collect(Collectors.groupingBy(Order.OrderItem::getPlantId, Collectors.summingInt(Order.OrderItem::getQuantity)))
-                .entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(5)
-                .map(entry ->
-                        plantRepository.findById(entry.getKey())
-                                .map(plant -> DashboardSummaryDTO.TopSellingPlantDTO.builder()
-                                        .plantName(plant.getPlantType().getName() + " - " + plant.getPlantVariety().getName())
-                                        .totalSold(entry.getValue())
-                                        .build())
-                                .orElse(DashboardSummaryDTO.TopSellingPlantDTO.builder()
-                                        .plantName("Fidan Bulunamadı")
-                                        .totalSold(entry.getValue())
-                                        .build())
-                )
-                .collect(Collectors.toList());
+        DashboardSectionLoader.Batch batch = dashboardSectionLoader.newBatch(tenantId);
+
+        // Gelir, gider ve trend ham belgeler yerine günlük toplamlardan (dailyRollups) okunur
+        LocalDate today = LocalDate.now();
+        DashboardSectionLoader.Section<BigDecimal> revenue = batch.submit("totalRevenueLast30Days", () ->
+                dailyRollupService.getTotal(tenantId, DailyRollup.Metric.SALES_REVENUE, today.minusDays(30), today));
+
+        DashboardSectionLoader.Section<BigDecimal> expenses = batch.submit("totalExpensesThisMonth", () ->
+                dailyRollupService.getTotal(tenantId, DailyRollup.Metric.EXPENSES, YearMonth.now().atDay(1), today));
+
+        DashboardSectionLoader.Section<Long> pendingOrders = batch.submit("pendingOrdersCount", () ->
+                orderRepository.countByTenantIdAndStatus(tenantId, Order.OrderStatus.PREPARING));
+        // Stok değeri, her stok hareketiyle güncellenen değerleme defterinden okunur
+        DashboardSectionLoader.Section<BigDecimal> stockValue = batch.submit("totalStockValue", () ->
+                stockValuationService.getTotalStockValue(tenantId));
+        DashboardSectionLoader.Section<List<DashboardSummaryDTO.DailyCashFlowDTO>> salesTrend = batch.submit("monthlySalesTrend", () ->
+                getMonthlySalesTrend(tenantId, 6));
+        DashboardSectionLoader.Section<List<DashboardSummaryDTO.TopSellingPlantDTO>> topSelling = batch.submit("topSellingPlants", () ->
+                getTopSellingPlants(tenantId, 5));
 
         return DashboardSummaryDTO.builder()
-                .totalRevenueLast30Days(revenueLast30Days)
-                .totalExpensesThisMonth(expensesThisMonth)
-                .pendingOrdersCount(pendingOrdersCount)
-                .totalStockValue(mockStockValue)
-                .last7DaysCashFlow(monthlySalesTrend)
-                .topSellingPlants(topSellingPlants)
+                .totalRevenueLast30Days(batch.get(revenue))
+                .totalExpensesThisMonth(batch.get(expenses))
+                .pendingOrdersCount(batch.get(pendingOrders))
+                .totalStockValue(batch.get(stockValue))
+                .last7DaysCashFlow(batch.get(salesTrend))
+                .topSellingPlants(batch.get(topSelling))
+                .staleSections(batch.getStaleSections())
+                .missingSections(batch.getMissingSections())
                 .build();
     }
 
+    // Son N ayın satış geliri: en fazla ~N*31 günlük toplam okunur ve aylara toplanır. Satış olmayan aylar sıfırdır.
+    private List<DashboardSummaryDTO.DailyCashFlowDTO> getMonthlySalesTrend(String tenantId, int months) {
+        YearMonth firstMonth = YearMonth.now().minusMonths(months - 1);
+
+        Map<YearMonth, BigDecimal> revenueByMonth = new HashMap<>();
+        dailyRollupService.getDailyTotals(tenantId, DailyRollup.Metric.SALES_REVENUE, firstMonth.atDay(1), LocalDate.now())
+                .forEach((date, amount) -> revenueByMonth.merge(YearMonth.from(date), amount, BigDecimal::add));
+
+        return Stream.iterate(firstMonth, ym -> ym.plusMonths(1))
+                .limit(months)
+                .map(yearMonth -> DashboardSummaryDTO.DailyCashFlowDTO.builder()
+                        .date(yearMonth.toString())
+                        .income(revenueByMonth.getOrDefault(yearMonth, BigDecimal.ZERO))
+                        .outcome(BigDecimal.ZERO)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * En çok satan fidanlar: $unwind (kalemler) + $group (fidan bazında miktar) + $sort + $limit.
+     * Yalnızca ilk N sonuç uygulamaya gelir; adlar plants koleksiyonundaki tür/çeşit id'lerinden ad önbelleğiyle çözülür.
+     */
+    private List<DashboardSummaryDTO.TopSellingPlantDTO> getTopSellingPlants(String tenantId, int limit) {
+        Aggregation aggregation = newAggregation(
+                match(Criteria.where("tenantId").is(tenantId).and("status").in(SOLD_STATUSES)),
+                unwind("items"),
+                group("items.plantId").sum("items.quantity").as("totalSold"),
+                sort(Sort.Direction.DESC, "totalSold"),
+                limit(limit)
+        );
+        List<Document> results = mongoTemplate.aggregate(aggregation, Order.class, Document.class).getMappedResults();
+
+        // Sadece id alanları okunur; @DBRef alanları yüklenmez
+        Query plantQuery = new Query(Criteria.where("_id").in(results.stream().map(result -> result.get("_id")).toList()));
+        plantQuery.fields().include("plantTypeId", "plantVarietyId");
+        Map<String, Plant> plantsById = new HashMap<>();
+        mongoTemplate.find(plantQuery, Plant.class).forEach(plant -> plantsById.put(plant.getId(), plant));
+        Map<String, String> typeNames = dashboardNameCache.getPlantTypeNames(tenantId);
+        Map<String, String> varietyNames = dashboardNameCache.getPlantVarietyNames(tenantId);
+
+        return results.stream()
+                .map(result -> {
+                    Plant plant = plantsById.get(String.valueOf(result.get("_id")));
+                    String plantName = plant == null
+                            ? "Fidan Bulunamadı"
+                            : typeNames.get(plant.getPlantTypeId()) + " - " + varietyNames.get(plant.getPlantVarietyId());
+                    return DashboardSummaryDTO.TopSellingPlantDTO.builder()
+                            .plantName(plantName)
+                            .totalSold(((Number) result.get("totalSold")).intValue())
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+
+    private BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        if (value instanceof Number number) {
+            return new BigDecimal(number.toString());
+        }
+        return BigDecimal.ZERO;
+    }
+
     // --- GERÇEK VERİLERLE DOLDURULMUŞ METOT ---
     private DashboardSummaryDTO getAccountantSummary(String tenantId) {
+        DashboardSectionLoader.Batch batch = dashboardSectionLoader.newBatch(tenantId);
 
         // 1. Vadesi Geçmiş Faturaların Toplam Tutarı
-        LocalDate today = LocalDate.now();
-        BigDecimal overdueTotal = invoiceRepository.findByTenantIdAndStatusNotAndDueDateBefore(
-                        tenantId, Invoice.InvoiceStatus.PAID, today
-                ).stream()
-                .map(Invoice::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // 2. Ödenmemiş Tedarikçi Borçları Toplamı
-        BigDecimal totalSupplierDebt = supplierRepository.findAllByTenantId(tenantId).stream()
-                .map(supplier -> {
-                    List<Transaction> transactions = transactionRepository.findBySupplierIdAndTenantIdOrderByTransactionDateDesc(supplier.getId(), tenantId);
-                    BigDecimal credit = transactions.stream()
-                            .filter(t -> t.getType() == Transaction.TransactionType.CREDIT)
-                            .map(Transaction::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    BigDecimal debit = transactions.stream()
-                            .filter(t -> t.getType() == Transaction.TransactionType.DEBIT)
-                            .map(Transaction::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    return credit.subtract(debit);
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // 3. Giderlerin Kategorilere Göre Dağılımı
-        Map<String, BigDecimal> expenseDist = expenseRepository.findAllByTenantIdOrderByExpenseDateDesc(tenantId).stream()
-                .filter(expense -> expense.getCategoryId() != null)
-                .collect(Collectors.groupingBy(
-                        expense -> expenseCategoryRepository.findById(expense.getCategoryId()).map(c -> c.getName()).orElse("Diğer"),
-                        Collectors.reducing(BigDecimal.ZERO, Expense::getAmount, BigDecimal::add)
-                ));
+        DashboardSectionLoader.Section<BigDecimal> overdue = batch.submit("overdueInvoicesTotal", () ->
+                invoiceRepository.findByTenantIdAndStatusNotAndDueDateBefore(
+                                tenantId, Invoice.InvoiceStatus.PAID, LocalDate.now()
+                        ).stream()
+                        .map(Invoice::getTotalAmount)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add));
+
+        // 2. Ödenmemiş Tedarikçi Borçları Toplamı (tedarikçi bakiyeleri üzerinde tek $group)
+        DashboardSectionLoader.Section<BigDecimal> supplierDebt = batch.submit("unpaidSupplierDebt", () ->
+                accountBalanceService.getTotalSupplierDebt(tenantId));
+
+        // 3. Giderlerin Kategorilere Göre Dağılımı ($group + tek kategori sorgusu)
+        DashboardSectionLoader.Section<Map<String, BigDecimal>> expenseDist = batch.submit("expenseDistribution", () ->
+                getExpenseDistribution(tenantId));
 
         // 4. Son 7 Günün Nakit Akışı (Tahsilat vs. Ödeme)
-        LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
-        Map<LocalDate, List<Payment>> paymentsByDate = paymentRepository.findByTenantIdAndPaymentDateAfter(tenantId, sevenDaysAgo.toLocalDate())
-                .stream()
-                .collect(Collectors.groupingBy(Payment::getPaymentDate));
+        DashboardSectionLoader.Section<List<DashboardSummaryDTO.DailyCashFlowDTO>> cashFlow = batch.submit("last7DaysCashFlow", () ->
+                getLast7DaysCashFlow(tenantId));
+
+        return DashboardSummaryDTO.builder()
+                .overdueInvoicesTotal(batch.get(overdue))
+                .unpaidSupplierDebt(batch.get(supplierDebt))
+                .expenseDistribution(batch.get(expenseDist))
+                .last7DaysCashFlow(batch.get(cashFlow))
+                .staleSections(batch.getStaleSections())
+                .missingSections(batch.getMissingSections())
+                .build();
+    }
+
+    // Tahsilat ve tediyeler günlük toplamlardan okunur (metrik başına en fazla 7 kayıt)
+    private List<DashboardSummaryDTO.DailyCashFlowDTO> getLast7DaysCashFlow(String tenantId) {
+        LocalDate firstDay = LocalDate.now().minusDays(6);
+        Map<LocalDate, BigDecimal> collections = dailyRollupService.getDailyTotals(tenantId, DailyRollup.Metric.COLLECTIONS, firstDay, LocalDate.now());
+        Map<LocalDate, BigDecimal> payments = dailyRollupService.getDailyTotals(tenantId, DailyRollup.Metric.PAYMENTS, firstDay, LocalDate.now());
 
-        List<DashboardSummaryDTO.DailyCashFlowDTO> cashFlow = Stream.iterate(LocalDate.now().minusDays(6), date -> date.plusDays(1))
+        return Stream.iterate(firstDay, date -> date.plusDays(1))
                 .limit(7)
-                .map(date -> {
-                    BigDecimal income = paymentsByDate.getOrDefault(date, List.of()).stream()
-                            .filter(p -> p.getType() == Payment.PaymentType.COLLECTION)
-                            .map(Payment::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    BigDecimal outcome = paymentsByDate.getOrDefault(date, List.of()).stream()
-                            .filter(p -> p.getType() == Payment.PaymentType.PAYMENT)
-                            .map(Payment::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    return DashboardSummaryDTO.DailyCashFlowDTO.builder()
-                            .date(date.format(DateTimeFormatter.ofPattern("dd.MM")))
-                            .income(income)
-                            .outcome(outcome)
-                            .build();
-                })
+                .map(date -> DashboardSummaryDTO.DailyCashFlowDTO.builder()
+                        .date(date.format(DateTimeFormatter.ofPattern("dd.MM")))
+                        .income(collections.getOrDefault(date, BigDecimal.ZERO))
+                        .outcome(payments.getOrDefault(date, BigDecimal.ZERO))
+                        .build())
                 .collect(Collectors.toList());
+    }
 
-        return DashboardSummaryDTO.builder()
-                .overdueInvoicesTotal(overdueTotal)
-                .unpaidSupplierDebt(totalSupplierDebt)
-                .expenseDistribution(expenseDist)
-                .last7DaysCashFlow(cashFlow)
-                .build();
+    /**
+     * Giderler categoryId'ye göre $group ile toplanır, kategori adları tek bir findAllById ile alınır.
+     * dashboard.expense-distribution.window-days > 0 ise yalnızca son N günün giderleri dahil edilir.
+     */
+    private Map<String, BigDecimal> getExpenseDistribution(String tenantId) {
+        Criteria criteria = Criteria.where("tenantId").is(tenantId).and("categoryId").ne(null);
+        if (expenseDistributionWindowDays > 0) {
+            criteria = criteria.and("expenseDate").gte(LocalDate.now().minusDays(expenseDistributionWindowDays));
+        }
+        Aggregation aggregation = newAggregation(
+                match(criteria),
+                project("categoryId").and(ConvertOperators.valueOf("amount").convertToDecimal()).as("amount"),
+                group("categoryId").sum("amount").as("total")
+        );
+        List<Document> results = mongoTemplate.aggregate(aggregation, Expense.class, Document.class).getMappedResults();
+
+        Map<String, String> categoryNames = new HashMap<>();
+        expenseCategoryRepository.findAllById(results.stream().map(result -> result.getString("_id")).toList())
+                .forEach(category -> categoryNames.put(category.getId(), category.getName()));
+
+        Map<String, BigDecimal> distribution = new HashMap<>();
+        for (Document result : results) {
+            String name = categoryNames.getOrDefault(result.getString("_id"), "Diğer");
+            distribution.merge(name, toBigDecimal(result.get("total")), BigDecimal::add);
+        }
+        return distribution;
     }
 
     private DashboardSummaryDTO getWarehouseSummary(String tenantId) {
-        // ... (Bu metodun içeriği aynı kalacak)
-        long criticalStock = mongoTemplate.count(
-                new org.springframework.data.mongodb.core.query.Query(Criteria.where("tenantId").is(tenantId).and("quantity").lt(10)),
-                Stock.class
-        );
-        LocalDate today = LocalDate.now();
-        long ordersToShip = orderRepository.countByTenantIdAndStatusAndExpectedDeliveryDate(
-                tenantId, Order.OrderStatus.PREPARING, today
-        );
-        LocalDateTime yesterday = LocalDateTime.now().minusHours(24);
-        long recentReceipts = goodsReceiptRepository.countByTenantIdAndReceiptDateAfter(tenantId, yesterday);
-        List<DashboardSummaryDTO.StockByWarehouseDTO> stockDist = warehouseRepository.findAllByTenantId(tenantId).stream()
-                .map(warehouse -> {
-                    int totalPlantsInWarehouse = stockRepository.findByWarehouseIdAndTenantId(warehouse.getId(), tenantId)
-                            .stream()
-                            .mapToInt(Stock::getQuantity)
-                            .sum();
-                    return DashboardSummaryDTO.StockByWarehouseDTO.builder()
-                            .warehouseName(warehouse.getName())
-                            .plantCount(totalPlantsInWarehouse)
-                            .build();
-                })
-                .collect(Collectors.toList());
+        DashboardSectionLoader.Batch batch = dashboardSectionLoader.newBatch(tenantId);
 
+        // Kritik stok sayısı, eşik aşımlarında güncellenen sayaçtan okunur
+        DashboardSectionLoader.Section<Long> criticalStock = batch.submit("criticalStockCount", () ->
+                stockThresholdService.getCriticalStockCount(tenantId));
+        DashboardSectionLoader.Section<Long> ordersToShip = batch.submit("ordersToShipToday", () ->
+                orderRepository.countByTenantIdAndStatusAndExpectedDeliveryDate(
+                        tenantId, Order.OrderStatus.PREPARING, LocalDate.now()
+                ));
+        DashboardSectionLoader.Section<Long> recentReceipts = batch.submit("recentGoodsReceiptsCount", () ->
+                goodsReceiptRepository.countByTenantIdAndReceiptDateAfter(tenantId, LocalDateTime.now().minusHours(24)));
+        DashboardSectionLoader.Section<StockDistribution> stockDist = batch.submit("stockDistribution", () ->
+                getStockDistribution(tenantId));
+
+        StockDistribution distribution = batch.get(stockDist);
         return DashboardSummaryDTO.builder()
-                .criticalStockCount(criticalStock)
-                .ordersToShipToday(ordersToShip)
-                .recentGoodsReceiptsCount(recentReceipts)
-                .stockDistribution(stockDist)
+                .criticalStockCount(batch.get(criticalStock))
+                .ordersToShipToday(batch.get(ordersToShip))
+                .recentGoodsReceiptsCount(batch.get(recentReceipts))
+                .stockDistribution(distribution != null ? distribution.byWarehouse() : null)
+                .stockByPlantType(distribution != null ? distribution.byPlantType() : null)
+                .staleSections(batch.getStaleSections())
+                .missingSections(batch.getMissingSections())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Depo ve fidan türü bazında stok dağılımı tek bir $facet aggregation ile hesaplanır:
+     * - depo: stocks üzerinde warehouseId'ye göre $group + $sum
+     * - fidan türü: önce plantId'ye göre $group (satır sayısı fidan sayısına iner), ardından plants'tan
+     *   yalnızca plantTypeId alınarak $lookup ve plantTypeId'ye göre $group.
+     * Adlar DashboardNameCache'ten eklenir; stoğu olmayan depolar da 0 ile listelenir.
+     */
+    private StockDistribution getStockDistribution(String tenantId) {
+        AggregationOperation facet = context -> new Document("$facet", new Document()
+                .append("byWarehouse", List.of(
+                        new Document("$group", new Document("_id", "$warehouseId").append("total", new Document("$sum", "$quantity")))))
+                .append("byPlantType", List.of(
+                        new Document("$group", new Document("_id", "$plantId").append("total", new Document("$sum", "$quantity"))),
+                        new Document("$lookup", new Document("from", "plants")
+                                .append("let", new Document("plantId", new Document("$convert", new Document("input", "$_id").append("to", "objectId").append("onError", null))))
+                                .append("pipeline", List.of(
+                                        new Document("$match", new Document("$expr", new Document("$eq", List.of("$_id", "$$plantId")))),
+                                        new Document("$project", new Document("plantTypeId", 1))))
+                                .append("as", "plant")),
+                        new Document("$group", new Document("_id", new Document("$first", "$plant.plantTypeId"))
+                                .append("total", new Document("$sum", "$total"))))));
+
+        Aggregation aggregation = newAggregation(match(Criteria.where("tenantId").is(tenantId)), facet);
+        Document result = mongoTemplate.aggregate(aggregation, Stock.class, Document.class).getUniqueMappedResult();
+
+        Map<String, Integer> totalsByWarehouse = toTotals(result, "byWarehouse");
+        Map<String, Integer> totalsByPlantType = toTotals(result, "byPlantType");
+
+        List<DashboardSummaryDTO.StockByWarehouseDTO> byWarehouse = dashboardNameCache.getWarehouseNames(tenantId).entrySet().stream()
+                .map(entry -> DashboardSummaryDTO.StockByWarehouseDTO.builder()
+                        .warehouseName(entry.getValue())
+                        .plantCount(totalsByWarehouse.getOrDefault(entry.getKey(), 0))
+                        .build())
+                .collect(Collectors.toList());
+
+        Map<String, String> plantTypeNames = dashboardNameCache.getPlantTypeNames(tenantId);
+        List<DashboardSummaryDTO.StockByPlantTypeDTO> byPlantType = totalsByPlantType.entrySet().stream()
+                .map(entry -> DashboardSummaryDTO.StockByPlantTypeDTO.builder()
+                        .plantTypeName(plantTypeNames.getOrDefault(entry.getKey(), "Diğer"))
+                        .plantCount(entry.getValue())
+                        .build())
+                .sorted(Comparator.comparing(DashboardSummaryDTO.StockByPlantTypeDTO::getPlantCount).reversed())
+                .collect(Collectors.toList());
+
+        return new StockDistribution(byWarehouse, byPlantType);
+    }
+
+    private Map<String, Integer> toTotals(Document facetResult, String facetName) {
+        Map<String, Integer> totals = new HashMap<>();
+        if (facetResult == null) {
+            return totals;
+        }
+        for (Document row : facetResult.getList(facetName, Document.class)) {
+            totals.merge(String.valueOf(row.get("_id")), ((Number) row.get("total")).intValue(), Integer::sum);
+        }
+        return totals;
+    }
+
+    private record StockDistribution(List<DashboardSummaryDTO.StockByWarehouseDTO> byWarehouse,
+                                     List<DashboardSummaryDTO.StockByPlantTypeDTO> byPlantType) {
+    }
+}
@@ -0,0 +1,150 @@
+package com.fidanlik.fidanysserver.dashboard.service;
+
+import com.fidanlik.fidanysserver.common.event.DomainEvent;
+import com.fidanlik.fidanysserver.dashboard.dto.DashboardSummaryDTO;
+import com.fidanlik.fidanysserver.user.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Dashboard için tenant bazında canlı güncelleme akışı (Server-Sent Events).
+ * Sipariş, stok ve mal kabul olayları commit sonrasında dinlenir; etkilenen alanlar tenant ve rol başına
+ * bir kez hesaplanır ve o tenant'ın açık bağlantılarına kısmi özet (delta) olarak gönderilir.
+ * İstemciler böylece tam özeti periyodik olarak yeniden istemek zorunda kalmaz.
+ */
+@Service
+@Slf4j
+public class DashboardStreamService {
+
+    private static final Set<DomainEvent.Type> STREAMED_TYPES = EnumSet.of(
+            DomainEvent.Type.ORDER_CHANGED,
+            DomainEvent.Type.STOCK_CHANGED,
+            DomainEvent.Type.GOODS_RECEIPT_CHANGED
+    );
+
+    // Rolün olaydan etkilenmediğini belirten işaret (computeIfAbsent null saklayamaz)
+    private static final DashboardSummaryDTO EMPTY = DashboardSummaryDTO.builder().build();
+
+    private final DashboardService dashboardService;
+    private final ExecutorService executor;
+
+    @Value("${dashboard.stream.max-subscribers-per-tenant:20}")
+    private int maxSubscribersPerTenant;
+
+    @Value("${dashboard.stream.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    // Aynı tenant + olay tipi için zaten kuyrukta bekleyen hesaplama varsa yenisi eklenmez
+    private final Set<String> pendingDeltas = ConcurrentHashMap.newKeySet();
+
+    public DashboardStreamService(DashboardService dashboardService,
+                                  @Qualifier("dashboardExecutor") ExecutorService executor) {
+        this.dashboardService = dashboardService;
+        this.executor = executor;
+    }
+
+    public SseEmitter subscribe(User user) {
+        String tenantId = user.getTenantId();
+        Subscriber subscriber = new Subscriber(DashboardService.resolveRoleName(user), new SseEmitter(emitterTimeoutMs));
+
+        List<Subscriber> tenantSubscribers = subscribers.computeIfAbsent(tenantId, key -> new CopyOnWriteArrayList<>());
+        synchronized (tenantSubscribers) {
+            if (tenantSubscribers.size() >= maxSubscribersPerTenant) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                        "Bu firma için açık canlı dashboard bağlantısı sınırına ulaşıldı.");
+            }
+            tenantSubscribers.add(subscriber);
+        }
+
+        Runnable remove = () -> tenantSubscribers.remove(subscriber);
+        subscriber.emitter().onCompletion(remove);
+        subscriber.emitter().onTimeout(remove);
+        subscriber.emitter().onError(error -> remove.run());
+
+        // Bağlantının kurulduğunu bildiren ilk olay (proxy'lerin yanıtı tamponlamaması için de gerekli)
+        send(tenantId, subscriber, SseEmitter.event().name("connected").data(subscriber.roleName()));
+        return subscriber.emitter();
+    }
+
+    public int getSubscriberCount(String tenantId) {
+        return subscribers.getOrDefault(tenantId, List.of()).size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDomainEvent(DomainEvent event) {
+        if (!STREAMED_TYPES.contains(event.getType()) || getSubscriberCount(event.getTenantId()) == 0) {
+            return;
+        }
+        String key = event.getTenantId() + ":" + event.getType();
+        if (!pendingDeltas.add(key)) {
+            return;
+        }
+        try {
+            // Yazma isteğinin thread'i bekletilmez
+            executor.execute(() -> {
+                pendingDeltas.remove(key);
+                publishDeltas(event.getTenantId(), event.getType());
+            });
+        } catch (RejectedExecutionException e) {
+            pendingDeltas.remove(key);
+            log.warn("Dashboard delta hesaplaması kuyruğa alınamadı. Tenant: {}", event.getTenantId());
+        }
+    }
+
+    // Yorum satırı şeklindeki heartbeat, boşta kalan bağlantıların proxy'ler tarafından kapatılmasını önler
+    @Scheduled(fixedRateString = "${dashboard.stream.heartbeat-ms:25000}")
+    public void sendHeartbeats() {
+        subscribers.forEach((tenantId, tenantSubscribers) ->
+                tenantSubscribers.forEach(subscriber -> send(tenantId, subscriber, SseEmitter.event().comment("heartbeat"))));
+    }
+
+    private void publishDeltas(String tenantId, DomainEvent.Type type) {
+        List<Subscriber> tenantSubscribers = subscribers.getOrDefault(tenantId, List.of());
+        Map<String, DashboardSummaryDTO> deltasByRole = new HashMap<>();
+        for (Subscriber subscriber : tenantSubscribers) {
+            DashboardSummaryDTO delta = deltasByRole.computeIfAbsent(subscriber.roleName(),
+                    role -> {
+                        DashboardSummaryDTO computed = dashboardService.getSummaryDelta(tenantId, role, type);
+                        return computed != null ? computed : EMPTY;
+                    });
+            if (delta != EMPTY) {
+                send(tenantId, subscriber, SseEmitter.event().name("summary-delta").data(delta));
+            }
+        }
+    }
+
+    private void send(String tenantId, Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter().send(event);
+        } catch (IOException | IllegalStateException e) {
+            // İstemci bağlantıyı kapatmış; kayıt silinir
+            List<Subscriber> tenantSubscribers = subscribers.get(tenantId);
+            if (tenantSubscribers != null) {
+                tenantSubscribers.remove(subscriber);
+            }
+            subscriber.emitter().completeWithError(e);
+        }
+    }
+
+    private record Subscriber(String roleName, SseEmitter emitter) {
+    }
+}
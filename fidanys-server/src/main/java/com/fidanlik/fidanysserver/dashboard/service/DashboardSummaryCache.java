@@ -0,0 +1,113 @@
+package com.fidanlik.fidanysserver.dashboard.service;
+
+import com.fidanlik.fidanysserver.dashboard.dto.DashboardCacheStatsDTO;
+import com.fidanlik.fidanysserver.dashboard.dto.DashboardSummaryDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Tenant + rol bazında dashboard özeti önbelleği (LRU, boyut sınırlı, süreli).
+ * Yazma işlemleri DomainEvent yayınlar; DashboardCacheInvalidator yalnızca etkilenen rollerin kayıtlarını siler.
+ * Hesaplama sürerken gelen bir geçersiz kılma, hesaplanan (artık eski) sonucun önbelleğe yazılmasını engeller.
+ */
+@Component
+@Slf4j
+public class DashboardSummaryCache {
+
+    @Value("${dashboard.cache.max-entries:500}")
+    private int maxEntries;
+
+    @Value("${dashboard.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final LinkedHashMap<CacheKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<CacheKey, Long> versions = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public DashboardSummaryDTO getOrCompute(String tenantId, String role, Supplier<DashboardSummaryDTO> loader) {
+        CacheKey key = new CacheKey(tenantId, role);
+        long version;
+        synchronized (this) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null && !entry.isExpired()) {
+                hits.incrementAndGet();
+                return entry.summary();
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+            version = versions.getOrDefault(key, 0L);
+        }
+
+        misses.incrementAndGet();
+        DashboardSummaryDTO summary = loader.get();
+
+        synchronized (this) {
+            // Kısmi (stale/missing bölümlü) özetler önbelleğe alınmaz; sonraki istek yeniden dener
+            boolean complete = summary.getStaleSections() == null && summary.getMissingSections() == null;
+            if (complete && versions.getOrDefault(key, 0L) == version) {
+                entries.put(key, new CacheEntry(summary, System.currentTimeMillis() + ttlSeconds * 1000));
+                evictOverflow();
+            }
+        }
+        return summary;
+    }
+
+    // Verilen tenant için, listelenen rollerin özetlerini geçersiz kılar.
+    public synchronized void invalidate(String tenantId, Collection<String> roles) {
+        for (String role : roles) {
+            CacheKey key = new CacheKey(tenantId, role);
+            versions.merge(key, 1L, Long::sum);
+            if (entries.remove(key) != null) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized DashboardCacheStatsDTO getStats() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return DashboardCacheStatsDTO.builder()
+                .size(entries.size())
+                .maxEntries(maxEntries)
+                .ttlSeconds(ttlSeconds)
+                .hits(hitCount)
+                .misses(misses.get())
+                .hitRatio(total == 0 ? 0 : (double) hitCount / total)
+                .evictions(evictions.get())
+                .invalidations(invalidations.get())
+                .build();
+    }
+
+    private void evictOverflow() {
+        Iterator<CacheEntry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove(); // Erişim sırasına göre en eski (en az kullanılan) kayıt
+            evictions.incrementAndGet();
+        }
+    }
+
+    private record CacheKey(String tenantId, String role) {
+    }
+
+    private record CacheEntry(DashboardSummaryDTO summary, long expiresAt) {
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.fidanlik.fidanysserver.dashboard.service;
 
 import com.fidanlik.fidanysserver.common.inflation.InflationCalculationService;
+import com.fidanlik.fidanysserver.common.inflation.InflationSeriesService;
 import com.fidanlik.fidanysserver.dashboard.dto.CostAnalysisReportDTO;
 import com.fidanlik.fidanysserver.dashboard.dto.InflationOverviewDTO;
+import com.fidanlik.fidanysserver.dashboard.dto.InflationTrendDTO;
 import com.fidanlik.fidanysserver.dashboard.dto.PricePerformanceReportDTO;
 import com.fidanlik.fidanysserver.expense.model.Expense;
 import com.fidanlik.fidanysserver.expense.repository.ExpenseRepository;
@@ -14,7 +16,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -34,6 +38,7 @@ public class ReportService {
     private final ExpenseRepository expenseRepository;
     private final OrderRepository orderRepository;
     private final InflationCalculationService inflationCalculationService;
+    private final InflationSeriesService inflationSeriesService;
 
     private static final BigDecimal HUNDRED = new BigDecimal("100");
     private static final BigDecimal TEN_THOUSAND = new BigDecimal("10000");
@@ -99,8 +104,8 @@ public class ReportService {
     public CostAnalysisReportDTO getCostAnalysisReport(LocalDate startDate, LocalDate endDate, String tenantId, Optional<String> productionBatchId) {
         log.info("Maliyet Analizi Raporu oluşturuluyor. Aral?k: {} - {}, Tenant: {}, Parti ID: {}", startDate, endDate, tenantId, productionBatchId.orElse("Genel"));
 
-        List<CostAnalysisReportDTO.DataPointDTO> marketTrend = calculateMarketInflationTrend(startDate, endDate);
-        List<CostAnalysisReportDTO.DataPointDTO> businessTrend = calculateBusinessCostTrend(startDate, endDate, tenantId, productionBatchId);
+        List<CostAnalysisReportDTO.DataPointDTO> marketTrend = calculateMarketInflationTrend(startDate, endDate, null);
+        List<CostAnalysisReportDTO.DataPointDTO> businessTrend = calculateBusinessCostTrend(startDate, endDate, tenantId, productionBatchId, null);
 
         return CostAnalysisReportDTO.builder()
                 .marketInflationTrend(marketTrend)
@@ -108,6 +113,32 @@ public class ReportService {
                 .build();
     }
 
+    // --- Rapor 2b: Çoklu Endeks Serisi ---
+    // Piyasa enflasyonu ve istenen üretim partilerinin maliyet serileri tek çağrıda, seçilen baz aya göre 100'e endekslenir.
+    // Enflasyon serisi paylaşılan önbellekten okunduğu için farklı partiler için tekrar yüklenmez.
+    public InflationTrendDTO getInflationTrend(LocalDate startDate, LocalDate endDate, YearMonth baseMonth, boolean includeMarket,
+                                               List<String> productionBatchIds, String tenantId) {
+        if (startDate.isAfter(endDate)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Başlangıç tarihi bitiş tarihinden sonra olamaz.");
+        }
+        List<InflationTrendDTO.SeriesDTO> series = new ArrayList<>();
+        if (includeMarket) {
+            series.add(InflationTrendDTO.SeriesDTO.builder()
+                    .key("market")
+                    .points(calculateMarketInflationTrend(startDate, endDate, baseMonth))
+                    .build());
+        }
+        List<String> batchKeys = productionBatchIds == null || productionBatchIds.isEmpty() ? List.of("general") : productionBatchIds;
+        for (String batchKey : batchKeys) {
+            Optional<String> batchId = "general".equals(batchKey) ? Optional.empty() : Optional.of(batchKey);
+            series.add(InflationTrendDTO.SeriesDTO.builder()
+                    .key(batchKey)
+                    .points(calculateBusinessCostTrend(startDate, endDate, tenantId, batchId, baseMonth))
+                    .build());
+        }
+        return InflationTrendDTO.builder().baseMonth(baseMonth).series(series).build();
+    }
+
     // --- Rapor 3: Satış Fiyatı Performansı ---
     public PricePerformanceReportDTO getPricePerformanceReport(LocalDate startDate, LocalDate endDate, String plantId, String tenantId) {
         log.info("Satış Fiyatı Performans Raporu oluşturuluyor. Aralık: {} - {}, Fidan ID: {}", startDate, endDate, plantId);
@@ -170,15 +201,18 @@ public class ReportService {
 
     // --- Private Helper Metotlar ---
 
-    private List<CostAnalysisReportDTO.DataPointDTO> calculateMarketInflationTrend(LocalDate startDate, LocalDate endDate) {
-        List<InflationData> inflationInRange = inflationDataRepository.findAll().stream()
-                .filter(d -> !d.getDate().isBefore(startDate.withDayOfMonth(1)) && !d.getDate().isAfter(endDate.withDayOfMonth(1)))
-                .sorted(Comparator.comparing(InflationData::getDate))
-                .collect(Collectors.toList());
+    // baseMonth verilmezse (veya aralıkta verisi yoksa) aralığın ilk ayı baz alınır
+    private List<CostAnalysisReportDTO.DataPointDTO> calculateMarketInflationTrend(LocalDate startDate, LocalDate endDate, YearMonth baseMonth) {
+        List<InflationData> inflationInRange = inflationSeriesService.getSeries(YearMonth.from(startDate), YearMonth.from(endDate));
 
         if (inflationInRange.isEmpty()) return Collections.emptyList();
 
-        BigDecimal baseValue = inflationInRange.get(0).getValue();
+        BigDecimal baseValue = inflationInRange.stream()
+                .filter(d -> baseMonth != null && YearMonth.from(d.getDate()).equals(baseMonth))
+                .map(InflationData::getValue)
+                .filter(value -> value.signum() != 0)
+                .findFirst()
+                .orElse(inflationInRange.get(0).getValue());
         List<CostAnalysisReportDTO.DataPointDTO> trend = new ArrayList<>();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM yyyy", new Locale("tr"));
 
@@ -192,7 +226,7 @@ public class ReportService {
         return trend;
     }
 
-    private List<CostAnalysisReportDTO.DataPointDTO> calculateBusinessCostTrend(LocalDate startDate, LocalDate endDate, String tenantId, Optional<String> productionBatchId) {
+    private List<CostAnalysisReportDTO.DataPointDTO> calculateBusinessCostTrend(LocalDate startDate, LocalDate endDate, String tenantId, Optional<String> productionBatchId, YearMonth baseMonth) {
         List<Expense> expenses;
         if (productionBatchId.isPresent() && !productionBatchId.get().isEmpty()) {
             expenses = expenseRepository.findAllByProductionBatchIdAndTenantIdAndExpenseDateBetweenOrderByExpenseDateAsc(productionBatchId.get(), tenantId, startDate, endDate);
@@ -217,6 +251,16 @@ public class ReportService {
                 .filter(v -> v.compareTo(BigDecimal.ZERO) > 0)
                 .findFirst()
                 .orElse(BigDecimal.ONE);
+        if (baseMonth != null) {
+            // Seçilen baz aydaki kümülatif maliyet 100 kabul edilir (sıfırsa varsayılan baz korunur)
+            BigDecimal cumulativeAtBase = monthlyExpenses.entrySet().stream()
+                    .filter(entry -> !entry.getKey().isAfter(baseMonth))
+                    .map(Map.Entry::getValue)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            if (cumulativeAtBase.signum() > 0) {
+                baseCost = cumulativeAtBase;
+            }
+        }
 
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM yyyy", new Locale("tr"));
         YearMonth startMonth = YearMonth.from(startDate);
@@ -1,5 +1,7 @@
 package com.fidanlik.fidanysserver.expense.service;
 
+import com.fidanlik.fidanysserver.accounting.service.PeriodCloseService;
+import com.fidanlik.fidanysserver.common.event.DomainEvent;
 import com.fidanlik.fidanysserver.expense.dto.ExpenseCategoryRequest;
 import com.fidanlik.fidanysserver.expense.dto.ExpenseRequest;
 import com.fidanlik.fidanysserver.expense.model.Expense;
@@ -10,7 +12,10 @@ import com.fidanlik.fidanysserver.fidan.model.ProductionBatch;
 import com.fidanlik.fidanysserver.fidan.repository.ProductionBatchRepository;
 import com.fidanlik.fidanysserver.payment.model.Payment;
 import com.fidanlik.fidanysserver.payment.service.PaymentService;
+import com.fidanlik.fidanysserver.rollup.model.DailyRollup;
+import com.fidanlik.fidanysserver.rollup.service.DailyRollupService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,6 +33,9 @@ public class ExpenseService {
     private final ExpenseCategoryRepository categoryRepository;
     private final PaymentService paymentService;
     private final ProductionBatchRepository productionBatchRepository;
+    private final DailyRollupService dailyRollupService;
+    private final PeriodCloseService periodCloseService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // --- Expense Category Methods ---
 
@@ -50,6 +58,7 @@ public class ExpenseService {
         ExpenseCategory category = categoryRepository.findById(request.getCategoryId())
                 .filter(c -> c.getTenantId().equals(tenantId))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Gider kategorisi bulunamadı."));
+        periodCloseService.assertPeriodOpen(tenantId, request.getExpenseDate());
 
         Expense expense = new Expense();
         expense.setTenantId(tenantId);
@@ -75,6 +84,8 @@ public class ExpenseService {
         Payment payment = paymentService.createPaymentForExpense(savedExpense, request.getPaymentMethod(), userId, tenantId);
 
         savedExpense.setPaymentId(payment.getId());
+        dailyRollupService.record(tenantId, DailyRollup.Metric.EXPENSES, savedExpense.getExpenseDate(), savedExpense.getAmount());
+        eventPublisher.publishEvent(new DomainEvent(tenantId, DomainEvent.Type.EXPENSE_CHANGED));
         return expenseRepository.save(savedExpense);
     }
 
@@ -2,6 +2,7 @@ package com.fidanlik.fidanysserver.fidan.service;
 
 import com.fidanlik.fidanysserver.fidan.model.PlantAge;
 import com.fidanlik.fidanysserver.fidan.repository.PlantAgeRepository;
+import com.fidanlik.fidanysserver.stock.service.StockSummaryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,7 @@ import java.util.Optional;
 public class PlantAgeService {
 
     private final PlantAgeRepository plantAgeRepository;
+    private final StockSummaryService stockSummaryService;
 
     // Fidan Yaşı Oluşturma
     public PlantAge createPlantAge(PlantAge plantAge, String tenantId) {
@@ -48,7 +50,10 @@ public class PlantAgeService {
             }
         }
         existingPlantAge.setName(plantAge.getName());
-        return plantAgeRepository.save(existingPlantAge);
+        PlantAge savedPlantAge = plantAgeRepository.save(existingPlantAge);
+        // Stok özet tablosundaki adları güncelle
+        stockSummaryService.propagateName(StockSummaryService.NameField.PLANT_AGE, savedPlantAge.getId(), tenantId, savedPlantAge.getName());
+        return savedPlantAge;
     }
 
     // Fidan Yaşı Silme
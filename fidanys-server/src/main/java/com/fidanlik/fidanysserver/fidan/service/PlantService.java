@@ -2,6 +2,7 @@ package com.fidanlik.fidanysserver.fidan.service;
 
 import com.fidanlik.fidanysserver.fidan.model.*;
 import com.fidanlik.fidanysserver.fidan.repository.*;
+import com.fidanlik.fidanysserver.stock.service.StockSummaryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -21,6 +22,7 @@ public class PlantService {
     private final PlantSizeRepository plantSizeRepository;
     private final PlantAgeRepository plantAgeRepository;
     private final LandRepository landRepository;
+    private final StockSummaryService stockSummaryService;
 
 
     // Fidan Kimliği Oluşturma
@@ -111,7 +113,10 @@ public class PlantService {
         existingPlant.setPlantAge(plant.getPlantAge());
         existingPlant.setLand(plant.getLand());
 
-        return plantRepository.save(existingPlant);
+        Plant savedPlant = plantRepository.save(existingPlant);
+        // Fidan kimliğinin bileşenleri değişmiş olabilir; stok özet satırlarını yenile
+        stockSummaryService.refreshPlant(savedPlant);
+        return savedPlant;
     }
 
     // Fidan Kimliği Silme
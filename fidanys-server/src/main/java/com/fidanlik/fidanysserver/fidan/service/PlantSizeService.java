@@ -2,6 +2,7 @@ package com.fidanlik.fidanysserver.fidan.service;
 
 import com.fidanlik.fidanysserver.fidan.model.PlantSize;
 import com.fidanlik.fidanysserver.fidan.repository.PlantSizeRepository;
+import com.fidanlik.fidanysserver.stock.service.StockSummaryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,7 @@ import java.util.Optional;
 public class PlantSizeService {
 
     private final PlantSizeRepository plantSizeRepository;
+    private final StockSummaryService stockSummaryService;
 
     // Fidan Boyu Oluşturma
     public PlantSize createPlantSize(PlantSize plantSize, String tenantId) {
@@ -48,7 +50,10 @@ public class PlantSizeService {
             }
         }
         existingPlantSize.setName(plantSize.getName());
-        return plantSizeRepository.save(existingPlantSize);
+        PlantSize savedPlantSize = plantSizeRepository.save(existingPlantSize);
+        // Stok özet tablosundaki adları güncelle
+        stockSummaryService.propagateName(StockSummaryService.NameField.PLANT_SIZE, savedPlantSize.getId(), tenantId, savedPlantSize.getName());
+        return savedPlantSize;
     }
 
     // Fidan Boyu Silme
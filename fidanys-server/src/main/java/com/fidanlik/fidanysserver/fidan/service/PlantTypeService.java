@@ -2,6 +2,7 @@ package com.fidanlik.fidanysserver.fidan.service;
 
 import com.fidanlik.fidanysserver.fidan.model.PlantType;
 import com.fidanlik.fidanysserver.fidan.repository.PlantTypeRepository;
+import com.fidanlik.fidanysserver.stock.service.StockSummaryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,7 @@ import java.util.Optional;
 public class PlantTypeService {
 
     private final PlantTypeRepository plantTypeRepository;
+    private final StockSummaryService stockSummaryService;
 
     // Fidan Türü Oluşturma
     public PlantType createPlantType(PlantType plantType, String tenantId) {
@@ -49,7 +51,10 @@ public class PlantTypeService {
             }
         }
         existingPlantType.setName(plantType.getName());
-        return plantTypeRepository.save(existingPlantType);
+        PlantType savedPlantType = plantTypeRepository.save(existingPlantType);
+        // Stok özet tablosundaki adları güncelle
+        stockSummaryService.propagateName(StockSummaryService.NameField.PLANT_TYPE, savedPlantType.getId(), tenantId, savedPlantType.getName());
+        return savedPlantType;
     }
 
     // Fidan Türü Silme
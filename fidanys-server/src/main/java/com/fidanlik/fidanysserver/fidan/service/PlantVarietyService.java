@@ -4,6 +4,7 @@ import com.fidanlik.fidanysserver.fidan.model.PlantType; // Yeni paket yolu
 import com.fidanlik.fidanysserver.fidan.model.PlantVariety; // Yeni paket yolu
 import com.fidanlik.fidanysserver.fidan.repository.PlantTypeRepository; // Yeni paket yolu
 import com.fidanlik.fidanysserver.fidan.repository.PlantVarietyRepository; // Yeni paket yolu
+import com.fidanlik.fidanysserver.stock.service.StockSummaryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -18,6 +19,7 @@ public class PlantVarietyService {
 
     private final PlantVarietyRepository plantVarietyRepository;
     private final PlantTypeRepository plantTypeRepository;
+    private final StockSummaryService stockSummaryService;
 
     // Fidan Çeşidi Oluşturma
     public PlantVariety createPlantVariety(PlantVariety plantVariety, String tenantId) {
@@ -101,7 +103,10 @@ public class PlantVarietyService {
         existingPlantVariety.setPlantTypeId(plantVariety.getPlantTypeId());
         existingPlantVariety.setPlantType(plantTypeOptional.get()); // Güncel PlantType objesini set et
 
-        return plantVarietyRepository.save(existingPlantVariety);
+        PlantVariety savedPlantVariety = plantVarietyRepository.save(existingPlantVariety);
+        // Stok özet tablosundaki adları güncelle
+        stockSummaryService.propagateName(StockSummaryService.NameField.PLANT_VARIETY, savedPlantVariety.getId(), tenantId, savedPlantVariety.getName());
+        return savedPlantVariety;
     }
 
     // Fidan Çeşidi Silme
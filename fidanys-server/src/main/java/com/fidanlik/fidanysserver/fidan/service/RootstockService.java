@@ -2,6 +2,7 @@ package com.fidanlik.fidanysserver.fidan.service;
 
 import com.fidanlik.fidanysserver.fidan.model.Rootstock; // Yeni paket yolu
 import com.fidanlik.fidanysserver.fidan.repository.RootstockRepository; // Yeni paket yolu
+import com.fidanlik.fidanysserver.stock.service.StockSummaryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,7 @@ import java.util.Optional;
 public class RootstockService {
 
     private final RootstockRepository rootstockRepository;
+    private final StockSummaryService stockSummaryService;
 
     // Anaç Oluşturma
     public Rootstock createRootstock(Rootstock rootstock, String tenantId) {
@@ -48,7 +50,10 @@ public class RootstockService {
             }
         }
         existingRootstock.setName(rootstock.getName());
-        return rootstockRepository.save(existingRootstock);
+        Rootstock savedRootstock = rootstockRepository.save(existingRootstock);
+        // Stok özet tablosundaki adları güncelle
+        stockSummaryService.propagateName(StockSummaryService.NameField.ROOTSTOCK, savedRootstock.getId(), tenantId, savedRootstock.getName());
+        return savedRootstock;
     }
 
     // Anaç Silme
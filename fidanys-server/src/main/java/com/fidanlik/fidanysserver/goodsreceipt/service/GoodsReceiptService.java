@@ -2,6 +2,7 @@ package com.fidanlik.fidanysserver.goodsreceipt.service;
 
 import com.fidanlik.fidanysserver.accounting.model.Transaction;
 import com.fidanlik.fidanysserver.accounting.service.TransactionService;
+import com.fidanlik.fidanysserver.common.event.DomainEvent;
 import com.fidanlik.fidanysserver.fidan.model.ProductionBatch;
 import com.fidanlik.fidanysserver.fidan.repository.PlantRepository;
 import com.fidanlik.fidanysserver.fidan.repository.ProductionBatchRepository;
@@ -10,11 +11,13 @@ import com.fidanlik.fidanysserver.goodsreceipt.dto.ReceiptItemDto;
 import com.fidanlik.fidanysserver.goodsreceipt.model.GoodsReceipt;
 import com.fidanlik.fidanysserver.goodsreceipt.model.GoodsReceiptItem;
 import com.fidanlik.fidanysserver.goodsreceipt.repository.GoodsReceiptRepository;
+import com.fidanlik.fidanysserver.stock.dto.StockChange;
 import com.fidanlik.fidanysserver.stock.model.StockMovement;
 import com.fidanlik.fidanysserver.stock.service.StockService;
 import com.fidanlik.fidanysserver.supplier.repository.SupplierRepository;
 import com.fidanlik.fidanysserver.warehouse.repository.WarehouseRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,6 +25,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -36,6 +40,7 @@ public class GoodsReceiptService {
     private final PlantRepository plantRepository;
     private final TransactionService transactionService;
     private final ProductionBatchRepository productionBatchRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public GoodsReceipt createGoodsReceipt(GoodsReceiptRequest request, String userId, String tenantId) {
@@ -100,6 +105,7 @@ public class GoodsReceiptService {
         goodsReceipt.setStatus(GoodsReceipt.GoodsReceiptStatus.COMPLETED);
 
         BigDecimal totalValue = BigDecimal.ZERO;
+        List<StockChange> stockChanges = new ArrayList<>();
 
         for (GoodsReceiptItem item : goodsReceipt.getItems()) {
             plantRepository.findById(item.getPlantId())
@@ -107,18 +113,18 @@ public class GoodsReceiptService {
 
             String description = "Mal Kabul - İrsaliye No: " + request.getReceiptNumber();
 
-            // Stok hareketi, malın kaynağı ne olursa olsun aynı şekilde yapılır
-            stockService.changeStock(
-                    item.getPlantId(),
-                    request.getWarehouseId(),
-                    item.getQuantity(),
-                    StockMovement.MovementType.GOODS_RECEIPT,
-                    goodsReceipt.getId(),
-                    description,
-                    userId,
-                    tenantId,
-                    item.getUnitCost() // Unit Cost bilgisini StockMovement'a iletiyoruz
-            );
+            // Stok hareketi, malın kaynağı ne olursa olsun aynı şekilde yapılır.
+            // Tüm kalemler irsaliye kaydedildikten sonra tek toplu işlemde uygulanır.
+            stockChanges.add(StockChange.builder()
+                    .plantId(item.getPlantId())
+                    .warehouseId(request.getWarehouseId())
+                    .quantity(item.getQuantity())
+                    .type(StockMovement.MovementType.GOODS_RECEIPT)
+                    .description(description)
+                    .userId(userId)
+                    .tenantId(tenantId)
+                    .unitCost(item.getUnitCost()) // Unit Cost bilgisini StockMovement'a iletiyoruz
+                    .build());
 
             // Eğer mal üretim partisinden geliyorsa, üretim partisinin hasat miktarını güncelle
             if (request.getSourceType() == GoodsReceipt.SourceType.PRODUCTION_BATCH) {
@@ -150,6 +156,10 @@ public class GoodsReceiptService {
 
         GoodsReceipt savedGoodsReceipt = goodsReceiptRepository.save(goodsReceipt);
 
+        // Hareketler kaydedilmiş irsaliyenin ID'sine bağlanır
+        stockChanges.forEach(change -> change.setRelatedDocumentId(savedGoodsReceipt.getId()));
+        stockService.changeStockBatch(stockChanges);
+
         // İşlem türünü sourceType'a göre ayır
         if (savedGoodsReceipt.getSourceType() == GoodsReceipt.SourceType.SUPPLIER) {
             transactionService.createSupplierTransaction(
@@ -175,6 +185,7 @@ public class GoodsReceiptService {
             );
         }
 
+        eventPublisher.publishEvent(new DomainEvent(tenantId, DomainEvent.Type.GOODS_RECEIPT_CHANGED));
         return savedGoodsReceipt;
     }
 
@@ -195,21 +206,24 @@ public class GoodsReceiptService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bu kayıt zaten iptal edilmiş.");
         }
 
+        // Stok hareketi iptali: her fidan/depo için ayrı koşullu düşüş yapılır, biri yetersizse öncekiler geri alınır
+        // ve işlem reddedilir; hareketler toplu yazılır
+        String cancelDescription = "İptal - İrsaliye No: " + goodsReceipt.getReceiptNumber();
+        stockService.changeStockBatch(goodsReceipt.getItems().stream()
+                .map(item -> StockChange.builder()
+                        .plantId(item.getPlantId())
+                        .warehouseId(goodsReceipt.getWarehouseId())
+                        .quantity(-item.getQuantity()) // Miktar negatif olmalı
+                        .type(StockMovement.MovementType.GOODS_RECEIPT_CANCEL)
+                        .relatedDocumentId(goodsReceipt.getId())
+                        .description(cancelDescription)
+                        .userId(userId)
+                        .tenantId(tenantId)
+                        .unitCost(item.getUnitCost()) // Unit Cost bilgisini StockMovement'a iletiyoruz
+                        .build())
+                .collect(Collectors.toList()));
+
         for (GoodsReceiptItem item : goodsReceipt.getItems()) {
-            String description = "İptal - İrsaliye No: " + goodsReceipt.getReceiptNumber();
-
-            // Stok hareketi iptali
-            stockService.changeStock(
-                    item.getPlantId(),
-                    goodsReceipt.getWarehouseId(),
-                    -item.getQuantity(), // Miktar negatif olmalı
-                    StockMovement.MovementType.GOODS_RECEIPT_CANCEL,
-                    goodsReceipt.getId(),
-                    description,
-                    userId,
-                    tenantId,
-                    item.getUnitCost() // Unit Cost bilgisini StockMovement'a iletiyoruz
-            );
 
             // Eğer iptal edilen mal üretim partisinden geliyorsa, üretim partisinin hasat miktarını geri al
             if (goodsReceipt.getSourceType() == GoodsReceipt.SourceType.PRODUCTION_BATCH) {
@@ -259,6 +273,7 @@ public class GoodsReceiptService {
 
 
         goodsReceipt.setStatus(GoodsReceipt.GoodsReceiptStatus.CANCELED);
+        eventPublisher.publishEvent(new DomainEvent(tenantId, DomainEvent.Type.GOODS_RECEIPT_CHANGED));
         goodsReceiptRepository.save(goodsReceipt);
     }
 
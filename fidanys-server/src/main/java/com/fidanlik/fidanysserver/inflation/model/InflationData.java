@@ -2,6 +2,7 @@ package com.fidanlik.fidanysserver.inflation.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field; // Field anotasyonu için import
 import java.math.BigDecimal; // BigDecimal için import
@@ -12,6 +13,7 @@ import java.time.LocalDate;
 public class InflationData {
     @Id
     private String id;
+    @Indexed // Tarih aralığı sorguları için
     private LocalDate date;
 
     @Field("value") // Veritabanında "value" olarak saklanmasını sağlar
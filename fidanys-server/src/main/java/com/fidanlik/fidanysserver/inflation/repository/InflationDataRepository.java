@@ -5,6 +5,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Range;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -23,4 +24,7 @@ public interface InflationDataRepository extends MongoRepository<InflationData,
     Optional<InflationData> findTopByDateLessThanEqualOrderByDateDesc(LocalDate date);
 
     List<InflationData> findAllByOrderByDateDesc(Pageable pageable);
+
+    // Verilen tarih aralığındaki veriler, tarihe göre artan sırada (Range.closed ile her iki uç dahil)
+    List<InflationData> findAllByDateBetweenOrderByDateAsc(Range<LocalDate> range);
 }
\ No newline at end of file
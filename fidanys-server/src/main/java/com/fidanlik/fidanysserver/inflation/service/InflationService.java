@@ -1,5 +1,6 @@
 package com.fidanlik.fidanysserver.inflation.service;
 
+import com.fidanlik.fidanysserver.common.inflation.InflationCalculationService;
 import com.fidanlik.fidanysserver.inflation.dto.TcmbItem;
 import com.fidanlik.fidanysserver.inflation.dto.TcmbResponse;
 import com.fidanlik.fidanysserver.inflation.model.InflationData;
@@ -24,6 +25,7 @@ public class InflationService {
     private static final Logger log = LoggerFactory.getLogger(InflationService.class);
     private final InflationDataRepository inflationDataRepository;
     private final WebClient.Builder webClientBuilder;
+    private final InflationCalculationService inflationCalculationService;
 
     @Value("${tcmb.api.key}")
     private String apiKey;
@@ -94,6 +96,8 @@ public class InflationService {
             try {
                 List<InflationData> savedEntities = inflationDataRepository.saveAll(toSave); // saveAll'un dönüş değerini yakala
                 log.info("Veriler başarıyla veritabanına yazıldı. Kaydedilen toplam: {}", savedEntities.size()); // Dönüş değerini logla
+                // Reel değer hesaplamalarında kullanılan bellek içi endeks tablosunu yeni veriyle değiştir
+                inflationCalculationService.reloadIndex();
                 log.debug("Kaydedilen verilerin ilk 3 tanesi (id'leri ile): {}", savedEntities.stream().limit(3).toList()); // Kaydedilen verilerin ID'lerini kontrol et
             } catch (Exception e) {
                 log.error("Veriler veritabanına kaydedilirken beklenmedik bir hata oluştu: {}", e.getMessage(), e); // saveAll hatasını yakala
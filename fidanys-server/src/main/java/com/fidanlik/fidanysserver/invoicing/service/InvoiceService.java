@@ -1,12 +1,16 @@
 package com.fidanlik.fidanysserver.invoicing.service;
 
+import com.fidanlik.fidanysserver.common.event.DomainEvent;
 import com.fidanlik.fidanysserver.fidan.repository.PlantRepository; // Gerekli import
 import com.fidanlik.fidanysserver.invoicing.model.Invoice;
 import com.fidanlik.fidanysserver.invoicing.model.InvoiceItem;
 import com.fidanlik.fidanysserver.invoicing.repository.InvoiceRepository;
 import com.fidanlik.fidanysserver.order.model.Order;
 import com.fidanlik.fidanysserver.order.repository.OrderRepository;
+import com.fidanlik.fidanysserver.rollup.model.DailyRollup;
+import com.fidanlik.fidanysserver.rollup.service.DailyRollupService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,6 +29,8 @@ public class InvoiceService {
     private final InvoiceRepository invoiceRepository;
     private final OrderRepository orderRepository;
     private final PlantRepository plantRepository;
+    private final DailyRollupService dailyRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public Invoice createInvoiceFromOrder(String orderId, String userId, String tenantId) {
@@ -59,7 +65,9 @@ public class InvoiceService {
         invoice.setTotalAmount(order.getTotalAmount());
         invoice.setStatus(Invoice.InvoiceStatus.DRAFT);
         invoice.setItems(invoiceItems);
+        dailyRollupService.record(tenantId, DailyRollup.Metric.INVOICED_REVENUE, invoice.getIssueDate(), invoice.getTotalAmount());
 
+        eventPublisher.publishEvent(new DomainEvent(tenantId, DomainEvent.Type.INVOICE_CHANGED));
         return invoiceRepository.save(invoice);
     }
 
@@ -24,6 +24,7 @@ public class Order {
     private String userId;
     private String tenantId;
     private LocalDateTime expectedDeliveryDate; // Yeni eklendi
+    private Boolean stockReserved; // Hazırlanma aşamasında stok rezerve edildi mi (eski siparişlerde null)
 
     public enum OrderStatus {
         PREPARING, SHIPPED, DELIVERED, CANCELED
@@ -2,17 +2,22 @@ package com.fidanlik.fidanysserver.order.service;
 
 import com.fidanlik.fidanysserver.accounting.model.Transaction;
 import com.fidanlik.fidanysserver.accounting.service.TransactionService;
+import com.fidanlik.fidanysserver.common.event.DomainEvent;
 import com.fidanlik.fidanysserver.customer.repository.CustomerRepository;
 import com.fidanlik.fidanysserver.fidan.repository.PlantRepository;
 import com.fidanlik.fidanysserver.order.dto.OrderCreateRequest;
 import com.fidanlik.fidanysserver.order.dto.OrderItemDto;
 import com.fidanlik.fidanysserver.order.model.Order;
 import com.fidanlik.fidanysserver.order.repository.OrderRepository;
+import com.fidanlik.fidanysserver.rollup.model.DailyRollup;
+import com.fidanlik.fidanysserver.rollup.service.DailyRollupService;
+import com.fidanlik.fidanysserver.stock.dto.StockChange;
 import com.fidanlik.fidanysserver.stock.model.StockMovement;
 import com.fidanlik.fidanysserver.stock.service.StockService;
 import com.fidanlik.fidanysserver.user.model.User;
 import com.fidanlik.fidanysserver.warehouse.repository.WarehouseRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
@@ -23,6 +28,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -34,6 +40,8 @@ public class OrderService {
     private final WarehouseRepository warehouseRepository;
     private final PlantRepository plantRepository;
     private final TransactionService transactionService;
+    private final DailyRollupService dailyRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SALES')")
@@ -76,7 +84,13 @@ public class OrderService {
         order.setTenantId(tenantId);
         order.setExpectedDeliveryDate(request.getExpectedDeliveryDate());
 
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+
+        // Hazırlanan sipariş için stok rezervasyonu (satılabilir miktar bu kadar azalır)
+        stockService.reserveStock(toReservationChanges(savedOrder));
+        savedOrder.setStockReserved(true);
+        eventPublisher.publishEvent(new DomainEvent(tenantId, DomainEvent.Type.ORDER_CHANGED));
+        return orderRepository.save(savedOrder);
     }
 
     @Transactional
@@ -87,15 +101,24 @@ public class OrderService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sadece 'Hazırlanıyor' durumundaki siparişler sevk edilebilir.");
         }
 
-        // Stok düşme işlemi
-        for (Order.OrderItem item : order.getItems()) {
-            stockService.changeStock(
-                    item.getPlantId(), order.getWarehouseId(), -item.getQuantity(),
-                    StockMovement.MovementType.SALE, order.getId(),
-                    "Sipariş Sevkiyatı - No: " + order.getOrderNumber(), userId, tenantId,
-                    item.getSalePrice() // YENİ: SalePrice'ı unitCost olarak geçiyoruz
-            );
-        }
+        // Stok düşme işlemi (tüm kalemler tek toplu işlemde).
+        // Rezervasyonlu siparişlerde düşülen miktar rezervasyondan karşılanır.
+        boolean reserved = Boolean.TRUE.equals(order.getStockReserved());
+        stockService.changeStockBatch(order.getItems().stream()
+                .map(item -> StockChange.builder()
+                        .plantId(item.getPlantId())
+                        .warehouseId(order.getWarehouseId())
+                        .quantity(-item.getQuantity())
+                        .type(StockMovement.MovementType.SALE)
+                        .relatedDocumentId(order.getId())
+                        .description("Sipariş Sevkiyatı - No: " + order.getOrderNumber())
+                        .userId(userId)
+                        .tenantId(tenantId)
+                        .unitCost(item.getSalePrice()) // YENİ: SalePrice'ı unitCost olarak geçiyoruz
+                        .fromReservation(reserved)
+                        .build())
+                .collect(Collectors.toList()));
+        order.setStockReserved(false);
 
         // CARİ HESABA BORÇ KAYDI OLUŞTURMA
         transactionService.createCustomerTransaction(
@@ -109,6 +132,8 @@ public class OrderService {
         );
 
         order.setStatus(Order.OrderStatus.SHIPPED);
+        dailyRollupService.record(tenantId, DailyRollup.Metric.SALES_REVENUE, order.getOrderDate().toLocalDate(), order.getTotalAmount());
+        eventPublisher.publishEvent(new DomainEvent(tenantId, DomainEvent.Type.ORDER_CHANGED));
         return orderRepository.save(order);
     }
 
@@ -120,6 +145,7 @@ public class OrderService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sadece 'Sevk Edildi' durumundaki siparişler teslim edilebilir.");
         }
         order.setStatus(Order.OrderStatus.DELIVERED);
+        eventPublisher.publishEvent(new DomainEvent(tenantId, DomainEvent.Type.ORDER_CHANGED));
         return orderRepository.save(order);
     }
 
@@ -130,14 +156,19 @@ public class OrderService {
 
         // Eğer sipariş sevk edildiyse, stokları iade et.
         if (order.getStatus() == Order.OrderStatus.SHIPPED) {
-            for (Order.OrderItem item : order.getItems()) {
-                stockService.changeStock(
-                        item.getPlantId(), order.getWarehouseId(), item.getQuantity(), // Pozitif miktar ile stoğa iade
-                        StockMovement.MovementType.SALE_CANCEL, order.getId(),
-                        "İptal Edilen Sevkiyat İadesi - Sipariş No: " + order.getOrderNumber(), userId, tenantId,
-                        item.getSalePrice() // YENİ: SalePrice'ı unitCost olarak geçiyoruz
-                );
-            }
+            stockService.changeStockBatch(order.getItems().stream()
+                    .map(item -> StockChange.builder()
+                            .plantId(item.getPlantId())
+                            .warehouseId(order.getWarehouseId())
+                            .quantity(item.getQuantity()) // Pozitif miktar ile stoğa iade
+                            .type(StockMovement.MovementType.SALE_CANCEL)
+                            .relatedDocumentId(order.getId())
+                            .description("İptal Edilen Sevkiyat İadesi - Sipariş No: " + order.getOrderNumber())
+                            .userId(userId)
+                            .tenantId(tenantId)
+                            .unitCost(item.getSalePrice()) // YENİ: SalePrice'ı unitCost olarak geçiyoruz
+                            .build())
+                    .collect(Collectors.toList()));
             // CARİ HESAPTAN BORCU SİLME (ALACAK KAYDI)
             transactionService.createCustomerTransaction(
                     order.getCustomerId(),
@@ -148,12 +179,31 @@ public class OrderService {
                     userId,
                     tenantId
             );
+            // Sevk edilmiş sipariş satış gelirinden düşülür
+            dailyRollupService.record(tenantId, DailyRollup.Metric.SALES_REVENUE, order.getOrderDate().toLocalDate(), order.getTotalAmount().negate());
+        } else if (order.getStatus() == Order.OrderStatus.PREPARING && Boolean.TRUE.equals(order.getStockReserved())) {
+            // Sevk edilmemiş siparişin rezervasyonunu serbest bırak
+            stockService.releaseReservation(toReservationChanges(order));
+            order.setStockReserved(false);
         }
 
         order.setStatus(Order.OrderStatus.CANCELED);
+        eventPublisher.publishEvent(new DomainEvent(tenantId, DomainEvent.Type.ORDER_CHANGED));
         return orderRepository.save(order);
     }
 
+    private List<StockChange> toReservationChanges(Order order) {
+        return order.getItems().stream()
+                .map(item -> StockChange.builder()
+                        .plantId(item.getPlantId())
+                        .warehouseId(order.getWarehouseId())
+                        .quantity(item.getQuantity())
+                        .relatedDocumentId(order.getId())
+                        .tenantId(order.getTenantId())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
     private Order findOrderForUpdate(String orderId, String tenantId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Sipariş bulunamadı."));
@@ -2,6 +2,7 @@ package com.fidanlik.fidanysserver.payment.service;
 
 import com.fidanlik.fidanysserver.accounting.model.Transaction;
 import com.fidanlik.fidanysserver.accounting.service.TransactionService;
+import com.fidanlik.fidanysserver.common.event.DomainEvent;
 import com.fidanlik.fidanysserver.customer.repository.CustomerRepository;
 import com.fidanlik.fidanysserver.expense.model.Expense;
 import com.fidanlik.fidanysserver.invoicing.model.Invoice;
@@ -9,8 +10,11 @@ import com.fidanlik.fidanysserver.invoicing.repository.InvoiceRepository;
 import com.fidanlik.fidanysserver.payment.dto.PaymentRequest;
 import com.fidanlik.fidanysserver.payment.model.Payment;
 import com.fidanlik.fidanysserver.payment.repository.PaymentRepository;
+import com.fidanlik.fidanysserver.rollup.model.DailyRollup;
+import com.fidanlik.fidanysserver.rollup.service.DailyRollupService;
 import com.fidanlik.fidanysserver.supplier.repository.SupplierRepository; // BU SATIR ZATEN VARDI
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,6 +31,8 @@ public class PaymentService {
     private final CustomerRepository customerRepository;
     private final InvoiceRepository invoiceRepository;
     private final SupplierRepository supplierRepository; // DÜZELTME: Bu satırın burada olması gerekiyor.
+    private final DailyRollupService dailyRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public Payment createCollection(PaymentRequest request, String userId, String tenantId) {
@@ -66,6 +72,8 @@ public class PaymentService {
             });
         }
 
+        dailyRollupService.record(tenantId, DailyRollup.Metric.COLLECTIONS, payment.getPaymentDate(), payment.getAmount());
+        eventPublisher.publishEvent(new DomainEvent(tenantId, DomainEvent.Type.PAYMENT_CHANGED));
         return savedPayment;
     }
 
@@ -98,6 +106,8 @@ public class PaymentService {
                 tenantId
         );
 
+        dailyRollupService.record(tenantId, DailyRollup.Metric.PAYMENTS, payment.getPaymentDate(), payment.getAmount());
+        eventPublisher.publishEvent(new DomainEvent(tenantId, DomainEvent.Type.PAYMENT_CHANGED));
         return savedPayment;
     }
 
@@ -115,6 +125,8 @@ public class PaymentService {
         payment.setRelatedId(expense.getId());
         payment.setRelatedEntityType(Payment.RelatedEntityType.EXPENSE);
 
+        dailyRollupService.record(tenantId, DailyRollup.Metric.PAYMENTS, payment.getPaymentDate(), payment.getAmount());
+        eventPublisher.publishEvent(new DomainEvent(tenantId, DomainEvent.Type.PAYMENT_CHANGED));
         return paymentRepository.save(payment);
     }
 
@@ -0,0 +1,40 @@
+package com.fidanlik.fidanysserver.rollup.controller;
+
+import com.fidanlik.fidanysserver.rollup.service.DailyRollupService;
+import com.fidanlik.fidanysserver.user.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/v1/rollups")
+@RequiredArgsConstructor
+public class DailyRollupController {
+
+    private final DailyRollupService dailyRollupService;
+
+    /**
+     * Verilen tarih aralığı için günlük finansal toplamları kaynak belgelerden yeniden oluşturur.
+     * İlk kurulum açılışta otomatik yapılır; tutarsızlık şüphesinde kullanılır. Sadece ADMIN erişebilir.
+     * @param from Başlangıç tarihi (dahil).
+     * @param to Bitiş tarihi (dahil).
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Yazılan günlük kayıt sayısı.
+     */
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Integer> rebuildRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(dailyRollupService.rebuild(authenticatedUser.getTenantId(), from, to));
+    }
+}
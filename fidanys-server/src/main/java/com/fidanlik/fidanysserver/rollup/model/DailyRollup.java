@@ -0,0 +1,37 @@
+package com.fidanlik.fidanysserver.rollup.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Tenant + gün + metrik bazında finansal toplam.
+// Belgeler yazıldıkça/iptal edildikçe $inc ile güncellenir; dashboard ve raporlar ham belgeler yerine bunu okur.
+@Data
+@Document(collection = "dailyRollups")
+@CompoundIndex(name = "tenant_metric_date", def = "{'tenantId': 1, 'metric': 1, 'date': 1}", unique = true)
+public class DailyRollup {
+    @Id
+    private String id;
+    private String tenantId;
+    private LocalDate date;
+    private Metric metric;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal amount;
+
+    private long count; // Güne işlenen belge sayısı (iptaller düşer)
+
+    public enum Metric {
+        SALES_REVENUE,    // Sevk edilen/teslim edilen siparişler (sipariş tarihine göre)
+        INVOICED_REVENUE, // Kesilen faturalar (fatura tarihine göre)
+        EXPENSES,         // Giderler (gider tarihine göre)
+        COLLECTIONS,      // Tahsilatlar
+        PAYMENTS          // Tediyeler
+    }
+}
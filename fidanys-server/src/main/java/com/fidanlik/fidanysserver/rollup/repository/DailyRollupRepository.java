@@ -0,0 +1,7 @@
+package com.fidanlik.fidanysserver.rollup.repository;
+
+import com.fidanlik.fidanysserver.rollup.model.DailyRollup;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface DailyRollupRepository extends MongoRepository<DailyRollup, String> {
+}
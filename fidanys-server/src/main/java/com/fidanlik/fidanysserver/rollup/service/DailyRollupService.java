@@ -0,0 +1,199 @@
+package com.fidanlik.fidanysserver.rollup.service;
+
+import com.fidanlik.fidanysserver.expense.model.Expense;
+import com.fidanlik.fidanysserver.invoicing.model.Invoice;
+import com.fidanlik.fidanysserver.order.model.Order;
+import com.fidanlik.fidanysserver.payment.model.Payment;
+import com.fidanlik.fidanysserver.rollup.model.DailyRollup;
+import com.fidanlik.fidanysserver.rollup.repository.DailyRollupRepository;
+import com.fidanlik.fidanysserver.tenant.model.Tenant;
+import com.fidanlik.fidanysserver.tenant.repository.TenantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DailyRollupService {
+
+    private final DailyRollupRepository dailyRollupRepository;
+    private final TenantRepository tenantRepository;
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Bir belgenin tutarını ilgili günün toplamına işler (iptallerde negatif tutar verilir).
+     * Tek bir upsert + $inc ile atomiktir; çağıranın transaction'ına katılır.
+     */
+    public void record(String tenantId, DailyRollup.Metric metric, LocalDate date, BigDecimal amount) {
+        if (amount == null || date == null) {
+            return;
+        }
+        Query query = new Query(Criteria.where("tenantId").is(tenantId)
+                .and("metric").is(metric)
+                .and("date").is(date));
+        // BigDecimal varsayılan olarak String'e dönüştürüldüğü için Decimal128 açıkça verilir
+        Update update = new Update()
+                .inc("amount", new Decimal128(amount))
+                .inc("count", amount.signum() < 0 ? -1 : 1);
+        mongoTemplate.upsert(query, update, DailyRollup.class);
+    }
+
+    // Verilen aralıktaki (her iki uç dahil) günlük toplamlar, tarihe göre sıralı
+    public Map<LocalDate, BigDecimal> getDailyTotals(String tenantId, DailyRollup.Metric metric, LocalDate from, LocalDate to) {
+        Query query = new Query(Criteria.where("tenantId").is(tenantId)
+                .and("metric").is(metric)
+                .and("date").gte(from).lte(to));
+        query.fields().include("date", "amount");
+
+        Map<LocalDate, BigDecimal> totals = new TreeMap<>();
+        for (DailyRollup rollup : mongoTemplate.find(query, DailyRollup.class)) {
+            totals.put(rollup.getDate(), rollup.getAmount() != null ? rollup.getAmount() : BigDecimal.ZERO);
+        }
+        return totals;
+    }
+
+    public BigDecimal getTotal(String tenantId, DailyRollup.Metric metric, LocalDate from, LocalDate to) {
+        return getDailyTotals(tenantId, metric, from, to).values().stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * Verilen tarih aralığının (her iki uç dahil) günlük toplamlarını kaynak belgelerden yeniden oluşturur.
+     * Her metrik için tek bir $group (gün bazında) çalışır; aralıktaki eski kayıtlar silinip yerine yazılır.
+     * @return Yazılan günlük kayıt sayısı.
+     */
+    @Transactional
+    public int rebuild(String tenantId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Başlangıç tarihi bitiş tarihinden sonra olamaz.");
+        }
+        log.info("Günlük toplamlar yeniden oluşturuluyor. Tenant: {}, Aralık: {} - {}", tenantId, from, to);
+        return rebuildRange(tenantId, from, to);
+    }
+
+    // Günlük toplamları hiç oluşturulmamış tenant'lar açılışta tüm geçmişleriyle doldurulur
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeRollups() {
+        for (Tenant tenant : tenantRepository.findAll()) {
+            if (isInitialized(tenant.getId())) {
+                continue;
+            }
+            try {
+                log.info("Günlük toplamlar ilk kez kaynak belgelerden oluşturuluyor. Tenant: {}", tenant.getId());
+                int count = rebuildRange(tenant.getId(), null, null);
+                log.info("Günlük toplamlar oluşturuldu. Tenant: {}, Kayıt sayısı: {}", tenant.getId(), count);
+            } catch (Exception e) {
+                log.error("Günlük toplamlar oluşturulamadı. Tenant: {}", tenant.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Tenant'ın günlük toplamları kullanılabilir mi: en az bir kayıt vardır veya toplanacak kaynak belge yoktur.
+     * Kurulmamış toplamlar sıfır okunacağından dönem kapatma gibi kalıcı işlemler bunu kontrol eder.
+     */
+    public boolean isInitialized(String tenantId) {
+        Query tenantQuery = new Query(Criteria.where("tenantId").is(tenantId));
+        if (mongoTemplate.exists(tenantQuery, DailyRollup.class)) {
+            return true;
+        }
+        Query shippedOrders = new Query(Criteria.where("tenantId").is(tenantId)
+                .and("status").in(Order.OrderStatus.SHIPPED, Order.OrderStatus.DELIVERED));
+        return !mongoTemplate.exists(shippedOrders, Order.class)
+                && Stream.of(Invoice.class, Expense.class, Payment.class).noneMatch(source -> mongoTemplate.exists(tenantQuery, source));
+    }
+
+    // from/to null ise tenant'ın tüm kayıtları yeniden oluşturulur
+    private int rebuildRange(String tenantId, LocalDate from, LocalDate to) {
+        Criteria existing = Criteria.where("tenantId").is(tenantId);
+        if (from != null) {
+            existing.and("date").gte(from).lte(to);
+        }
+        mongoTemplate.remove(new Query(existing), DailyRollup.class);
+
+        List<DailyRollup> rollups = new ArrayList<>();
+        Criteria orders = Criteria.where("tenantId").is(tenantId)
+                .and("status").in(Order.OrderStatus.SHIPPED, Order.OrderStatus.DELIVERED);
+        if (from != null) {
+            orders.and("orderDate").gte(from.atStartOfDay()).lt(to.plusDays(1).atStartOfDay());
+        }
+        rollups.addAll(aggregateDaily(tenantId, DailyRollup.Metric.SALES_REVENUE, Order.class, orders, "orderDate", "totalAmount"));
+
+        Criteria invoices = inRange(Criteria.where("tenantId").is(tenantId), "issueDate", from, to);
+        rollups.addAll(aggregateDaily(tenantId, DailyRollup.Metric.INVOICED_REVENUE, Invoice.class, invoices, "issueDate", "totalAmount"));
+
+        Criteria expenses = inRange(Criteria.where("tenantId").is(tenantId), "expenseDate", from, to);
+        rollups.addAll(aggregateDaily(tenantId, DailyRollup.Metric.EXPENSES, Expense.class, expenses, "expenseDate", "amount"));
+
+        Criteria collections = inRange(Criteria.where("tenantId").is(tenantId)
+                .and("type").is(Payment.PaymentType.COLLECTION), "paymentDate", from, to);
+        rollups.addAll(aggregateDaily(tenantId, DailyRollup.Metric.COLLECTIONS, Payment.class, collections, "paymentDate", "amount"));
+
+        Criteria payments = inRange(Criteria.where("tenantId").is(tenantId)
+                .and("type").is(Payment.PaymentType.PAYMENT), "paymentDate", from, to);
+        rollups.addAll(aggregateDaily(tenantId, DailyRollup.Metric.PAYMENTS, Payment.class, payments, "paymentDate", "amount"));
+
+        dailyRollupRepository.saveAll(rollups);
+        log.info("Günlük toplamlar yeniden oluşturuldu. Kayıt sayısı: {}", rollups.size());
+        return rollups.size();
+    }
+
+    private static Criteria inRange(Criteria criteria, String dateField, LocalDate from, LocalDate to) {
+        return from != null ? criteria.and(dateField).gte(from).lte(to) : criteria;
+    }
+
+    // Kaynak koleksiyonu gün bazında gruplar ($dateTrunc, sistem saat dilimi) ve tutarları $toDecimal ile toplar
+    private List<DailyRollup> aggregateDaily(String tenantId, DailyRollup.Metric metric, Class<?> source,
+                                             Criteria criteria, String dateField, String amountField) {
+        ZoneId zone = ZoneId.systemDefault();
+        Aggregation aggregation = newAggregation(
+                match(criteria),
+                project()
+                        .and(DateOperators.dateOf(dateField).withTimezone(DateOperators.Timezone.valueOf(zone.getId())).truncate("day")).as("day")
+                        .and(ConvertOperators.valueOf(amountField).convertToDecimal()).as("amount"),
+                group("day").sum("amount").as("amount").count().as("count")
+        );
+
+        List<DailyRollup> rollups = new ArrayList<>();
+        for (Document result : mongoTemplate.aggregate(aggregation, source, Document.class)) {
+            DailyRollup rollup = new DailyRollup();
+            rollup.setTenantId(tenantId);
+            rollup.setMetric(metric);
+            rollup.setDate(result.getDate("_id").toInstant().atZone(zone).toLocalDate());
+            Object amount = result.get("amount");
+            rollup.setAmount(amount instanceof Decimal128 decimal ? decimal.bigDecimalValue() : BigDecimal.ZERO);
+            rollup.setCount(((Number) result.get("count")).longValue());
+            rollups.add(rollup);
+        }
+        return rollups;
+    }
+}
@@ -1,16 +1,31 @@
 package com.fidanlik.fidanysserver.stock.controller;
 
+import com.fidanlik.fidanysserver.stock.dto.StockMovementPageDTO;
 import com.fidanlik.fidanysserver.stock.dto.StockSummaryDTO;
 import com.fidanlik.fidanysserver.stock.model.Stock;
+import com.fidanlik.fidanysserver.stock.model.StockMovement;
+import com.fidanlik.fidanysserver.stock.model.StockSnapshot;
+import com.fidanlik.fidanysserver.stock.model.StockValuation;
+import com.fidanlik.fidanysserver.stock.service.CostLayerService;
 import com.fidanlik.fidanysserver.stock.service.StockService;
+import com.fidanlik.fidanysserver.stock.service.StockSnapshotService;
+import com.fidanlik.fidanysserver.stock.service.StockSummaryService;
+import com.fidanlik.fidanysserver.stock.service.StockThresholdService;
+import com.fidanlik.fidanysserver.stock.service.StockValuationService;
 import com.fidanlik.fidanysserver.user.model.User;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -19,6 +34,11 @@ import java.util.List;
 public class StockController {
 
     private final StockService stockService;
+    private final StockValuationService stockValuationService;
+    private final CostLayerService costLayerService;
+    private final StockSnapshotService stockSnapshotService;
+    private final StockSummaryService stockSummaryService;
+    private final StockThresholdService stockThresholdService;
 
     /**
      * Tüm stok kayıtlarını listeler.
@@ -103,4 +123,142 @@ public class StockController {
         List<StockSummaryDTO> summary = stockService.getStockSummary(authenticatedUser.getTenantId());
         return ResponseEntity.ok(summary);
     }
+
+    /**
+     * Kritik seviyenin altındaki stok satırlarını listeler (tanımlı eşiklere göre tutulan bayraktan okunur).
+     * ADMIN, WAREHOUSE_STAFF ve SALES rollerine sahip kullanıcılar erişebilir.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Kritik stok listesi.
+     */
+    @GetMapping("/critical")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_WAREHOUSE_STAFF', 'ROLE_SALES')")
+    public ResponseEntity<List<Stock>> getCriticalStocks(@AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(stockThresholdService.getCriticalStocks(authenticatedUser.getTenantId()));
+    }
+
+    /**
+     * Fidan veya depo bazında stok hareket geçmişini imleç (cursor) tabanlı sayfalama ile getirir.
+     * ADMIN, WAREHOUSE_STAFF ve ACCOUNTANT rollerine sahip kullanıcılar erişebilir.
+     * @param plantId Fidan ID'si (warehouseId ile birlikte verilemez).
+     * @param warehouseId Depo ID'si (plantId ile birlikte verilemez).
+     * @param type Hareket tipi filtresi (birden fazla verilebilir).
+     * @param from Başlangıç anı (dahil).
+     * @param to Bitiş anı (dahil).
+     * @param cursor Bir önceki sayfanın nextCursor değeri; ilk sayfa için boş.
+     * @param size Sayfa boyutu.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Hareket sayfası ve sonraki sayfanın imleci.
+     */
+    @GetMapping("/movements")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_WAREHOUSE_STAFF', 'ROLE_ACCOUNTANT')")
+    public ResponseEntity<StockMovementPageDTO> getStockMovements(
+            @RequestParam(required = false) String plantId,
+            @RequestParam(required = false) String warehouseId,
+            @RequestParam(required = false) List<StockMovement.MovementType> type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @AuthenticationPrincipal User authenticatedUser) {
+        StockMovementPageDTO page = stockService.getMovementPage(authenticatedUser.getTenantId(), plantId, warehouseId,
+                type, from, to, cursor, Math.min(Math.max(size, 1), 200));
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Stok özetini sayfalı olarak getirir (fidan türü, çeşit ve depo adına göre sıralı).
+     * ADMIN, WAREHOUSE_STAFF ve SALES rollerine sahip kullanıcılar erişebilir.
+     * @param page Sayfa numarası (0'dan başlar).
+     * @param size Sayfa boyutu.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Stok özet sayfası.
+     */
+    @GetMapping("/summary/page")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_WAREHOUSE_STAFF', 'ROLE_SALES')")
+    public ResponseEntity<Page<StockSummaryDTO>> getStockSummaryPage(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @AuthenticationPrincipal User authenticatedUser) {
+        Pageable pageable = PageRequest.of(page, Math.min(Math.max(size, 1), 500));
+        return ResponseEntity.ok(stockService.getStockSummaryPage(authenticatedUser.getTenantId(), pageable));
+    }
+
+    /**
+     * Stok özet tablosunu mevcut stok kayıtlarından yeniden oluşturur. Sadece ADMIN erişebilir.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Oluşturulan özet satırı sayısı.
+     */
+    @PostMapping("/summary/rebuild")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Integer> rebuildStockSummary(@AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(stockSummaryService.rebuild(authenticatedUser.getTenantId()));
+    }
+
+    /**
+     * Fidan ve depo bazında stok değerleme kayıtlarını (ağırlıklı ortalama maliyet) listeler.
+     * Sadece ADMIN ve ACCOUNTANT rollerine sahip kullanıcılar erişebilir.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Stok değerleme listesi.
+     */
+    @GetMapping("/valuation")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_ACCOUNTANT')")
+    public ResponseEntity<List<StockValuation>> getStockValuations(@AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(stockValuationService.getValuationsByTenant(authenticatedUser.getTenantId()));
+    }
+
+    /**
+     * Stok değerleme defterini stok hareketleri geçmişinden yeniden oluşturur.
+     * Mevcut veriler için bir kez çalıştırılması yeterlidir. Sadece ADMIN erişebilir.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Oluşturulan değerleme kaydı sayısı.
+     */
+    @PostMapping("/valuation/rebuild")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Integer> rebuildStockValuations(@AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(stockValuationService.rebuildValuations(authenticatedUser.getTenantId()));
+    }
+
+    /**
+     * FIFO maliyet katmanlarını ve satış maliyeti (SMM) tüketim kayıtlarını stok hareketleri geçmişinden yeniden oluşturur.
+     * Tenant'ın FIFO defterini kurar: çalıştırılana kadar SMM üretim partilerinden tahmin edilir. Sadece ADMIN erişebilir.
+     * Çalışırken tenant'ın stok işlemleri 409 ile reddedilir; devam eden işlemler bitmezse kendisi 409 döner.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Oluşturulan maliyet katmanı sayısı.
+     */
+    @PostMapping("/cost-layers/rebuild")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Integer> rebuildCostLayers(@AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(costLayerService.rebuild(authenticatedUser.getTenantId()));
+    }
+
+    /**
+     * Verilen andaki fidan + depo bazında stok miktarlarını getirir.
+     * ADMIN, WAREHOUSE_STAFF ve ACCOUNTANT rollerine sahip kullanıcılar erişebilir.
+     * @param date İstenen an (ISO formatında, ör. 2025-01-31T23:59:59).
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return O andaki stok satırları.
+     */
+    @GetMapping("/as-of")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_WAREHOUSE_STAFF', 'ROLE_ACCOUNTANT')")
+    public ResponseEntity<List<StockSnapshot.SnapshotLine>> getStockAsOf(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date,
+            @AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(stockService.getStockAsOf(authenticatedUser.getTenantId(), date));
+    }
+
+    /**
+     * Verilen gün başı için stok snapshot'ı oluşturur (zamanlanmış görevi beklemeden). Sadece ADMIN erişebilir.
+     * @param date Snapshot günü; verilmezse bugün. Gelecek tarihler ve hareketleri silinmiş günler 400 döner.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Oluşturulan snapshot; o gün için zaten varsa 204.
+     */
+    @PostMapping("/snapshots")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<StockSnapshot> createStockSnapshot(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @AuthenticationPrincipal User authenticatedUser) {
+        StockSnapshot snapshot = stockSnapshotService.createSnapshot(authenticatedUser.getTenantId(),
+                date != null ? date : LocalDate.now());
+        return snapshot != null ? ResponseEntity.ok(snapshot) : ResponseEntity.noContent().build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.fidanlik.fidanysserver.stock.controller;
+
+import com.fidanlik.fidanysserver.stock.model.StockThreshold;
+import com.fidanlik.fidanysserver.stock.service.StockThresholdService;
+import com.fidanlik.fidanysserver.user.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/stock/thresholds")
+@RequiredArgsConstructor
+public class StockThresholdController {
+
+    private final StockThresholdService stockThresholdService;
+
+    /**
+     * Tanımlı kritik stok eşiklerini listeler.
+     * ADMIN ve WAREHOUSE_STAFF rollerine sahip kullanıcılar erişebilir.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Eşik listesi.
+     */
+    @GetMapping
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_WAREHOUSE_STAFF')")
+    public ResponseEntity<List<StockThreshold>> getThresholds(@AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(stockThresholdService.getThresholds(authenticatedUser.getTenantId()));
+    }
+
+    /**
+     * Fidan, depo, fidan + depo veya tenant kapsamında kritik stok eşiği tanımlar ya da günceller.
+     * Sadece ADMIN erişebilir.
+     * @param threshold Eşik bilgileri (plantId ve warehouseId boş bırakılabilir).
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Kaydedilen eşik.
+     */
+    @PutMapping
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<StockThreshold> saveThreshold(@RequestBody StockThreshold threshold, @AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(stockThresholdService.saveThreshold(threshold, authenticatedUser.getTenantId()));
+    }
+
+    /**
+     * Bir kritik stok eşiğini siler. Sadece ADMIN erişebilir.
+     * @param id Eşik ID'si.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return HTTP 204 No Content.
+     */
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Void> deleteThreshold(@PathVariable String id, @AuthenticationPrincipal User authenticatedUser) {
+        stockThresholdService.deleteThreshold(id, authenticatedUser.getTenantId());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Tüm stok satırlarının kritik stok bayraklarını ve sayacı yeniden hesaplar. Sadece ADMIN erişebilir.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Kritik seviyedeki stok satırı sayısı.
+     */
+    @PostMapping("/recompute")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Long> recompute(@AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(stockThresholdService.recompute(authenticatedUser.getTenantId()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.fidanlik.fidanysserver.stock.controller;
+
+import com.fidanlik.fidanysserver.stock.dto.StockTransferRequest;
+import com.fidanlik.fidanysserver.stock.model.StockTransfer;
+import com.fidanlik.fidanysserver.stock.service.StockTransferService;
+import com.fidanlik.fidanysserver.user.model.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/stock/transfers")
+@RequiredArgsConstructor
+public class StockTransferController {
+
+    private final StockTransferService stockTransferService;
+
+    /**
+     * İki depo arasında transfer yapar. Aynı idempotencyKey ile tekrar gönderilen istek transferi yeniden uygulamaz.
+     * Sadece ADMIN ve WAREHOUSE_STAFF rollerine sahip kullanıcılar erişebilir.
+     * @param request Transfer isteği.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Oluşturulan (veya daha önce uygulanmış) transfer fişi.
+     */
+    @PostMapping
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_WAREHOUSE_STAFF')")
+    public ResponseEntity<StockTransfer> createTransfer(@RequestBody StockTransferRequest request, @AuthenticationPrincipal User authenticatedUser) {
+        StockTransfer transfer = stockTransferService.createTransfer(request, authenticatedUser.getId(), authenticatedUser.getTenantId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(transfer);
+    }
+
+    /**
+     * Bir tenant'a ait tüm depo transferlerini listeler.
+     * ADMIN, WAREHOUSE_STAFF ve ACCOUNTANT rollerine sahip kullanıcılar erişebilir.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Transfer listesi.
+     */
+    @GetMapping
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_WAREHOUSE_STAFF', 'ROLE_ACCOUNTANT')")
+    public ResponseEntity<List<StockTransfer>> getAllTransfers(@AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(stockTransferService.getAllTransfersByTenant(authenticatedUser.getTenantId()));
+    }
+
+    /**
+     * ID'ye göre tek bir depo transferini getirir.
+     * ADMIN, WAREHOUSE_STAFF ve ACCOUNTANT rollerine sahip kullanıcılar erişebilir.
+     * @param id Transfer ID'si.
+     * @param authenticatedUser Giriş yapmış kullanıcı.
+     * @return Transfer fişi.
+     */
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_WAREHOUSE_STAFF', 'ROLE_ACCOUNTANT')")
+    public ResponseEntity<StockTransfer> getTransferById(@PathVariable String id, @AuthenticationPrincipal User authenticatedUser) {
+        return ResponseEntity.ok(stockTransferService.getTransferById(id, authenticatedUser.getTenantId()));
+    }
+}
@@ -0,0 +1,29 @@
+package com.fidanlik.fidanysserver.stock.dto;
+
+import com.fidanlik.fidanysserver.stock.model.StockMovement;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// StockService.changeStockBatch için tek bir stok değişikliği satırı.
+// Her satır bir StockMovement kaydına ve ilgili stok miktarı güncellemesine karşılık gelir.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockChange {
+    private String plantId;
+    private String warehouseId;
+    private int quantity; // Giriş için pozitif (+), çıkış için negatif (-)
+    private StockMovement.MovementType type;
+    private String relatedDocumentId;
+    private String description;
+    private String userId;
+    private String tenantId;
+    private BigDecimal unitCost;
+    // true ise çıkış, daha önce bu miktar için yapılmış rezervasyondan düşülür (sipariş sevkiyatı)
+    private boolean fromReservation;
+}
@@ -0,0 +1,17 @@
+package com.fidanlik.fidanysserver.stock.dto;
+
+import com.fidanlik.fidanysserver.stock.model.StockMovement;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Stok hareket geçmişinin bir sayfası. nextCursor null ise başka kayıt yoktur.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementPageDTO {
+    private List<StockMovement> items;
+    private String nextCursor;
+}
@@ -0,0 +1,20 @@
+package com.fidanlik.fidanysserver.stock.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class StockTransferRequest {
+    private String sourceWarehouseId;
+    private String targetWarehouseId;
+    private String idempotencyKey; // İstemcinin ürettiği benzersiz anahtar (ör. UUID); tekrar denemelerde aynı gönderilmeli
+    private String description;
+    private List<TransferItemDto> items;
+
+    @Data
+    public static class TransferItemDto {
+        private String plantId;
+        private int quantity;
+    }
+}
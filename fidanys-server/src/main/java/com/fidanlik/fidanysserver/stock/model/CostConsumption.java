@@ -0,0 +1,56 @@
+package com.fidanlik.fidanysserver.stock.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Bir stok çıkışının (veya satış iadesinin) FIFO katmanlarından karşılanan maliyeti.
+// Satış iadelerinde miktar ve maliyet negatiftir; böylece bir dönemin SMM'si SALE + SALE_CANCEL kayıtlarının toplamıdır.
+@Data
+@Document(collection = "costConsumptions")
+@CompoundIndexes({
+        // Dönem SMM toplamı
+        @CompoundIndex(name = "tenant_type_timestamp", def = "{'tenantId': 1, 'type': 1, 'timestamp': 1}"),
+        // Satış iadesinde ilgili siparişin tüketimlerinin bulunması
+        @CompoundIndex(name = "tenant_document", def = "{'tenantId': 1, 'relatedDocumentId': 1}")
+})
+public class CostConsumption {
+    @Id
+    private String id;
+    private String plantId;
+    private String warehouseId;
+    private StockMovement.MovementType type;
+    private String relatedDocumentId;
+    private LocalDateTime timestamp;
+    private int quantity;
+    private int uncoveredQuantity; // Katmanlarla karşılanamayan miktar (maliyeti sıfır kabul edilir)
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal totalCost;
+
+    private List<Piece> pieces = new ArrayList<>();
+    private String tenantId;
+
+    // Tüketimin tek bir katmandan karşılanan kısmı
+    @Data
+    public static class Piece {
+        private String layerId;
+        private int quantity;
+
+        @Field(targetType = FieldType.DECIMAL128)
+        private BigDecimal unitCost;
+
+        private LocalDate costDate;
+        private LocalDateTime receivedAt;
+    }
+}
@@ -0,0 +1,35 @@
+package com.fidanlik.fidanysserver.stock.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// FIFO maliyet katmanı: fidan + depo bazında, belirli bir maliyetle stoğa girmiş miktar.
+// Girişler (mal kabul, transfer girişi, satış iadesi) yeni katman açar; çıkışlar en eski katmandan düşer.
+@Data
+@Document(collection = "costLayers")
+@CompoundIndex(name = "tenant_plant_warehouse_received", def = "{'tenantId': 1, 'plantId': 1, 'warehouseId': 1, 'receivedAt': 1, '_id': 1}")
+public class CostLayer {
+    @Id
+    private String id;
+    private String plantId;
+    private String warehouseId;
+    private StockMovement.MovementType sourceType;
+    private String sourceDocumentId; // Katmanı açan belge (irsaliye, transfer, sipariş)
+    private LocalDateTime receivedAt; // FIFO sırası
+    private LocalDate costDate; // Maliyetin oluştuğu gün (reel değer dönüşümü için; transferlerde korunur)
+    private int originalQuantity;
+    private int remainingQuantity;
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal unitCost;
+
+    private String tenantId;
+}
@@ -0,0 +1,21 @@
+package com.fidanlik.fidanysserver.stock.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Tenant'ın FIFO maliyet defterinin kurulduğunu gösteren işaret. Sadece CostLayerService.rebuild yazar.
+// İşaret yoksa canlı hareketler katmanlara işlenmez ve raporlar SMM'yi üretim partilerinden tahmin eder.
+@Data
+@Document(collection = "costLedgerStates")
+public class CostLedgerState {
+    @Id
+    private String id;
+    @Indexed(unique = true)
+    private String tenantId;
+    private LocalDateTime coveredFrom; // Yeniden oluşturmada işlenen ilk hareketin zamanı; öncesi katmanlarla karşılanmaz
+    private LocalDateTime initializedAt;
+}
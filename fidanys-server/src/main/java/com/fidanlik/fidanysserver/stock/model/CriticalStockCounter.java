@@ -0,0 +1,15 @@
+package com.fidanlik.fidanysserver.stock.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Tenant başına kritik seviyedeki stok satırı sayısı.
+// Yalnızca bir stok satırı eşiği aştığında (belowThreshold bayrağı değiştiğinde) güncellenir.
+@Data
+@Document(collection = "criticalStockCounters")
+public class CriticalStockCounter {
+    @Id
+    private String tenantId;
+    private long count;
+}
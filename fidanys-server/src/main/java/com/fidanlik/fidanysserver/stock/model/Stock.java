@@ -4,16 +4,27 @@ package com.fidanlik.fidanysserver.stock.model;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @Document(collection = "stocks")
-@CompoundIndex(def = "{'plantId': 1, 'warehouseId': 1, 'tenantId': 1}", unique = true)
+@CompoundIndexes({
+        @CompoundIndex(def = "{'plantId': 1, 'warehouseId': 1, 'tenantId': 1}", unique = true),
+        @CompoundIndex(name = "tenant_below_threshold", def = "{'tenantId': 1, 'belowThreshold': 1}")
+})
 public class Stock {
     @Id
     private String id;
     private String plantId;
     private String warehouseId;
     private int quantity;
+    private int reservedQuantity; // Hazırlanan (PREPARING) siparişler için ayrılmış miktar
     private String tenantId;
+    private Boolean belowThreshold; // Miktar, geçerli kritik stok eşiğinin altında mı (StockThresholdService yönetir)
+
+    // Satışa açık (taahhüt edilebilir) miktar
+    public int getAvailableQuantity() {
+        return quantity - reservedQuantity;
+    }
 }
\ No newline at end of file
@@ -2,12 +2,21 @@ package com.fidanlik.fidanysserver.stock.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.math.BigDecimal; // BigDecimal import'ını ekleyin
 import java.time.LocalDateTime;
 
 @Data
 @Document(collection = "stockMovements")
+@CompoundIndexes({
+        // Fidan ve depo bazında hareket geçmişi (keyset sayfalama: timestamp, _id azalan)
+        @CompoundIndex(name = "tenant_plant_timestamp", def = "{'tenantId': 1, 'plantId': 1, 'timestamp': -1, '_id': -1}"),
+        @CompoundIndex(name = "tenant_warehouse_timestamp", def = "{'tenantId': 1, 'warehouseId': 1, 'timestamp': -1, '_id': -1}"),
+        // Tarih aralığı taramaları (snapshot, değerleme yeniden oluşturma)
+        @CompoundIndex(name = "tenant_timestamp", def = "{'tenantId': 1, 'timestamp': 1}")
+})
 public class StockMovement {
     @Id
     private String id;
@@ -0,0 +1,35 @@
+package com.fidanlik.fidanysserver.stock.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Tenant bazında, belirli bir gün başlangıcındaki (snapshotDate 00:00) stok durumu.
+// snapshotDate'ten önceki tüm stok hareketlerinin fidan + depo bazında net toplamını tutar.
+@Data
+@Document(collection = "stockSnapshots")
+@CompoundIndex(def = "{'tenantId': 1, 'snapshotDate': -1}", unique = true)
+public class StockSnapshot {
+    @Id
+    private String id;
+    private String tenantId;
+    private LocalDate snapshotDate;
+    private List<SnapshotLine> lines;
+    private LocalDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SnapshotLine {
+        private String plantId;
+        private String warehouseId;
+        private int quantity;
+    }
+}
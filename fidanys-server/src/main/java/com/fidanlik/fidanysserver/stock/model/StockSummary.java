@@ -0,0 +1,40 @@
+package com.fidanlik.fidanysserver.stock.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Stok ekranı ve stok raporu için fidan + depo bazında denormalize okuma modeli.
+// Stok değişikliklerinde miktarı, ana veri (tür, çeşit, depo...) adları değiştiğinde adları güncellenir.
+@Data
+@Document(collection = "stockSummary")
+@CompoundIndexes({
+        @CompoundIndex(name = "tenant_plant_warehouse", def = "{'tenantId': 1, 'plantId': 1, 'warehouseId': 1}", unique = true),
+        @CompoundIndex(name = "tenant_names", def = "{'tenantId': 1, 'plantTypeName': 1, 'plantVarietyName': 1, 'warehouseName': 1}")
+})
+public class StockSummary {
+    @Id
+    private String id;
+    private String tenantId;
+    private String plantId;
+    private String warehouseId;
+    private int totalQuantity;
+
+    private String plantTypeId;
+    private String plantTypeName;
+    private String plantVarietyId;
+    private String plantVarietyName;
+    private String rootstockId;
+    private String rootstockName;
+    private String plantSizeId;
+    private String plantSizeName;
+    private String plantAgeId;
+    private String plantAgeName;
+    private String warehouseName;
+
+    private LocalDateTime updatedAt;
+}
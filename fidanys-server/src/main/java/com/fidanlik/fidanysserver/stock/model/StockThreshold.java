@@ -0,0 +1,20 @@
+package com.fidanlik.fidanysserver.stock.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Kritik stok eşiği. plantId ve warehouseId boş bırakılarak kapsam belirlenir:
+// fidan + depo > fidan > depo > tenant (ikisi de boş). Hiçbiri yoksa varsayılan eşik kullanılır.
+@Data
+@Document(collection = "stockThresholds")
+@CompoundIndex(def = "{'tenantId': 1, 'plantId': 1, 'warehouseId': 1}", unique = true)
+public class StockThreshold {
+    @Id
+    private String id;
+    private String plantId;
+    private String warehouseId;
+    private int minQuantity; // Miktar bu değerin altına düşerse stok kritik sayılır
+    private String tenantId;
+}
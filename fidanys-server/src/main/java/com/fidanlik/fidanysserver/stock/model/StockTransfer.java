@@ -0,0 +1,42 @@
+package com.fidanlik.fidanysserver.stock.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Depolar arası transfer fişi. Her satır için bir TRANSFER_OUT (kaynak) ve bir TRANSFER_IN (hedef)
+// hareketi oluşturulur; her iki hareketin relatedDocumentId değeri bu fişin ID'sidir.
+@Data
+@Document(collection = "stockTransfers")
+@CompoundIndex(def = "{'tenantId': 1, 'idempotencyKey': 1}", unique = true)
+public class StockTransfer {
+    @Id
+    private String id;
+    private String transferNumber;
+    private String sourceWarehouseId;
+    private String targetWarehouseId;
+    private List<TransferLine> lines;
+    private TransferStatus status;
+    private String idempotencyKey; // Aynı isteğin tekrar gönderilmesinde transferin iki kez uygulanmasını engeller
+    private String description;
+    private String userId;
+    private String tenantId;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+
+    public enum TransferStatus {
+        COMPLETED
+    }
+
+    @Data
+    public static class TransferLine {
+        private String plantId;
+        private int quantity;
+        private BigDecimal unitCost; // Kaynak depodaki ağırlıklı ortalama maliyet (transfer anında)
+    }
+}
@@ -0,0 +1,34 @@
+package com.fidanlik.fidanysserver.stock.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Fidan + depo bazında stok değerleme defteri.
+// Her stok hareketiyle birlikte güncellenir, ağırlıklı ortalama maliyeti tutar.
+@Data
+@Document(collection = "stockValuations")
+@CompoundIndex(def = "{'tenantId': 1, 'plantId': 1, 'warehouseId': 1}", unique = true)
+public class StockValuation {
+    @Id
+    private String id;
+    private String plantId;
+    private String warehouseId;
+    private int quantity;
+
+    // $sum ile toplanabilmesi için Decimal128 olarak saklanır (varsayılan String dönüşümü yerine)
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal averageUnitCost; // Ağırlıklı ortalama birim maliyet
+
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal totalValue; // quantity * averageUnitCost
+
+    private LocalDateTime lastMovementAt;
+    private String tenantId;
+}
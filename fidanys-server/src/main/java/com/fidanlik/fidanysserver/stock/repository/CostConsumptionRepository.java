@@ -0,0 +1,8 @@
+package com.fidanlik.fidanysserver.stock.repository;
+
+import com.fidanlik.fidanysserver.stock.model.CostConsumption;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface CostConsumptionRepository extends MongoRepository<CostConsumption, String> {
+    void deleteAllByTenantId(String tenantId);
+}
@@ -0,0 +1,8 @@
+package com.fidanlik.fidanysserver.stock.repository;
+
+import com.fidanlik.fidanysserver.stock.model.CostLayer;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface CostLayerRepository extends MongoRepository<CostLayer, String> {
+    void deleteAllByTenantId(String tenantId);
+}
@@ -0,0 +1,10 @@
+package com.fidanlik.fidanysserver.stock.repository;
+
+import com.fidanlik.fidanysserver.stock.model.CostLedgerState;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+public interface CostLedgerStateRepository extends MongoRepository<CostLedgerState, String> {
+    Optional<CostLedgerState> findByTenantId(String tenantId);
+}
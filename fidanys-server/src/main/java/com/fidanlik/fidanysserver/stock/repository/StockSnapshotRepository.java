@@ -0,0 +1,12 @@
+package com.fidanlik.fidanysserver.stock.repository;
+
+import com.fidanlik.fidanysserver.stock.model.StockSnapshot;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface StockSnapshotRepository extends MongoRepository<StockSnapshot, String> {
+    Optional<StockSnapshot> findFirstByTenantIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(String tenantId, LocalDate date);
+    boolean existsByTenantIdAndSnapshotDate(String tenantId, LocalDate snapshotDate);
+}
@@ -0,0 +1,12 @@
+package com.fidanlik.fidanysserver.stock.repository;
+
+import com.fidanlik.fidanysserver.stock.model.StockThreshold;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface StockThresholdRepository extends MongoRepository<StockThreshold, String> {
+    List<StockThreshold> findAllByTenantId(String tenantId);
+    Optional<StockThreshold> findByTenantIdAndPlantIdAndWarehouseId(String tenantId, String plantId, String warehouseId);
+}
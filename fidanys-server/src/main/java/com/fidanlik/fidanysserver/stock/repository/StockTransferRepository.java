@@ -0,0 +1,12 @@
+package com.fidanlik.fidanysserver.stock.repository;
+
+import com.fidanlik.fidanysserver.stock.model.StockTransfer;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface StockTransferRepository extends MongoRepository<StockTransfer, String> {
+    Optional<StockTransfer> findByTenantIdAndIdempotencyKey(String tenantId, String idempotencyKey);
+    List<StockTransfer> findAllByTenantIdOrderByCreatedAtDesc(String tenantId);
+}
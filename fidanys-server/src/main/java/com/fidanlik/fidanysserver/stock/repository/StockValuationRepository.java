@@ -0,0 +1,12 @@
+package com.fidanlik.fidanysserver.stock.repository;
+
+import com.fidanlik.fidanysserver.stock.model.StockValuation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface StockValuationRepository extends MongoRepository<StockValuation, String> {
+    Optional<StockValuation> findByTenantIdAndPlantIdAndWarehouseId(String tenantId, String plantId, String warehouseId);
+    List<StockValuation> findAllByTenantId(String tenantId);
+}
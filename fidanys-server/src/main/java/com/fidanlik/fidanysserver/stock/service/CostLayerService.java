@@ -0,0 +1,607 @@
+package com.fidanlik.fidanysserver.stock.service;
+
+import com.fidanlik.fidanysserver.stock.model.CostConsumption;
+import com.fidanlik.fidanysserver.stock.model.CostLayer;
+import com.fidanlik.fidanysserver.stock.model.CostLedgerState;
+import com.fidanlik.fidanysserver.stock.model.StockMovement;
+import com.fidanlik.fidanysserver.stock.repository.CostConsumptionRepository;
+import com.fidanlik.fidanysserver.stock.repository.CostLayerRepository;
+import com.fidanlik.fidanysserver.stock.repository.CostLedgerStateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.unwind;
+
+/**
+ * FIFO maliyet katmanları.
+ * Girişler (GOODS_RECEIPT, TRANSFER_IN, SALE_CANCEL) birim maliyetleriyle yeni katman açar,
+ * çıkışlar (SALE, WASTAGE, TRANSFER_OUT, GOODS_RECEIPT_CANCEL) en eski katmandan başlayarak düşer.
+ * Her çıkışın karşılandığı maliyet costConsumptions koleksiyonuna yazılır; dönem SMM'si bu kayıtların indeksli toplamıdır.
+ * Defter tenant bazında ancak rebuild ile kurulur (costLedgerStates); kurulmamış tenant'ların hareketleri katmanlara işlenmez.
+ * Rebuild sırasında tenant'ın stok yazmaları 409 ile reddedilir (tenant bazında okuma/yazma kilidi, sunucu örneği içinde).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CostLayerService {
+
+    // Eşzamanlı bir çıkış aynı katmanı tükettiğinde katmanlar en fazla bu kadar yeniden okunur
+    private static final int MAX_CONSUME_ATTEMPTS = 5;
+    // Rebuild, devam eden stok işlemlerinin bitmesini en fazla bu kadar bekler
+    private static final long REBUILD_LOCK_TIMEOUT_SECONDS = 30;
+
+    private final CostLayerRepository costLayerRepository;
+    private final CostConsumptionRepository costConsumptionRepository;
+    private final CostLedgerStateRepository costLedgerStateRepository;
+    private final MongoTemplate mongoTemplate;
+
+    // Defteri kurulmuş tenant'lar (işaret bir kez yazıldıktan sonra kalkmadığından sadece olumlu sonuç tutulur)
+    private final Set<String> initializedTenants = ConcurrentHashMap.newKeySet();
+    // Stok yazmaları okuma kilidini işlem bitene kadar tutar, rebuild yazma kilidini alır (adil sıralama: bekleyen rebuild
+    // varken yeni yazmalar reddedilir, böylece rebuild sürekli yük altında da kilidi alabilir)
+    private final Map<String, ReentrantReadWriteLock> ledgerLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Toplu stok değişikliğinin hareketlerini katmanlara işler (StockService.changeStockBatch içinden).
+     * Katmandan düşüş, StockService'teki gibi koşullu (remainingQuantity >= n) atomik güncelleme ile yapılır.
+     * Defteri kurulmamış tenant'ta hiçbir şey yapılmaz: açılış stoğunun katmanı olmadığından çıkışlar sıfır maliyetle
+     * kaydedilirdi. Bu hareketler ileride rebuild ile geçmişten işlenir.
+     * Tenant'ın okuma kilidi çağıranın işlemi (transaction) bitene kadar tutulur; böylece rebuild, hareketleri henüz
+     * commit edilmemiş bir stok işlemiyle çakışmaz. Rebuild sürerken çağrı 409 ile reddedilir ve işlem geri alınır.
+     */
+    public void applyMovements(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        String tenantId = movements.get(0).getTenantId();
+        Lock lock = acquireStockWriteLock(tenantId);
+        boolean releaseAfterCompletion = TransactionSynchronizationManager.isSynchronizationActive();
+        if (releaseAfterCompletion) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    lock.unlock();
+                }
+            });
+        }
+        try {
+            if (!isInitialized(tenantId)) {
+                return;
+            }
+            MongoLedger ledger = new MongoLedger();
+            movements.forEach(ledger::apply);
+            ledger.flush();
+        } finally {
+            if (!releaseAfterCompletion) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Katmanları ve tüketim kayıtlarını stockMovements geçmişinden baştan oluşturur.
+     * Hareketler zaman sırasıyla okunur ve canlı güncellemeyle aynı kurallarla bellekte işlenir.
+     * Sonunda tenant'ın defteri kurulmuş olarak işaretlenir; işlenen ilk hareketten itibaren SMM katmanlardan okunur.
+     * Tenant'ın yazma kilidi alınır: devam eden stok işlemleri bitene kadar beklenir ve rebuild bitene kadar yeni
+     * stok işlemleri reddedilir. Böylece okunan geçmiş ile silinip yeniden yazılan katmanlar arasında hareket kaybolmaz.
+     * @return Oluşturulan katman sayısı.
+     */
+    public int rebuild(String tenantId) {
+        Lock lock = ledgerLock(tenantId).writeLock();
+        try {
+            if (!lock.tryLock(REBUILD_LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Devam eden stok işlemleri bitmediği için maliyet katmanları yeniden oluşturulamadı. Lütfen tekrar deneyin.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Maliyet katmanlarının yeniden oluşturulması kesildi.");
+        }
+        try {
+            return rebuildLocked(tenantId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int rebuildLocked(String tenantId) {
+        log.info("FIFO maliyet katmanları yeniden oluşturuluyor. Tenant: {}", tenantId);
+
+        InMemoryLedger ledger = new InMemoryLedger();
+        LocalDateTime rebuiltAt = LocalDateTime.now();
+        LocalDateTime[] firstMovementAt = new LocalDateTime[1];
+        Query query = new Query(Criteria.where("tenantId").is(tenantId))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp", "_id"));
+        try (Stream<StockMovement> movements = mongoTemplate.stream(query, StockMovement.class)) {
+            movements.forEach(movement -> {
+                if (firstMovementAt[0] == null) {
+                    firstMovementAt[0] = movement.getTimestamp();
+                }
+                ledger.apply(movement);
+            });
+        }
+
+        costLayerRepository.deleteAllByTenantId(tenantId);
+        costConsumptionRepository.deleteAllByTenantId(tenantId);
+        insertAll(ledger.layers, CostLayer.class);
+        insertAll(ledger.consumptions, CostConsumption.class);
+
+        // Hareket saklama süresiyle eski hareketler silinmişse, ilk hareketten önceki satışlar tahminle raporlanır
+        CostLedgerState state = costLedgerStateRepository.findByTenantId(tenantId).orElseGet(CostLedgerState::new);
+        state.setTenantId(tenantId);
+        state.setCoveredFrom(firstMovementAt[0] != null ? firstMovementAt[0] : rebuiltAt);
+        state.setInitializedAt(rebuiltAt);
+        costLedgerStateRepository.save(state);
+        initializedTenants.add(tenantId);
+
+        log.info("FIFO maliyet katmanları yeniden oluşturuldu. Katman: {}, Tüketim: {}", ledger.layers.size(), ledger.consumptions.size());
+        return ledger.layers.size();
+    }
+
+    /**
+     * FIFO defterinin karşıladığı ilk gün. Bu günden itibaren satışların maliyeti katmanlardan okunabilir;
+     * öncesi (veya defter hiç kurulmadıysa tüm dönem) için raporlar üretim partisi tahminini kullanır.
+     */
+    public Optional<LocalDate> getCoveredFrom(String tenantId) {
+        return costLedgerStateRepository.findByTenantId(tenantId)
+                .map(state -> state.getCoveredFrom().toLocalDate());
+    }
+
+    private ReentrantReadWriteLock ledgerLock(String tenantId) {
+        return ledgerLocks.computeIfAbsent(tenantId, k -> new ReentrantReadWriteLock(true));
+    }
+
+    // Stok yazması için okuma kilidi; rebuild sürüyor veya bekliyorsa beklemeden reddedilir
+    private Lock acquireStockWriteLock(String tenantId) {
+        Lock lock = ledgerLock(tenantId).readLock();
+        try {
+            // Süreli tryLock adil sıralamaya uyar (süresiz tryLock bekleyen rebuild'in önüne geçerdi)
+            if (lock.tryLock(0, TimeUnit.MILLISECONDS)) {
+                return lock;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT,
+                "Maliyet katmanları yeniden oluşturuluyor, stok işlemi şu anda yapılamıyor. Lütfen tekrar deneyin.");
+    }
+
+    private boolean isInitialized(String tenantId) {
+        if (initializedTenants.contains(tenantId)) {
+            return true;
+        }
+        boolean initialized = costLedgerStateRepository.findByTenantId(tenantId).isPresent();
+        if (initialized) {
+            initializedTenants.add(tenantId);
+        }
+        return initialized;
+    }
+
+    /**
+     * Tarih aralığındaki satışların FIFO maliyeti (SALE - SALE_CANCEL), maliyetin oluştuğu güne göre gruplanmış.
+     * Gün bazında döndürülmesi reel değer dönüşümünün maliyet tarihine göre yapılabilmesi içindir.
+     */
+    public Map<LocalDate, BigDecimal> getCostOfGoodsSoldByCostDate(String tenantId, LocalDate startDate, LocalDate endDate) {
+        Aggregation aggregation = newAggregation(
+                match(Criteria.where("tenantId").is(tenantId)
+                        .and("type").in(StockMovement.MovementType.SALE, StockMovement.MovementType.SALE_CANCEL)
+                        .and("timestamp").gte(startDate.atStartOfDay()).lt(endDate.plusDays(1).atStartOfDay())),
+                unwind("pieces"),
+                project()
+                        .and("pieces.costDate").as("costDate")
+                        .and(ArithmeticOperators.Multiply.valueOf("pieces.quantity").multiplyBy("pieces.unitCost")).as("cost"),
+                group("costDate").sum("cost").as("cost")
+        );
+
+        Map<LocalDate, BigDecimal> totals = new TreeMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, CostConsumption.class, Document.class).getMappedResults()) {
+            LocalDate costDate = toLocalDate(row.get("_id"));
+            if (costDate != null) {
+                totals.merge(costDate, toBigDecimal(row.get("cost")), BigDecimal::add);
+            }
+        }
+        return totals;
+    }
+
+    // --- Yardımcı Metotlar ---
+
+    private <T> void insertAll(List<T> documents, Class<T> type) {
+        if (!documents.isEmpty()) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type).insert(documents).execute();
+        }
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof Date date) {
+            return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        }
+        return value instanceof LocalDate localDate ? localDate : null;
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        if (value instanceof Number number) {
+            return new BigDecimal(number.toString());
+        }
+        return BigDecimal.ZERO;
+    }
+
+    private static String key(String... parts) {
+        return String.join("|", parts);
+    }
+
+    /**
+     * Hareket işleme kuralları. Katmanların nereden okunup nereye yazıldığı alt sınıflara bırakılır:
+     * canlı güncellemede MongoDB, yeniden oluşturmada bellek.
+     */
+    abstract static class Ledger {
+
+        // Aynı transferin çıkışında tüketilen parçalar, girişte hedef depoda aynı maliyetle katman olarak açılır
+        private final Map<String, List<CostConsumption.Piece>> transferPieces = new HashMap<>();
+        // Siparişin henüz iade edilmemiş satış parçaları (sipariş + fidan + depo)
+        private final Map<String, List<CostConsumption.Piece>> returnablePieces = new HashMap<>();
+
+        // FIFO sırasıyla, kalan miktarı olan katmanlar
+        protected abstract List<CostLayer> openLayers(String tenantId, String plantId, String warehouseId);
+
+        // Katmandan atomik olarak düşer; katman bu arada tükendiyse false döner
+        protected abstract boolean take(CostLayer layer, int quantity);
+
+        protected abstract void addLayer(CostLayer layer);
+
+        protected abstract void addConsumption(CostConsumption consumption);
+
+        // Siparişin daha önce kaydedilmiş SALE ve SALE_CANCEL tüketimleri
+        protected abstract List<CostConsumption> previousSaleConsumptions(String tenantId, String orderId, String plantId, String warehouseId);
+
+        void apply(StockMovement movement) {
+            if (movement.getQuantity() == 0 || movement.getType() == null) {
+                return;
+            }
+            switch (movement.getType()) {
+                case SALE_CANCEL -> restoreSale(movement);
+                case TRANSFER_IN -> receiveTransfer(movement);
+                case TRANSFER_OUT -> transferPieces
+                        .computeIfAbsent(transferKey(movement), k -> new ArrayList<>())
+                        .addAll(copy(consume(movement, null).getPieces()));
+                case GOODS_RECEIPT_CANCEL -> consume(movement, movement.getRelatedDocumentId());
+                case SALE -> returnablePieces
+                        .computeIfAbsent(orderKey(movement), k -> new ArrayList<>())
+                        .addAll(copy(consume(movement, null).getPieces()));
+                default -> {
+                    if (movement.getQuantity() > 0) {
+                        addLayer(newLayer(movement, movement.getQuantity(), movement.getUnitCost(),
+                                movement.getTimestamp().toLocalDate(), movement.getTimestamp()));
+                    } else {
+                        consume(movement, null);
+                    }
+                }
+            }
+        }
+
+        // Çıkış: önce (varsa) tercih edilen belgenin katmanlarından, sonra en eski katmandan düşer
+        private CostConsumption consume(StockMovement movement, String preferredDocumentId) {
+            int needed = -movement.getQuantity();
+            List<CostConsumption.Piece> pieces = new ArrayList<>();
+            for (int attempt = 0; attempt < MAX_CONSUME_ATTEMPTS && needed > 0; attempt++) {
+                List<CostLayer> layers = new ArrayList<>(openLayers(movement.getTenantId(), movement.getPlantId(), movement.getWarehouseId()));
+                if (preferredDocumentId != null) {
+                    layers.sort(Comparator.comparing(layer -> !preferredDocumentId.equals(layer.getSourceDocumentId())));
+                }
+                boolean conflict = false;
+                for (CostLayer layer : layers) {
+                    int quantity = Math.min(needed, layer.getRemainingQuantity());
+                    if (quantity <= 0) {
+                        continue;
+                    }
+                    if (!take(layer, quantity)) {
+                        conflict = true;
+                        break;
+                    }
+                    pieces.add(piece(layer.getId(), quantity, layer.getUnitCost(), layer.getCostDate(), layer.getReceivedAt()));
+                    needed -= quantity;
+                    if (needed == 0) {
+                        break;
+                    }
+                }
+                if (!conflict) {
+                    break;
+                }
+            }
+            if (needed > 0) {
+                log.warn("FIFO katmanları çıkışı karşılamıyor, {} adet sıfır maliyetle kaydedildi. Fidan: {}, Depo: {}, Hareket: {}",
+                        needed, movement.getPlantId(), movement.getWarehouseId(), movement.getType());
+            }
+            CostConsumption consumption = newConsumption(movement, pieces, needed);
+            addConsumption(consumption);
+            return consumption;
+        }
+
+        // Satış iadesi: siparişin tükettiği parçalar aynı maliyet ve FIFO konumuyla yeni katman olarak geri açılır
+        private void restoreSale(StockMovement movement) {
+            List<CostConsumption.Piece> available = returnablePieces.computeIfAbsent(orderKey(movement), k -> loadReturnablePieces(movement));
+            List<CostConsumption.Piece> restored = new ArrayList<>();
+            int remaining = movement.getQuantity();
+            while (remaining > 0 && !available.isEmpty()) {
+                CostConsumption.Piece source = available.get(0);
+                int quantity = Math.min(remaining, source.getQuantity());
+                CostLayer layer = newLayer(movement, quantity, source.getUnitCost(), source.getCostDate(), source.getReceivedAt());
+                addLayer(layer);
+                restored.add(piece(layer.getId(), -quantity, source.getUnitCost(), source.getCostDate(), source.getReceivedAt()));
+                remaining -= quantity;
+                if (quantity == source.getQuantity()) {
+                    available.remove(0);
+                } else {
+                    source.setQuantity(source.getQuantity() - quantity);
+                }
+            }
+            if (remaining > 0) {
+                // Satışın tüketim kaydı yoksa (katmanlar kurulmadan önceki satış) iade hareketin maliyetiyle açılır
+                addLayer(newLayer(movement, remaining, movement.getUnitCost(), movement.getTimestamp().toLocalDate(), movement.getTimestamp()));
+            }
+            addConsumption(newConsumption(movement, restored, 0));
+        }
+
+        private void receiveTransfer(StockMovement movement) {
+            List<CostConsumption.Piece> available = transferPieces.computeIfAbsent(transferKey(movement), k -> new ArrayList<>());
+            int remaining = movement.getQuantity();
+            while (remaining > 0 && !available.isEmpty()) {
+                CostConsumption.Piece source = available.get(0);
+                int quantity = Math.min(remaining, source.getQuantity());
+                addLayer(newLayer(movement, quantity, source.getUnitCost(), source.getCostDate(), source.getReceivedAt()));
+                remaining -= quantity;
+                if (quantity == source.getQuantity()) {
+                    available.remove(0);
+                } else {
+                    source.setQuantity(source.getQuantity() - quantity);
+                }
+            }
+            if (remaining > 0) {
+                addLayer(newLayer(movement, remaining, movement.getUnitCost(), movement.getTimestamp().toLocalDate(), movement.getTimestamp()));
+            }
+        }
+
+        // Önceki satış parçalarından, daha önce iade edilmiş miktar düşülerek kalanlar
+        private List<CostConsumption.Piece> loadReturnablePieces(StockMovement movement) {
+            List<CostConsumption> previous = previousSaleConsumptions(
+                    movement.getTenantId(), movement.getRelatedDocumentId(), movement.getPlantId(), movement.getWarehouseId());
+            List<CostConsumption.Piece> pieces = new ArrayList<>();
+            int alreadyReturned = 0;
+            for (CostConsumption consumption : previous) {
+                if (consumption.getType() == StockMovement.MovementType.SALE) {
+                    pieces.addAll(copy(consumption.getPieces()));
+                } else {
+                    alreadyReturned -= consumption.getPieces().stream().mapToInt(CostConsumption.Piece::getQuantity).sum();
+                }
+            }
+            while (alreadyReturned > 0 && !pieces.isEmpty()) {
+                CostConsumption.Piece first = pieces.get(0);
+                int quantity = Math.min(alreadyReturned, first.getQuantity());
+                alreadyReturned -= quantity;
+                if (quantity == first.getQuantity()) {
+                    pieces.remove(0);
+                } else {
+                    first.setQuantity(first.getQuantity() - quantity);
+                }
+            }
+            return pieces;
+        }
+
+        private static CostLayer newLayer(StockMovement movement, int quantity, BigDecimal unitCost, LocalDate costDate, LocalDateTime receivedAt) {
+            CostLayer layer = new CostLayer();
+            // Kimlik önceden atanır; tüketim parçaları katmana kaydedilmeden önce referans verebilir
+            layer.setId(new ObjectId().toHexString());
+            layer.setTenantId(movement.getTenantId());
+            layer.setPlantId(movement.getPlantId());
+            layer.setWarehouseId(movement.getWarehouseId());
+            layer.setSourceType(movement.getType());
+            layer.setSourceDocumentId(movement.getRelatedDocumentId());
+            layer.setReceivedAt(receivedAt);
+            layer.setCostDate(costDate);
+            layer.setOriginalQuantity(quantity);
+            layer.setRemainingQuantity(quantity);
+            layer.setUnitCost(unitCost != null ? unitCost : BigDecimal.ZERO);
+            return layer;
+        }
+
+        private static CostConsumption newConsumption(StockMovement movement, List<CostConsumption.Piece> pieces, int uncoveredQuantity) {
+            CostConsumption consumption = new CostConsumption();
+            consumption.setTenantId(movement.getTenantId());
+            consumption.setPlantId(movement.getPlantId());
+            consumption.setWarehouseId(movement.getWarehouseId());
+            consumption.setType(movement.getType());
+            consumption.setRelatedDocumentId(movement.getRelatedDocumentId());
+            consumption.setTimestamp(movement.getTimestamp());
+            consumption.setPieces(pieces);
+            consumption.setUncoveredQuantity(uncoveredQuantity);
+            consumption.setQuantity(pieces.stream().mapToInt(CostConsumption.Piece::getQuantity).sum() + uncoveredQuantity);
+            consumption.setTotalCost(pieces.stream()
+                    .map(p -> p.getUnitCost().multiply(BigDecimal.valueOf(p.getQuantity())))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add));
+            return consumption;
+        }
+
+        private static CostConsumption.Piece piece(String layerId, int quantity, BigDecimal unitCost, LocalDate costDate, LocalDateTime receivedAt) {
+            CostConsumption.Piece piece = new CostConsumption.Piece();
+            piece.setLayerId(layerId);
+            piece.setQuantity(quantity);
+            piece.setUnitCost(unitCost);
+            piece.setCostDate(costDate);
+            piece.setReceivedAt(receivedAt);
+            return piece;
+        }
+
+        // Eşleştirme sırasında miktarları azaltılan parçalar, kaydedilen tüketimden bağımsız kopyalardır
+        private static List<CostConsumption.Piece> copy(List<CostConsumption.Piece> pieces) {
+            return pieces.stream()
+                    .map(p -> piece(p.getLayerId(), p.getQuantity(), p.getUnitCost(), p.getCostDate(), p.getReceivedAt()))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+
+        private static String transferKey(StockMovement movement) {
+            return key(movement.getTenantId(), movement.getRelatedDocumentId(), movement.getPlantId());
+        }
+
+        private static String orderKey(StockMovement movement) {
+            return key(movement.getTenantId(), movement.getRelatedDocumentId(), movement.getPlantId(), movement.getWarehouseId());
+        }
+    }
+
+    // Canlı güncelleme: katmanlar MongoDB'den okunur, düşüşler koşullu $inc ile yapılır, yeni kayıtlar sonda toplu yazılır
+    private class MongoLedger extends Ledger {
+        private final List<CostLayer> newLayers = new ArrayList<>();
+        private final List<CostConsumption> newConsumptions = new ArrayList<>();
+
+        @Override
+        protected List<CostLayer> openLayers(String tenantId, String plantId, String warehouseId) {
+            Query query = new Query(Criteria.where("tenantId").is(tenantId)
+                    .and("plantId").is(plantId)
+                    .and("warehouseId").is(warehouseId)
+                    .and("remainingQuantity").gt(0))
+                    .with(Sort.by(Sort.Direction.ASC, "receivedAt", "_id"));
+            List<CostLayer> layers = new ArrayList<>(mongoTemplate.find(query, CostLayer.class));
+            // Bu çağrıda açılmış ama henüz yazılmamış katmanlar (aynı toplu işlemde giriş + çıkış)
+            newLayers.stream()
+                    .filter(layer -> layer.getRemainingQuantity() > 0
+                            && layer.getTenantId().equals(tenantId)
+                            && layer.getPlantId().equals(plantId)
+                            && layer.getWarehouseId().equals(warehouseId))
+                    .forEach(layers::add);
+            layers.sort(Comparator.comparing(CostLayer::getReceivedAt).thenComparing(CostLayer::getId));
+            return layers;
+        }
+
+        @Override
+        protected boolean take(CostLayer layer, int quantity) {
+            if (newLayers.stream().anyMatch(pending -> pending == layer)) {
+                layer.setRemainingQuantity(layer.getRemainingQuantity() - quantity);
+                return true;
+            }
+            Query guarded = new Query(Criteria.where("_id").is(layer.getId()).and("remainingQuantity").gte(quantity));
+            boolean updated = mongoTemplate.updateFirst(guarded, new Update().inc("remainingQuantity", -quantity), CostLayer.class)
+                    .getModifiedCount() > 0;
+            if (updated) {
+                layer.setRemainingQuantity(layer.getRemainingQuantity() - quantity);
+            }
+            return updated;
+        }
+
+        @Override
+        protected void addLayer(CostLayer layer) {
+            newLayers.add(layer);
+        }
+
+        @Override
+        protected void addConsumption(CostConsumption consumption) {
+            newConsumptions.add(consumption);
+        }
+
+        @Override
+        protected List<CostConsumption> previousSaleConsumptions(String tenantId, String orderId, String plantId, String warehouseId) {
+            Query query = new Query(Criteria.where("tenantId").is(tenantId)
+                    .and("relatedDocumentId").is(orderId)
+                    .and("plantId").is(plantId)
+                    .and("warehouseId").is(warehouseId)
+                    .and("type").in(StockMovement.MovementType.SALE, StockMovement.MovementType.SALE_CANCEL))
+                    .with(Sort.by(Sort.Direction.ASC, "timestamp", "_id"));
+            return mongoTemplate.find(query, CostConsumption.class);
+        }
+
+        void flush() {
+            insertAll(newLayers, CostLayer.class);
+            insertAll(newConsumptions, CostConsumption.class);
+        }
+    }
+
+    // Yeniden oluşturma: tüm katmanlar bellekte tutulur, sonunda toplu yazılır (veritabanı gerektirmediğinden birim testlerde de kullanılır)
+    static class InMemoryLedger extends Ledger {
+        final List<CostLayer> layers = new ArrayList<>();
+        final List<CostConsumption> consumptions = new ArrayList<>();
+        private final Map<String, List<CostLayer>> layersByKey = new LinkedHashMap<>();
+
+        @Override
+        protected List<CostLayer> openLayers(String tenantId, String plantId, String warehouseId) {
+            List<CostLayer> keyLayers = layersByKey.get(key(tenantId, plantId, warehouseId));
+            if (keyLayers == null) {
+                return List.of();
+            }
+            keyLayers.removeIf(layer -> layer.getRemainingQuantity() <= 0);
+            return keyLayers;
+        }
+
+        @Override
+        protected boolean take(CostLayer layer, int quantity) {
+            layer.setRemainingQuantity(layer.getRemainingQuantity() - quantity);
+            return true;
+        }
+
+        @Override
+        protected void addLayer(CostLayer layer) {
+            layers.add(layer);
+            List<CostLayer> keyLayers = layersByKey.computeIfAbsent(
+                    key(layer.getTenantId(), layer.getPlantId(), layer.getWarehouseId()), k -> new ArrayList<>());
+            keyLayers.add(layer);
+            // İadeler orijinal giriş zamanıyla açıldığından FIFO sırası korunur
+            keyLayers.sort(Comparator.comparing(CostLayer::getReceivedAt));
+        }
+
+        @Override
+        protected void addConsumption(CostConsumption consumption) {
+            consumptions.add(consumption);
+        }
+
+        @Override
+        protected List<CostConsumption> previousSaleConsumptions(String tenantId, String orderId, String plantId, String warehouseId) {
+            return consumptions.stream()
+                    .filter(c -> (c.getType() == StockMovement.MovementType.SALE || c.getType() == StockMovement.MovementType.SALE_CANCEL)
+                            && tenantId.equals(c.getTenantId())
+                            && orderId != null && orderId.equals(c.getRelatedDocumentId())
+                            && plantId.equals(c.getPlantId())
+                            && warehouseId.equals(c.getWarehouseId()))
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -1,71 +1,350 @@
 package com.fidanlik.fidanysserver.stock.service; // BU SATIRIN OLDUĞUNDAN EMİN OLUN
 
+import com.fidanlik.fidanysserver.common.event.DomainEvent;
 import com.fidanlik.fidanysserver.common.exception.InsufficientStockException;
+import com.fidanlik.fidanysserver.stock.dto.StockChange;
+import com.fidanlik.fidanysserver.stock.dto.StockMovementPageDTO;
 import com.fidanlik.fidanysserver.stock.dto.StockSummaryDTO;
 import com.fidanlik.fidanysserver.stock.model.Stock;
 import com.fidanlik.fidanysserver.stock.model.StockMovement;
+import com.fidanlik.fidanysserver.stock.model.StockSnapshot;
+import com.fidanlik.fidanysserver.stock.model.StockSummary;
 import com.fidanlik.fidanysserver.stock.repository.StockMovementRepository;
 import com.fidanlik.fidanysserver.stock.repository.StockRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.aggregation.Aggregation;
-import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal; // BigDecimal import'ını ekleyin
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
-import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
-import static org.springframework.data.mongodb.core.aggregation.LookupOperation.newLookup;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class StockService {
 
     private final StockRepository stockRepository;
     private final StockMovementRepository stockMovementRepository;
+    private final StockValuationService stockValuationService;
+    private final CostLayerService costLayerService;
+    private final StockSnapshotService stockSnapshotService;
+    private final StockSummaryService stockSummaryService;
+    private final StockThresholdService stockThresholdService;
+    private final StockWriteCoalescer stockWriteCoalescer;
     private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public void changeStock(String plantId, String warehouseId, int quantity, StockMovement.MovementType type, String relatedDocumentId, String description, String userId, String tenantId, BigDecimal unitCost) { // Yeni: unitCost parametresi eklendi
+        changeStockBatch(List.of(StockChange.builder()
+                .plantId(plantId)
+                .warehouseId(warehouseId)
+                .quantity(quantity)
+                .type(type)
+                .relatedDocumentId(relatedDocumentId)
+                .description(description)
+                .userId(userId)
+                .tenantId(tenantId)
+                .unitCost(unitCost)
+                .build()));
+    }
 
-        if (quantity < 0) {
-            Stock currentStock = stockRepository.findByPlantIdAndWarehouseIdAndTenantId(plantId, warehouseId, tenantId)
-                    .orElse(null);
+    /**
+     * Çok satırlı stok değişikliklerini toplu olarak uygular.
+     * Çıkışlar, fidan/depo başına tek bir koşullu findAndModify ile yapılır (miktar yeterliyse düş);
+     * böylece oku-kontrol et-yaz döngüsü olmadan eşzamanlı sevkiyatlar stoğu eksiye düşüremez.
+     * Hareketler tek bir bulk insert ile, girişler tek bir sırasız (unordered) bulk upsert ile yazılır.
+     */
+    @Transactional
+    public void changeStockBatch(List<StockChange> changes) {
+        if (changes == null || changes.isEmpty()) {
+            return;
+        }
 
-            if (currentStock == null || currentStock.getQuantity() < Math.abs(quantity)) {
-                throw new InsufficientStockException("Yetersiz stok. İstenen: " + Math.abs(quantity) + ", Mevcut: " + (currentStock != null ? currentStock.getQuantity() : 0));
+        // Aynı fidan/depo için gelen satırları net miktarda birleştir.
+        // Rezervasyondan düşülen miktarlar ayrıca toplanır (sipariş sevkiyatı).
+        Map<StockKey, Integer> netChanges = new LinkedHashMap<>();
+        Map<StockKey, Integer> reservedConsumptions = new LinkedHashMap<>();
+        for (StockChange change : changes) {
+            StockKey key = StockKey.of(change);
+            netChanges.merge(key, change.getQuantity(), Integer::sum);
+            if (change.isFromReservation() && change.getQuantity() < 0) {
+                reservedConsumptions.merge(key, -change.getQuantity(), Integer::sum);
             }
         }
 
-        StockMovement movement = new StockMovement();
-        movement.setPlantId(plantId);
-        movement.setWarehouseId(warehouseId);
-        movement.setQuantity(quantity);
-        movement.setType(type);
-        movement.setRelatedDocumentId(relatedDocumentId);
-        movement.setDescription(description);
-        movement.setUserId(userId);
-        movement.setTimestamp(LocalDateTime.now());
-        movement.setTenantId(tenantId);
-        movement.setUnitCost(unitCost); // YENİ: unitCost'u StockMovement'a set edin
-        stockMovementRepository.save(movement);
+        // İsteğe bağlı (varsayılan kapalı) yazma birleştirme: rezervasyon içermeyen satırlar StockWriteCoalescer üzerinden,
+        // bu işlemin (transaction) dışında yazılır; geri alma telafi ile yapılır (bkz. applyCoalesced)
+        Map<StockKey, Integer> coalesced = stockWriteCoalescer.isEnabled()
+                ? extractCoalescable(netChanges, reservedConsumptions)
+                : Map.of();
+        applyCoalesced(coalesced);
+        try {
+            applyGuardedDecrements(netChanges, reservedConsumptions);
+        } catch (InsufficientStockException e) {
+            revertCoalesced(coalesced);
+            throw e;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<StockMovement> movements = changes.stream()
+                .map(change -> toMovement(change, now))
+                .collect(Collectors.toList());
+
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, StockMovement.class)
+                .insert(movements)
+                .execute();
+
+        BulkOperations stockUpdates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Stock.class);
+        boolean hasIncrements = false;
+        for (Map.Entry<StockKey, Integer> entry : netChanges.entrySet()) {
+            if (entry.getValue() > 0) {
+                Update update = new Update().inc("quantity", entry.getValue());
+                int reserved = reservedConsumptions.getOrDefault(entry.getKey(), 0);
+                if (reserved > 0) {
+                    update.inc("reservedQuantity", -reserved);
+                }
+                stockUpdates.upsert(entry.getKey().toQuery(), update);
+                hasIncrements = true;
+            }
+        }
+        if (hasIncrements) {
+            stockUpdates.execute();
+        }
+
+        // Değerleme defterini (ağırlıklı ortalama maliyet), FIFO maliyet katmanlarını ve stok özet tablosunu aynı işlem içinde güncelle
+        stockValuationService.applyMovements(movements);
+        costLayerService.applyMovements(movements);
+        stockSummaryService.applyChanges(changes);
+        // Kritik stok eşiğini aşan satırların bayrağını ve tenant sayacını güncelle
+        stockThresholdService.applyCrossings(changes);
+
+        changes.stream()
+                .map(StockChange::getTenantId)
+                .distinct()
+                .forEach(tenantId -> eventPublisher.publishEvent(new DomainEvent(tenantId, DomainEvent.Type.STOCK_CHANGED)));
+    }
+
+    /**
+     * Sipariş kalemleri için stok rezerve eder (satılabilir miktardan düşer, fiziksel stok değişmez).
+     * Her fidan/depo için tek bir koşullu findAndModify kullanılır: quantity - reservedQuantity >= n.
+     */
+    @Transactional
+    public void reserveStock(List<StockChange> reservations) {
+        Map<StockKey, Integer> requested = new LinkedHashMap<>();
+        reservations.forEach(change -> requested.merge(StockKey.of(change), Math.abs(change.getQuantity()), Integer::sum));
+
+        Map<StockKey, Integer> applied = new LinkedHashMap<>();
+        for (Map.Entry<StockKey, Integer> entry : requested.entrySet()) {
+            StockKey key = entry.getKey();
+            int quantity = entry.getValue();
+            Query guarded = new Query(key.toCriteria().andOperator(availableAtLeast(quantity)));
+            Stock updated = mongoTemplate.findAndModify(guarded, new Update().inc("reservedQuantity", quantity),
+                    FindAndModifyOptions.options().returnNew(true), Stock.class);
+            if (updated == null) {
+                applied.forEach((appliedKey, appliedQuantity) -> mongoTemplate.updateFirst(
+                        appliedKey.toQuery(), new Update().inc("reservedQuantity", -appliedQuantity), Stock.class));
+                throw insufficientStock(key, quantity);
+            }
+            applied.put(key, quantity);
+        }
+    }
+
+    // Sevk edilmeden iptal edilen siparişlerin rezervasyonlarını serbest bırakır.
+    @Transactional
+    public void releaseReservation(List<StockChange> reservations) {
+        Map<StockKey, Integer> released = new LinkedHashMap<>();
+        reservations.forEach(change -> released.merge(StockKey.of(change), Math.abs(change.getQuantity()), Integer::sum));
+        if (released.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Stock.class);
+        released.forEach((key, quantity) -> bulkOperations.updateOne(
+                new Query(key.toCriteria().and("reservedQuantity").gte(quantity)),
+                new Update().inc("reservedQuantity", -quantity)));
+        bulkOperations.execute();
+    }
+
+    // Net çıkışları koşullu findAndModify ile uygular. Biri başarısız olursa,
+    // bu çağrıda yapılmış düşüşler geri alınır ve InsufficientStockException fırlatılır.
+    private void applyGuardedDecrements(Map<StockKey, Integer> netChanges, Map<StockKey, Integer> reservedConsumptions) {
+        Map<StockKey, Update> compensations = new LinkedHashMap<>();
+        for (Map.Entry<StockKey, Integer> entry : netChanges.entrySet()) {
+            if (entry.getValue() >= 0) {
+                continue;
+            }
+            StockKey key = entry.getKey();
+            int requested = -entry.getValue();
+            int fromReservation = Math.min(reservedConsumptions.getOrDefault(key, 0), requested);
+
+            // Rezervasyondan karşılanmayan kısım, rezerve edilmemiş stoktan karşılanmalı
+            Criteria guard = key.toCriteria().andOperator(availableAtLeast(requested - fromReservation));
+            Update update = new Update().inc("quantity", -requested);
+            Update compensation = new Update().inc("quantity", requested);
+            if (fromReservation > 0) {
+                guard = guard.and("reservedQuantity").gte(fromReservation);
+                update.inc("reservedQuantity", -fromReservation);
+                compensation.inc("reservedQuantity", fromReservation);
+            }
+
+            Stock updated = mongoTemplate.findAndModify(new Query(guard), update,
+                    FindAndModifyOptions.options().returnNew(true), Stock.class);
+            if (updated == null) {
+                compensations.forEach((appliedKey, appliedCompensation) ->
+                        mongoTemplate.updateFirst(appliedKey.toQuery(), appliedCompensation, Stock.class));
+                throw insufficientStock(key, requested);
+            }
+            compensations.put(key, compensation);
+        }
+    }
+
+    private Map<StockKey, Integer> extractCoalescable(Map<StockKey, Integer> netChanges, Map<StockKey, Integer> reservedConsumptions) {
+        Map<StockKey, Integer> coalescable = new LinkedHashMap<>();
+        netChanges.entrySet().removeIf(entry -> {
+            if (entry.getValue() != 0 && !reservedConsumptions.containsKey(entry.getKey())) {
+                coalescable.put(entry.getKey(), entry.getValue());
+                return true;
+            }
+            return false;
+        });
+        return coalescable;
+    }
+
+    /**
+     * Miktar değişikliklerini birleştiriciye gönderir ve her birinin sonucunu bekler.
+     * Biri yetersiz stok nedeniyle başarısız olursa başarılı olanlar geri alınır.
+     * Birleştirici çağıranın MongoDB işlemi (transaction) dışında yazdığı için bu değişiklikler işlemle birlikte
+     * geri alınmaz; işlem geri alınırsa telafi edici $inc'ler uygulanır (atomik değildir, bkz. revertCoalesced).
+     */
+    private void applyCoalesced(Map<StockKey, Integer> coalesced) {
+        if (coalesced.isEmpty()) {
+            return;
+        }
+        Map<StockKey, CompletableFuture<Void>> results = new LinkedHashMap<>();
+        coalesced.forEach((key, delta) -> results.put(key,
+                stockWriteCoalescer.submit(key.tenantId(), key.plantId(), key.warehouseId(), delta)));
+
+        Map<StockKey, Integer> applied = new LinkedHashMap<>();
+        RuntimeException failure = null;
+        for (Map.Entry<StockKey, CompletableFuture<Void>> entry : results.entrySet()) {
+            try {
+                entry.getValue().get(stockWriteCoalescer.resultTimeoutMs(), TimeUnit.MILLISECONDS);
+                applied.put(entry.getKey(), coalesced.get(entry.getKey()));
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+                }
+            } catch (InterruptedException | TimeoutException e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                if (failure == null) {
+                    failure = new IllegalStateException("Stok güncellemesi zamanında tamamlanamadı.", e);
+                }
+            }
+        }
+        if (failure != null) {
+            revertCoalesced(applied);
+            throw failure;
+        }
 
-        Query query = new Query(Criteria.where("plantId").is(plantId)
-                .and("warehouseId").is(warehouseId)
-                .and("tenantId").is(tenantId));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        revertCoalesced(applied);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Birleştirici üzerinden uygulanmış değişiklikleri ters $inc ile geri alır.
+     * Ters $inc yalnızca bu isteğin payını geri çevirir; girişin geri alınması ise koşulludur: eklenen miktar bu arada
+     * başka bir çıkışta kullanıldıysa stok eksiye düşürülmez, fark loglanır ve elle düzeltilmesi gerekir.
+     */
+    private void revertCoalesced(Map<StockKey, Integer> applied) {
+        applied.forEach((key, delta) -> {
+            try {
+                if (delta < 0) {
+                    mongoTemplate.updateFirst(key.toQuery(), new Update().inc("quantity", -delta), Stock.class);
+                    return;
+                }
+                Query guarded = new Query(key.toCriteria().andOperator(availableAtLeast(delta)));
+                if (mongoTemplate.updateFirst(guarded, new Update().inc("quantity", -delta), Stock.class).getModifiedCount() == 0) {
+                    log.error("Birleştirilmiş stok girişi geri alınamadı (miktar kullanılmış). Anahtar: {}, Miktar: {}", key, delta);
+                }
+            } catch (RuntimeException e) {
+                log.error("Birleştirilmiş stok değişikliği geri alınamadı. Anahtar: {}, Miktar: {}", key, delta, e);
+            }
+        });
+    }
 
-        Update update = new Update().inc("quantity", quantity);
+    // $expr: quantity - reservedQuantity >= n (eski kayıtlarda reservedQuantity olmayabilir)
+    static Criteria availableAtLeast(int quantity) {
+        return Criteria.expr(ComparisonOperators.Gte.valueOf(
+                        ArithmeticOperators.Subtract.valueOf("quantity")
+                                .subtract(ConditionalOperators.ifNull("reservedQuantity").then(0)))
+                .greaterThanEqualToValue(quantity));
+    }
 
-        mongoTemplate.upsert(query, update, Stock.class);
+    // Hata mesajı için mevcut miktar yalnızca başarısızlık durumunda okunur
+    private InsufficientStockException insufficientStock(StockKey key, int requested) {
+        Stock currentStock = mongoTemplate.findOne(key.toQuery(), Stock.class);
+        int available = currentStock != null ? currentStock.getAvailableQuantity() : 0;
+        return new InsufficientStockException("Yetersiz stok. İstenen: " + requested + ", Mevcut: " + available);
+    }
+
+    private StockMovement toMovement(StockChange change, LocalDateTime timestamp) {
+        StockMovement movement = new StockMovement();
+        movement.setPlantId(change.getPlantId());
+        movement.setWarehouseId(change.getWarehouseId());
+        movement.setQuantity(change.getQuantity());
+        movement.setType(change.getType());
+        movement.setRelatedDocumentId(change.getRelatedDocumentId());
+        movement.setDescription(change.getDescription());
+        movement.setUserId(change.getUserId());
+        movement.setTimestamp(timestamp);
+        movement.setTenantId(change.getTenantId());
+        movement.setUnitCost(change.getUnitCost());
+        return movement;
     }
 
     public List<Stock> getAllStocksByTenant(String tenantId) {
@@ -86,84 +365,69 @@ public class StockService {
         return stockMovementRepository.findAllByPlantIdAndTenantIdOrderByTimestampDesc(plantId, tenantId);
     }
 
+    /**
+     * Fidan veya depo bazında hareket geçmişini keyset (seek) sayfalama ile getirir.
+     * Sıralama (timestamp, _id) azalandır; imleç son kaydın bu iki değerini taşır,
+     * böylece sayfa derinliğinden bağımsız olarak indeks üzerinden doğrudan konumlanılır.
+     */
+    public StockMovementPageDTO getMovementPage(String tenantId, String plantId, String warehouseId,
+                                                List<StockMovement.MovementType> types,
+                                                LocalDateTime from, LocalDateTime to,
+                                                String cursor, int size) {
+        if ((plantId == null) == (warehouseId == null)) {
+            throw new ResponseStatusException(BAD_REQUEST, "Fidan ID'si veya depo ID'sinden yalnızca biri verilmelidir.");
+        }
+
+        List<Criteria> filters = new ArrayList<>();
+        filters.add(plantId != null
+                ? Criteria.where("tenantId").is(tenantId).and("plantId").is(plantId)
+                : Criteria.where("tenantId").is(tenantId).and("warehouseId").is(warehouseId));
+        if (types != null && !types.isEmpty()) {
+            filters.add(Criteria.where("type").in(types));
+        }
+        if (from != null) {
+            filters.add(Criteria.where("timestamp").gte(from));
+        }
+        if (to != null) {
+            filters.add(Criteria.where("timestamp").lte(to));
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            MovementCursor position = MovementCursor.decode(cursor);
+            filters.add(new Criteria().orOperator(
+                    Criteria.where("timestamp").lt(position.timestamp()),
+                    Criteria.where("timestamp").is(position.timestamp()).and("_id").lt(position.id())));
+        }
+
+        Query query = new Query(new Criteria().andOperator(filters))
+                .with(Sort.by(Sort.Direction.DESC, "timestamp", "_id"))
+                .limit(size + 1);
+        List<StockMovement> movements = mongoTemplate.find(query, StockMovement.class);
+
+        String nextCursor = null;
+        if (movements.size() > size) {
+            movements = new ArrayList<>(movements.subList(0, size));
+            StockMovement last = movements.get(size - 1);
+            nextCursor = new MovementCursor(last.getTimestamp(), new ObjectId(last.getId())).encode();
+        }
+        return new StockMovementPageDTO(movements, nextCursor);
+    }
+
+    // Geçmiş bir andaki stok durumu (en yakın snapshot + sonrasındaki hareketler)
+    public List<StockSnapshot.SnapshotLine> getStockAsOf(String tenantId, LocalDateTime asOf) {
+        return stockSnapshotService.getStockAsOf(tenantId, asOf);
+    }
+
+    // Stok ekranı ve stok raporu: denormalize stockSummary koleksiyonundan indeksli okuma
     public List<StockSummaryDTO> getStockSummary(String tenantId) {
-        Aggregation aggregation = newAggregation(
-                match(Criteria.where("tenantId").is(tenantId)),
-
-                newLookup()
-                        .from("plantIdentity")
-                        .localField("plantId")
-                        .foreignField("_id")
-                        .as("plantIdentityDetails"),
-                unwind("plantIdentityDetails"),
-
-                newLookup()
-                        .from("warehouse")
-                        .localField("warehouseId")
-                        .foreignField("_id")
-                        .as("warehouseDetails"),
-                unwind("warehouseDetails"),
-
-                newLookup()
-                        .from("plantType")
-                        .localField("plantIdentityDetails.plantType")
-                        .foreignField("_id")
-                        .as("plantIdentityDetails.plantType"),
-                unwind("plantIdentityDetails.plantType"),
-
-                newLookup()
-                        .from("plantVariety")
-                        .localField("plantIdentityDetails.plantVariety")
-                        .foreignField("_id")
-                        .as("plantIdentityDetails.plantVariety"),
-                unwind("plantIdentityDetails.plantVariety"),
-
-                newLookup()
-                        .from("rootstock")
-                        .localField("plantIdentityDetails.rootstock")
-                        .foreignField("_id")
-                        .as("plantIdentityDetails.rootstock"),
-                unwind("plantIdentityDetails.rootstock"),
-
-                newLookup()
-                        .from("plantSize")
-                        .localField("plantIdentityDetails.plantSize")
-                        .foreignField("_id")
-                        .as("plantIdentityDetails.plantSize"),
-                unwind("plantIdentityDetails.plantSize"),
-
-                newLookup()
-                        .from("plantAge")
-                        .localField("plantIdentityDetails.plantAge")
-                        .foreignField("_id")
-                        .as("plantIdentityDetails.plantAge"),
-                unwind("plantIdentityDetails.plantAge"),
-
-                group(fields("plantId", "warehouseId"))
-                        .sum("quantity").as("totalQuantity")
-                        .first("plantIdentityDetails").as("plantIdentityDetails")
-                        .first("warehouseDetails").as("warehouseDetails")
-                        .first("status").as("status"),
-
-                project()
-                        .and("plantIdentityDetails._id").as("plantIdentityId")
-                        .and("plantIdentityDetails.plantType.name").as("plantTypeName")
-                        .and("plantIdentityDetails.plantVariety.name").as("plantVarietyName")
-                        .and("plantIdentityDetails.rootstock.name").as("rootstockName")
-                        .and("plantIdentityDetails.plantSize.name").as("plantSizeName")
-                        .and("plantIdentityDetails.plantAge.name").as("plantAgeName")
-                        .and("warehouseDetails._id").as("warehouseId")
-                        .and("warehouseDetails.name").as("warehouseName")
-                        .and("totalQuantity").as("totalQuantity")
-                        .and("status").as("status"),
-
-                match(Criteria.where("totalQuantity").gt(0))
-        );
-
-        AggregationResults<StockSummaryDTO> results = mongoTemplate.aggregate(
-                aggregation, "stocks", StockSummaryDTO.class);
-
-        return results.getMappedResults();
+        Set<String> criticalKeys = criticalStockKeys(tenantId);
+        return stockSummaryService.getSummaries(tenantId).stream()
+                .map(summary -> toSummaryDTO(summary, criticalKeys))
+                .collect(Collectors.toList());
+    }
+
+    public Page<StockSummaryDTO> getStockSummaryPage(String tenantId, Pageable pageable) {
+        Set<String> criticalKeys = criticalStockKeys(tenantId);
+        return stockSummaryService.getSummaryPage(tenantId, pageable).map(summary -> toSummaryDTO(summary, criticalKeys));
     }
 
     public long countAllStocks(String tenantId) {
@@ -171,8 +435,64 @@ public class StockService {
         return mongoTemplate.count(query, Stock.class);
     }
 
+    // Kritik seviyedeki stok satırı sayısı (fidan/depo/tenant eşiklerine göre, tutulan sayaçtan)
     public long countLowStockPlants(String tenantId) {
-        Query query = new Query(Criteria.where("quantity").lt(10).and("tenantId").is(tenantId));
-        return mongoTemplate.count(query, Stock.class);
+        return stockThresholdService.getCriticalStockCount(tenantId);
+    }
+
+    // Kritik seviyedeki satırlar (belowThreshold bayrağı, indeksli tek sorgu): fidan|depo
+    private Set<String> criticalStockKeys(String tenantId) {
+        return stockThresholdService.getCriticalStocks(tenantId).stream()
+                .map(stock -> stock.getPlantId() + "|" + stock.getWarehouseId())
+                .collect(Collectors.toSet());
+    }
+
+    private StockSummaryDTO toSummaryDTO(StockSummary summary, Set<String> criticalKeys) {
+        return new StockSummaryDTO(
+                summary.getPlantId(),
+                summary.getPlantTypeName(),
+                summary.getPlantVarietyName(),
+                summary.getRootstockName(),
+                summary.getPlantSizeName(),
+                summary.getPlantAgeName(),
+                summary.getWarehouseId(),
+                summary.getWarehouseName(),
+                summary.getTotalQuantity(),
+                criticalKeys.contains(summary.getPlantId() + "|" + summary.getWarehouseId()) ? "Kritik" : "Mevcut");
+    }
+
+    // Hareket geçmişi imleci: son kaydın (timestamp, _id) değerleri, URL-güvenli Base64 olarak
+    private record MovementCursor(LocalDateTime timestamp, ObjectId id) {
+        String encode() {
+            String raw = timestamp + "|" + id.toHexString();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static MovementCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new MovementCursor(LocalDateTime.parse(raw.substring(0, separator)), new ObjectId(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(BAD_REQUEST, "Geçersiz sayfa imleci.");
+            }
+        }
+    }
+
+    // Stok satırının benzersiz anahtarı (tenant + fidan + depo)
+    private record StockKey(String tenantId, String plantId, String warehouseId) {
+        static StockKey of(StockChange change) {
+            return new StockKey(change.getTenantId(), change.getPlantId(), change.getWarehouseId());
+        }
+
+        Criteria toCriteria() {
+            return Criteria.where("plantId").is(plantId)
+                    .and("warehouseId").is(warehouseId)
+                    .and("tenantId").is(tenantId);
+        }
+
+        Query toQuery() {
+            return new Query(toCriteria());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,171 @@
+package com.fidanlik.fidanysserver.stock.service;
+
+import com.fidanlik.fidanysserver.stock.model.StockMovement;
+import com.fidanlik.fidanysserver.stock.model.StockSnapshot;
+import com.fidanlik.fidanysserver.stock.repository.StockSnapshotRepository;
+import com.fidanlik.fidanysserver.tenant.model.Tenant;
+import com.fidanlik.fidanysserver.tenant.repository.TenantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockSnapshotService {
+
+    private final StockSnapshotRepository stockSnapshotRepository;
+    private final TenantRepository tenantRepository;
+    private final MongoTemplate mongoTemplate;
+
+    // DAY: her gün, MONTH: yalnızca ayın ilk günü snapshot alınır
+    @Value("${stock.snapshot.granularity:DAY}")
+    private String granularity;
+
+    // Ham stok hareketlerinin saklanacağı gün sayısı. 0 ise silme yapılmaz (varsayılan).
+    // Not: Silinen hareketler, hareket geçmişinden yeniden oluşturma (ör. değerleme defteri) işlemlerinde kullanılamaz.
+    @Value("${stock.movements.retention-days:0}")
+    private int retentionDays;
+
+    /**
+     * Her gece tüm tenant'lar için gün (veya ay) başı stok snapshot'ı alır,
+     * ardından saklama süresi tanımlıysa eski ham hareketleri temizler.
+     */
+    @Scheduled(cron = "${stock.snapshot.cron:0 10 0 * * *}")
+    public void createScheduledSnapshots() {
+        LocalDate today = LocalDate.now();
+        if ("MONTH".equalsIgnoreCase(granularity) && today.getDayOfMonth() != 1) {
+            return;
+        }
+        for (Tenant tenant : tenantRepository.findAll()) {
+            try {
+                createSnapshot(tenant.getId(), today);
+                if (retentionDays > 0) {
+                    purgeOldMovements(tenant.getId(), today.minusDays(retentionDays));
+                }
+            } catch (Exception e) {
+                log.error("Stok snapshot'ı alınamadı. Tenant: {}", tenant.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Verilen günün başlangıcındaki stok durumunu kaydeder.
+     * Bir önceki snapshot'tan başlanır ve yalnızca o tarihten sonraki hareketler toplanır.
+     * Gelecek tarihler ve ham hareketleri silinmiş (saklama süresi dışındaki) günler reddedilir:
+     * ilki bugünkü stoğu ileri bir tarihe dondurur, ikincisi eksik hareketlerden yanlış bir taban üretir.
+     * @return Oluşturulan snapshot; o tarih için zaten snapshot varsa null.
+     */
+    public StockSnapshot createSnapshot(String tenantId, LocalDate snapshotDate) {
+        LocalDate today = LocalDate.now();
+        if (snapshotDate.isAfter(today)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Gelecek bir tarih için stok snapshot'ı alınamaz.");
+        }
+        if (retentionDays > 0) {
+            // purgeOldMovements, saklama sınırından önceki en yakın snapshot'ın tarihinden eski hareketleri siler
+            stockSnapshotRepository.findFirstByTenantIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(tenantId, today.minusDays(retentionDays))
+                    .filter(purgedBefore -> snapshotDate.isBefore(purgedBefore.getSnapshotDate()))
+                    .ifPresent(purgedBefore -> {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Bu tarihin stok hareketleri saklama süresi dışında kaldı. En erken tarih: " + purgedBefore.getSnapshotDate());
+                    });
+        }
+        if (stockSnapshotRepository.existsByTenantIdAndSnapshotDate(tenantId, snapshotDate)) {
+            log.debug("Stok snapshot'ı zaten mevcut. Tenant: {}, Tarih: {}", tenantId, snapshotDate);
+            return null;
+        }
+
+        StockSnapshot base = stockSnapshotRepository
+                .findFirstByTenantIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(tenantId, snapshotDate.minusDays(1))
+                .orElse(null);
+
+        Criteria range = Criteria.where("timestamp").lt(snapshotDate.atStartOfDay());
+        if (base != null) {
+            range.gte(base.getSnapshotDate().atStartOfDay());
+        }
+
+        StockSnapshot snapshot = new StockSnapshot();
+        snapshot.setTenantId(tenantId);
+        snapshot.setSnapshotDate(snapshotDate);
+        snapshot.setLines(replay(tenantId, base, range));
+        snapshot.setCreatedAt(LocalDateTime.now());
+
+        log.info("Stok snapshot'ı oluşturuldu. Tenant: {}, Tarih: {}, Satır: {}", tenantId, snapshotDate, snapshot.getLines().size());
+        return stockSnapshotRepository.save(snapshot);
+    }
+
+    /**
+     * Verilen andaki fidan + depo bazında stok miktarlarını döner.
+     * En yakın önceki snapshot'tan başlanır ve yalnızca sonrasındaki hareketler tekrar oynatılır.
+     * Saklama süresi dışında kalan (silinmiş) hareketler için sonuç, snapshot çözünürlüğündedir.
+     */
+    public List<StockSnapshot.SnapshotLine> getStockAsOf(String tenantId, LocalDateTime asOf) {
+        StockSnapshot base = stockSnapshotRepository
+                .findFirstByTenantIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(tenantId, asOf.toLocalDate())
+                .orElse(null);
+
+        Criteria range = Criteria.where("timestamp").lte(asOf);
+        if (base != null) {
+            range.gte(base.getSnapshotDate().atStartOfDay());
+        }
+        return replay(tenantId, base, range);
+    }
+
+    // Saklama sınırından önceki en yakın snapshot'ın kapsadığı ham hareketleri siler.
+    private void purgeOldMovements(String tenantId, LocalDate horizon) {
+        stockSnapshotRepository.findFirstByTenantIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(tenantId, horizon)
+                .ifPresent(snapshot -> {
+                    Query query = new Query(Criteria.where("tenantId").is(tenantId)
+                            .and("timestamp").lt(snapshot.getSnapshotDate().atStartOfDay()));
+                    long deleted = mongoTemplate.remove(query, StockMovement.class).getDeletedCount();
+                    log.info("Eski stok hareketleri silindi. Tenant: {}, Sınır: {}, Silinen: {}",
+                            tenantId, snapshot.getSnapshotDate(), deleted);
+                });
+    }
+
+    // Snapshot satırlarına, verilen aralıktaki hareketlerin fidan + depo bazında net toplamını ekler.
+    private List<StockSnapshot.SnapshotLine> replay(String tenantId, StockSnapshot base, Criteria timestampRange) {
+        Map<String, StockSnapshot.SnapshotLine> lines = new LinkedHashMap<>();
+        if (base != null && base.getLines() != null) {
+            base.getLines().forEach(line -> lines.put(line.getPlantId() + "|" + line.getWarehouseId(),
+                    new StockSnapshot.SnapshotLine(line.getPlantId(), line.getWarehouseId(), line.getQuantity())));
+        }
+
+        Aggregation aggregation = newAggregation(
+                match(new Criteria().andOperator(Criteria.where("tenantId").is(tenantId), timestampRange)),
+                group("plantId", "warehouseId").sum("quantity").as("quantity")
+        );
+        for (Document delta : mongoTemplate.aggregate(aggregation, StockMovement.class, Document.class)) {
+            Document key = delta.get("_id", Document.class);
+            String plantId = key.getString("plantId");
+            String warehouseId = key.getString("warehouseId");
+            StockSnapshot.SnapshotLine line = lines.computeIfAbsent(plantId + "|" + warehouseId,
+                    k -> new StockSnapshot.SnapshotLine(plantId, warehouseId, 0));
+            line.setQuantity(line.getQuantity() + ((Number) delta.get("quantity")).intValue());
+        }
+
+        List<StockSnapshot.SnapshotLine> result = new ArrayList<>();
+        lines.values().stream().filter(line -> line.getQuantity() != 0).forEach(result::add);
+        return result;
+    }
+}
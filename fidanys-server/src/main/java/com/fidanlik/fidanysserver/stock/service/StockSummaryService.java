@@ -0,0 +1,270 @@
+package com.fidanlik.fidanysserver.stock.service;
+
+import com.fidanlik.fidanysserver.fidan.model.Plant;
+import com.fidanlik.fidanysserver.fidan.model.PlantAge;
+import com.fidanlik.fidanysserver.fidan.model.PlantSize;
+import com.fidanlik.fidanysserver.fidan.model.PlantType;
+import com.fidanlik.fidanysserver.fidan.model.PlantVariety;
+import com.fidanlik.fidanysserver.fidan.model.Rootstock;
+import com.fidanlik.fidanysserver.fidan.repository.PlantAgeRepository;
+import com.fidanlik.fidanysserver.fidan.repository.PlantRepository;
+import com.fidanlik.fidanysserver.fidan.repository.PlantSizeRepository;
+import com.fidanlik.fidanysserver.fidan.repository.PlantTypeRepository;
+import com.fidanlik.fidanysserver.fidan.repository.PlantVarietyRepository;
+import com.fidanlik.fidanysserver.fidan.repository.RootstockRepository;
+import com.fidanlik.fidanysserver.stock.dto.StockChange;
+import com.fidanlik.fidanysserver.stock.model.Stock;
+import com.fidanlik.fidanysserver.stock.model.StockSummary;
+import com.fidanlik.fidanysserver.tenant.model.Tenant;
+import com.fidanlik.fidanysserver.tenant.repository.TenantRepository;
+import com.fidanlik.fidanysserver.warehouse.model.Warehouse;
+import com.fidanlik.fidanysserver.warehouse.repository.WarehouseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockSummaryService {
+
+    private final MongoTemplate mongoTemplate;
+    private final PlantRepository plantRepository;
+    private final PlantTypeRepository plantTypeRepository;
+    private final PlantVarietyRepository plantVarietyRepository;
+    private final RootstockRepository rootstockRepository;
+    private final PlantSizeRepository plantSizeRepository;
+    private final PlantAgeRepository plantAgeRepository;
+    private final WarehouseRepository warehouseRepository;
+    private final TenantRepository tenantRepository;
+
+    private static final Sort SUMMARY_SORT = Sort.by("plantTypeName", "plantVarietyName", "warehouseName");
+
+    // Özet satırında adı tutulan ana veri alanları (ID alanı -> ad alanı)
+    public enum NameField {
+        PLANT_TYPE("plantTypeId", "plantTypeName"),
+        PLANT_VARIETY("plantVarietyId", "plantVarietyName"),
+        ROOTSTOCK("rootstockId", "rootstockName"),
+        PLANT_SIZE("plantSizeId", "plantSizeName"),
+        PLANT_AGE("plantAgeId", "plantAgeName"),
+        WAREHOUSE("warehouseId", "warehouseName");
+
+        private final String idField;
+        private final String nameField;
+
+        NameField(String idField, String nameField) {
+            this.idField = idField;
+            this.nameField = nameField;
+        }
+    }
+
+    /**
+     * Stok değişikliklerini özet satırlarına tek bir sırasız bulk $inc ile yansıtır.
+     * Yeni oluşan satırların adları, tek seferde toplu okunarak doldurulur.
+     */
+    public void applyChanges(List<StockChange> changes) {
+        Map<List<String>, Integer> netChanges = new LinkedHashMap<>();
+        changes.forEach(change -> netChanges.merge(
+                List.of(change.getTenantId(), change.getPlantId(), change.getWarehouseId()), change.getQuantity(), Integer::sum));
+        netChanges.values().removeIf(quantity -> quantity == 0);
+        if (netChanges.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockSummary.class);
+        netChanges.forEach((key, quantity) -> bulkOperations.upsert(
+                keyQuery(key.get(0), key.get(1), key.get(2)),
+                new Update().inc("totalQuantity", quantity).set("updatedAt", now)));
+        bulkOperations.execute();
+
+        // Adları henüz çözülmemiş (yeni oluşturulmuş) satırlar
+        netChanges.keySet().stream().map(key -> key.get(0)).distinct().forEach(tenantId -> {
+            Set<String> plantIds = netChanges.keySet().stream().filter(key -> key.get(0).equals(tenantId))
+                    .map(key -> key.get(1)).collect(Collectors.toSet());
+            Query unresolved = new Query(Criteria.where("tenantId").is(tenantId)
+                    .and("plantId").in(plantIds)
+                    .and("plantTypeId").exists(false));
+            List<StockSummary> rows = mongoTemplate.find(unresolved, StockSummary.class);
+            if (!rows.isEmpty()) {
+                resolveNames(rows);
+                BulkOperations nameUpdates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockSummary.class);
+                rows.forEach(row -> nameUpdates.updateOne(new Query(Criteria.where("_id").is(row.getId())), nameUpdate(row)));
+                nameUpdates.execute();
+            }
+        });
+    }
+
+    // Ana veri adı değiştiğinde, o kayda bağlı tüm özet satırlarını tek bir updateMulti ile günceller.
+    public void propagateName(NameField field, String id, String tenantId, String name) {
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("tenantId").is(tenantId).and(field.idField).is(id)),
+                new Update().set(field.nameField, name),
+                StockSummary.class);
+    }
+
+    // Fidan kimliğinin bileşenleri değiştiğinde, o fidana ait satırların ID ve adlarını yeniler.
+    public void refreshPlant(Plant plant) {
+        List<StockSummary> rows = mongoTemplate.find(
+                new Query(Criteria.where("tenantId").is(plant.getTenantId()).and("plantId").is(plant.getId())),
+                StockSummary.class);
+        if (rows.isEmpty()) {
+            return;
+        }
+        resolveNames(rows);
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockSummary.class);
+        rows.forEach(row -> bulkOperations.updateOne(new Query(Criteria.where("_id").is(row.getId())), nameUpdate(row)));
+        bulkOperations.execute();
+    }
+
+    public List<StockSummary> getSummaries(String tenantId) {
+        return mongoTemplate.find(positiveQuery(tenantId).with(SUMMARY_SORT), StockSummary.class);
+    }
+
+    public Page<StockSummary> getSummaryPage(String tenantId, Pageable pageable) {
+        Query query = positiveQuery(tenantId);
+        long total = mongoTemplate.count(query, StockSummary.class);
+        List<StockSummary> content = mongoTemplate.find(
+                Query.of(query).with(SUMMARY_SORT).skip(pageable.getOffset()).limit(pageable.getPageSize()),
+                StockSummary.class);
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    // Özet satırı olmayan ama stoğu olan tenant'lar (ilk kurulum) açılışta stocks koleksiyonundan doldurulur
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeSummaries() {
+        for (Tenant tenant : tenantRepository.findAll()) {
+            Query tenantQuery = new Query(Criteria.where("tenantId").is(tenant.getId()));
+            if (mongoTemplate.exists(tenantQuery, StockSummary.class) || !mongoTemplate.exists(tenantQuery, Stock.class)) {
+                continue;
+            }
+            try {
+                rebuild(tenant.getId());
+            } catch (Exception e) {
+                log.error("Stok özet tablosu oluşturulamadı. Tenant: {}", tenant.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Özet koleksiyonunu stocks koleksiyonundan baştan oluşturur (mevcut veriler için).
+     * @return Oluşturulan satır sayısı.
+     */
+    public int rebuild(String tenantId) {
+        List<Stock> stocks = mongoTemplate.find(new Query(Criteria.where("tenantId").is(tenantId)), Stock.class);
+        LocalDateTime now = LocalDateTime.now();
+        List<StockSummary> rows = stocks.stream().map(stock -> {
+            StockSummary row = new StockSummary();
+            row.setTenantId(tenantId);
+            row.setPlantId(stock.getPlantId());
+            row.setWarehouseId(stock.getWarehouseId());
+            row.setTotalQuantity(stock.getQuantity());
+            row.setUpdatedAt(now);
+            return row;
+        }).collect(Collectors.toList());
+        resolveNames(rows);
+
+        mongoTemplate.remove(new Query(Criteria.where("tenantId").is(tenantId)), StockSummary.class);
+        mongoTemplate.insertAll(rows);
+        log.info("Stok özet tablosu yeniden oluşturuldu. Tenant: {}, Satır: {}", tenantId, rows.size());
+        return rows.size();
+    }
+
+    // --- Yardımcı Metotlar ---
+
+    private Query keyQuery(String tenantId, String plantId, String warehouseId) {
+        return new Query(Criteria.where("tenantId").is(tenantId)
+                .and("plantId").is(plantId)
+                .and("warehouseId").is(warehouseId));
+    }
+
+    private Query positiveQuery(String tenantId) {
+        return new Query(Criteria.where("tenantId").is(tenantId).and("totalQuantity").gt(0));
+    }
+
+    // Satırlardaki fidan ve depo adlarını, her koleksiyon için tek bir findAllById ile çözer.
+    private void resolveNames(List<StockSummary> rows) {
+        Map<String, Plant> plants = plantRepository.findAllById(
+                        rows.stream().map(StockSummary::getPlantId).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Plant::getId, Function.identity()));
+
+        Map<String, String> typeNames = names(plantTypeRepository.findAllById(ids(plants.values(), Plant::getPlantTypeId)),
+                PlantType::getId, PlantType::getName);
+        Map<String, String> varietyNames = names(plantVarietyRepository.findAllById(ids(plants.values(), Plant::getPlantVarietyId)),
+                PlantVariety::getId, PlantVariety::getName);
+        Map<String, String> rootstockNames = names(rootstockRepository.findAllById(ids(plants.values(), Plant::getRootstockId)),
+                Rootstock::getId, Rootstock::getName);
+        Map<String, String> sizeNames = names(plantSizeRepository.findAllById(ids(plants.values(), Plant::getPlantSizeId)),
+                PlantSize::getId, PlantSize::getName);
+        Map<String, String> ageNames = names(plantAgeRepository.findAllById(ids(plants.values(), Plant::getPlantAgeId)),
+                PlantAge::getId, PlantAge::getName);
+        Map<String, String> warehouseNames = names(warehouseRepository.findAllById(
+                        rows.stream().map(StockSummary::getWarehouseId).collect(Collectors.toSet())),
+                Warehouse::getId, Warehouse::getName);
+
+        for (StockSummary row : rows) {
+            row.setWarehouseName(warehouseNames.get(row.getWarehouseId()));
+            Plant plant = plants.get(row.getPlantId());
+            if (plant == null) {
+                continue;
+            }
+            row.setPlantTypeId(plant.getPlantTypeId());
+            row.setPlantTypeName(typeNames.get(plant.getPlantTypeId()));
+            row.setPlantVarietyId(plant.getPlantVarietyId());
+            row.setPlantVarietyName(varietyNames.get(plant.getPlantVarietyId()));
+            row.setRootstockId(plant.getRootstockId());
+            row.setRootstockName(rootstockNames.get(plant.getRootstockId()));
+            row.setPlantSizeId(plant.getPlantSizeId());
+            row.setPlantSizeName(sizeNames.get(plant.getPlantSizeId()));
+            row.setPlantAgeId(plant.getPlantAgeId());
+            row.setPlantAgeName(ageNames.get(plant.getPlantAgeId()));
+        }
+    }
+
+    private Update nameUpdate(StockSummary row) {
+        return new Update()
+                .set("plantTypeId", row.getPlantTypeId())
+                .set("plantTypeName", row.getPlantTypeName())
+                .set("plantVarietyId", row.getPlantVarietyId())
+                .set("plantVarietyName", row.getPlantVarietyName())
+                .set("rootstockId", row.getRootstockId())
+                .set("rootstockName", row.getRootstockName())
+                .set("plantSizeId", row.getPlantSizeId())
+                .set("plantSizeName", row.getPlantSizeName())
+                .set("plantAgeId", row.getPlantAgeId())
+                .set("plantAgeName", row.getPlantAgeName())
+                .set("warehouseName", row.getWarehouseName());
+    }
+
+    private Set<String> ids(Collection<Plant> plants, Function<Plant, String> idGetter) {
+        return plants.stream().map(idGetter).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private <T> Map<String, String> names(Iterable<T> entities, Function<T, String> idGetter, Function<T, String> nameGetter) {
+        Map<String, String> names = new HashMap<>();
+        entities.forEach(entity -> names.put(idGetter.apply(entity), nameGetter.apply(entity)));
+        return names;
+    }
+}
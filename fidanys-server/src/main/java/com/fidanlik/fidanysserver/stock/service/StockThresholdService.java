@@ -0,0 +1,230 @@
+package com.fidanlik.fidanysserver.stock.service;
+
+import com.fidanlik.fidanysserver.stock.dto.StockChange;
+import com.fidanlik.fidanysserver.stock.model.CriticalStockCounter;
+import com.fidanlik.fidanysserver.stock.model.Stock;
+import com.fidanlik.fidanysserver.stock.model.StockThreshold;
+import com.fidanlik.fidanysserver.stock.repository.StockThresholdRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockThresholdService {
+
+    private final StockThresholdRepository stockThresholdRepository;
+    private final MongoTemplate mongoTemplate;
+
+    // Hiçbir eşik tanımlanmamışsa kullanılan varsayılan kritik stok seviyesi
+    @Value("${stock.threshold.default:10}")
+    private int defaultThreshold;
+
+    // Çözümlenmiş eşikler tenant bazında önbelleklenir; eşik kaydedilince/silinince geçersiz kılınır.
+    // TTL, başka bir sunucu örneğinde yapılan değişikliklerin en geç bu sürede görülmesi içindir.
+    @Value("${stock.threshold.cache-ttl-seconds:60}")
+    private long cacheTtlSeconds;
+
+    private final Map<String, CachedResolver> resolvers = new ConcurrentHashMap<>();
+    // Geçersiz kılmadan önce okunmaya başlanan eşiklerin önbelleğe yazılmasını engeller
+    private final AtomicLong generation = new AtomicLong();
+
+    public List<StockThreshold> getThresholds(String tenantId) {
+        return stockThresholdRepository.findAllByTenantId(tenantId);
+    }
+
+    // Aynı kapsamda (fidan/depo) bir eşik varsa günceller, yoksa oluşturur; ardından bayrakları yeniden hesaplar.
+    public StockThreshold saveThreshold(StockThreshold threshold, String tenantId) {
+        if (threshold.getMinQuantity() < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Kritik stok eşiği negatif olamaz.");
+        }
+        StockThreshold target = stockThresholdRepository
+                .findByTenantIdAndPlantIdAndWarehouseId(tenantId, threshold.getPlantId(), threshold.getWarehouseId())
+                .orElseGet(() -> {
+                    StockThreshold created = new StockThreshold();
+                    created.setPlantId(threshold.getPlantId());
+                    created.setWarehouseId(threshold.getWarehouseId());
+                    created.setTenantId(tenantId);
+                    return created;
+                });
+        target.setMinQuantity(threshold.getMinQuantity());
+        StockThreshold saved = stockThresholdRepository.save(target);
+        invalidate(tenantId);
+        recompute(tenantId);
+        return saved;
+    }
+
+    public void deleteThreshold(String id, String tenantId) {
+        StockThreshold threshold = stockThresholdRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Kritik stok eşiği bulunamadı."));
+        if (!threshold.getTenantId().equals(tenantId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Bu eşiği silmeye yetkiniz yok.");
+        }
+        stockThresholdRepository.delete(threshold);
+        invalidate(tenantId);
+        recompute(tenantId);
+    }
+
+    /**
+     * Stok değişikliğinden etkilenen satırların eşik durumunu kontrol eder.
+     * Bayrak yalnızca eski değerine koşullu güncellenir; sayaç da yalnızca bayrak gerçekten
+     * değiştiğinde artırılır/azaltılır. Böylece eşzamanlı değişikliklerde sayaç tutarlı kalır.
+     */
+    public void applyCrossings(List<StockChange> changes) {
+        Map<String, List<StockChange>> changesByTenant = changes.stream()
+                .collect(Collectors.groupingBy(StockChange::getTenantId));
+
+        changesByTenant.forEach((tenantId, tenantChanges) -> {
+            List<Criteria> keys = tenantChanges.stream()
+                    .map(change -> List.of(change.getPlantId(), change.getWarehouseId()))
+                    .distinct()
+                    .map(key -> Criteria.where("plantId").is(key.get(0)).and("warehouseId").is(key.get(1)))
+                    .collect(Collectors.toList());
+            List<Stock> stocks = mongoTemplate.find(
+                    new Query(Criteria.where("tenantId").is(tenantId).orOperator(keys)), Stock.class);
+
+            ThresholdResolver resolver = resolver(tenantId);
+            long delta = 0;
+            for (Stock stock : stocks) {
+                boolean below = stock.getQuantity() < resolver.thresholdFor(stock.getPlantId(), stock.getWarehouseId());
+                if (stock.getBelowThreshold() != null && stock.getBelowThreshold() == below) {
+                    continue;
+                }
+                long modified = mongoTemplate.updateFirst(
+                        new Query(Criteria.where("_id").is(stock.getId()).and("belowThreshold").is(stock.getBelowThreshold())),
+                        new Update().set("belowThreshold", below),
+                        Stock.class).getModifiedCount();
+                if (modified > 0) {
+                    if (below) {
+                        delta++;
+                    } else if (Boolean.TRUE.equals(stock.getBelowThreshold())) {
+                        delta--;
+                    }
+                }
+            }
+
+            // Sayaç henüz oluşturulmamışsa ilk okumada recompute ile oluşturulur
+            if (delta != 0) {
+                mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(tenantId)),
+                        new Update().inc("count", delta), CriticalStockCounter.class);
+            }
+        });
+    }
+
+    // Dashboard için kritik stok sayısı: tarama yerine tutulan sayaçtan okunur.
+    public long getCriticalStockCount(String tenantId) {
+        CriticalStockCounter counter = mongoTemplate.findById(tenantId, CriticalStockCounter.class);
+        return counter != null ? counter.getCount() : recompute(tenantId);
+    }
+
+    public List<Stock> getCriticalStocks(String tenantId) {
+        return mongoTemplate.find(
+                new Query(Criteria.where("tenantId").is(tenantId).and("belowThreshold").is(true)), Stock.class);
+    }
+
+    /**
+     * Tenant'ın tüm stok satırlarının eşik bayraklarını ve kritik stok sayacını baştan hesaplar.
+     * Eşikler değiştiğinde ve sayaç ilk kez oluşturulurken çalışır.
+     * @return Kritik seviyedeki stok satırı sayısı.
+     */
+    public long recompute(String tenantId) {
+        ThresholdResolver resolver = resolver(tenantId);
+        List<Stock> stocks = mongoTemplate.find(new Query(Criteria.where("tenantId").is(tenantId)), Stock.class);
+
+        long criticalCount = 0;
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Stock.class);
+        boolean hasUpdates = false;
+        for (Stock stock : stocks) {
+            boolean below = stock.getQuantity() < resolver.thresholdFor(stock.getPlantId(), stock.getWarehouseId());
+            if (below) {
+                criticalCount++;
+            }
+            if (stock.getBelowThreshold() == null || stock.getBelowThreshold() != below) {
+                bulkOperations.updateOne(new Query(Criteria.where("_id").is(stock.getId())), new Update().set("belowThreshold", below));
+                hasUpdates = true;
+            }
+        }
+        if (hasUpdates) {
+            bulkOperations.execute();
+        }
+
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(tenantId)),
+                new Update().set("count", criticalCount), CriticalStockCounter.class);
+        log.info("Kritik stok bayrakları yeniden hesaplandı. Tenant: {}, Kritik: {}", tenantId, criticalCount);
+        return criticalCount;
+    }
+
+    private ThresholdResolver resolver(String tenantId) {
+        CachedResolver cached = resolvers.get(tenantId);
+        if (cached != null && System.currentTimeMillis() <= cached.expiresAt()) {
+            return cached.resolver();
+        }
+        long loadedGeneration = generation.get();
+        ThresholdResolver resolver = new ThresholdResolver(stockThresholdRepository.findAllByTenantId(tenantId), defaultThreshold);
+        CachedResolver entry = new CachedResolver(resolver, System.currentTimeMillis() + cacheTtlSeconds * 1000);
+        resolvers.put(tenantId, entry);
+        if (generation.get() != loadedGeneration) {
+            resolvers.remove(tenantId, entry); // Okuma sırasında eşikler değişti; eski sonuç önbellekte kalmasın
+        }
+        return resolver;
+    }
+
+    private void invalidate(String tenantId) {
+        generation.incrementAndGet();
+        resolvers.remove(tenantId);
+    }
+
+    private record CachedResolver(ThresholdResolver resolver, long expiresAt) {
+    }
+
+    // Tenant eşiklerini kapsamlarına göre indeksler ve en özel eşleşmeyi döner.
+    private static class ThresholdResolver {
+        private final Map<String, Integer> byPlantAndWarehouse = new HashMap<>();
+        private final Map<String, Integer> byPlant = new HashMap<>();
+        private final Map<String, Integer> byWarehouse = new HashMap<>();
+        private final int tenantThreshold;
+
+        ThresholdResolver(List<StockThreshold> thresholds, int defaultThreshold) {
+            int tenantLevel = defaultThreshold;
+            for (StockThreshold threshold : thresholds) {
+                if (threshold.getPlantId() != null && threshold.getWarehouseId() != null) {
+                    byPlantAndWarehouse.put(threshold.getPlantId() + "|" + threshold.getWarehouseId(), threshold.getMinQuantity());
+                } else if (threshold.getPlantId() != null) {
+                    byPlant.put(threshold.getPlantId(), threshold.getMinQuantity());
+                } else if (threshold.getWarehouseId() != null) {
+                    byWarehouse.put(threshold.getWarehouseId(), threshold.getMinQuantity());
+                } else {
+                    tenantLevel = threshold.getMinQuantity();
+                }
+            }
+            this.tenantThreshold = tenantLevel;
+        }
+
+        int thresholdFor(String plantId, String warehouseId) {
+            Integer threshold = byPlantAndWarehouse.get(plantId + "|" + warehouseId);
+            if (threshold == null) {
+                threshold = byPlant.get(plantId);
+            }
+            if (threshold == null) {
+                threshold = byWarehouse.get(warehouseId);
+            }
+            return threshold != null ? threshold : tenantThreshold;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.fidanlik.fidanysserver.stock.service;
+
+import com.fidanlik.fidanysserver.stock.dto.StockChange;
+import com.fidanlik.fidanysserver.stock.dto.StockTransferRequest;
+import com.fidanlik.fidanysserver.stock.model.StockMovement;
+import com.fidanlik.fidanysserver.stock.model.StockTransfer;
+import com.fidanlik.fidanysserver.stock.model.StockValuation;
+import com.fidanlik.fidanysserver.stock.repository.StockTransferRepository;
+import com.fidanlik.fidanysserver.stock.repository.StockValuationRepository;
+import com.fidanlik.fidanysserver.warehouse.repository.WarehouseRepository;
+import com.mongodb.MongoException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockTransferService {
+
+    private final StockTransferRepository stockTransferRepository;
+    private final StockValuationRepository stockValuationRepository;
+    private final WarehouseRepository warehouseRepository;
+    private final StockService stockService;
+    private final TransactionTemplate transactionTemplate;
+
+    // Aynı idempotencyKey ile çakışan işlemlerde fiş en fazla bu kadar yeniden okunur
+    private static final int MAX_TRANSFER_ATTEMPTS = 5;
+    private static final long RETRY_BACKOFF_MS = 50;
+
+    /**
+     * İki depo arasında çok satırlı transfer yapar.
+     * Tüm satırlar tek bir changeStockBatch çağrısıyla uygulanır: kaynak depoda koşullu (guarded) düşüş,
+     * hedef depoda giriş. Fiş ve stok hareketleri tek bir MongoDB işleminde (transaction) yazılır.
+     * Aynı idempotencyKey ile tekrar gelen istek, transferi yeniden uygulamadan kaydedilmiş fişi döner.
+     */
+    public StockTransfer createTransfer(StockTransferRequest request, String userId, String tenantId) {
+        validateRequest(request, tenantId);
+
+        String idempotencyKey = request.getIdempotencyKey() != null && !request.getIdempotencyKey().isBlank()
+                ? request.getIdempotencyKey()
+                : UUID.randomUUID().toString();
+
+        // İşlem içinde yakalanan hata işlemi iptal ettiğinden tekrar okuma ve yeniden deneme işlem dışında yapılır
+        for (int attempt = 1; ; attempt++) {
+            Optional<StockTransfer> existing = stockTransferRepository.findByTenantIdAndIdempotencyKey(tenantId, idempotencyKey);
+            if (existing.isPresent()) {
+                return existing.get();
+            }
+            try {
+                return transactionTemplate.execute(status -> applyTransfer(request, idempotencyKey, userId, tenantId));
+            } catch (RuntimeException e) {
+                // Aynı anahtarla eşzamanlı gelen istek fişi önce kaydetti (DuplicateKey) veya henüz kaydediyor (WriteConflict)
+                if (!isRetryable(e)) {
+                    throw e;
+                }
+                if (attempt >= MAX_TRANSFER_ATTEMPTS) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Bu transfer şu anda işleniyor, lütfen tekrar deneyin.");
+                }
+                log.info("Transfer işlemi çakıştı, tekrar deneniyor. Anahtar: {}, Deneme: {}", idempotencyKey, attempt);
+                sleepBeforeRetry(attempt);
+            }
+        }
+    }
+
+    public List<StockTransfer> getAllTransfersByTenant(String tenantId) {
+        return stockTransferRepository.findAllByTenantIdOrderByCreatedAtDesc(tenantId);
+    }
+
+    public StockTransfer getTransferById(String id, String tenantId) {
+        return stockTransferRepository.findById(id)
+                .filter(transfer -> transfer.getTenantId().equals(tenantId))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Transfer bulunamadı."));
+    }
+
+    // --- Yardımcı Metotlar ---
+
+    private void validateRequest(StockTransferRequest request, String tenantId) {
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Transfer için en az bir kalem gereklidir.");
+        }
+        if (request.getSourceWarehouseId() == null || request.getSourceWarehouseId().equals(request.getTargetWarehouseId())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Kaynak ve hedef depo farklı olmalıdır.");
+        }
+        for (String warehouseId : List.of(request.getSourceWarehouseId(), request.getTargetWarehouseId())) {
+            warehouseRepository.findById(warehouseId)
+                    .filter(w -> w.getTenantId().equals(tenantId))
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Geçersiz depo ID'si: " + warehouseId));
+        }
+        if (request.getItems().stream().anyMatch(item -> item.getPlantId() == null || item.getQuantity() <= 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Transfer kalemlerinde fidan ve pozitif miktar belirtilmelidir.");
+        }
+    }
+
+    // Fiş ve stok değişiklikleri: createTransfer'ın açtığı işlem içinde çalışır
+    private StockTransfer applyTransfer(StockTransferRequest request, String idempotencyKey, String userId, String tenantId) {
+        // Aynı fidan için gelen satırlar birleştirilir
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        request.getItems().forEach(item -> quantities.merge(item.getPlantId(), item.getQuantity(), Integer::sum));
+
+        LocalDateTime now = LocalDateTime.now();
+        StockTransfer transfer = new StockTransfer();
+        transfer.setTransferNumber("TRF-" + System.currentTimeMillis());
+        transfer.setSourceWarehouseId(request.getSourceWarehouseId());
+        transfer.setTargetWarehouseId(request.getTargetWarehouseId());
+        transfer.setLines(buildLines(quantities, request.getSourceWarehouseId(), tenantId));
+        transfer.setStatus(StockTransfer.TransferStatus.COMPLETED);
+        transfer.setIdempotencyKey(idempotencyKey);
+        transfer.setDescription(request.getDescription());
+        transfer.setUserId(userId);
+        transfer.setTenantId(tenantId);
+        transfer.setCreatedAt(now);
+        transfer.setCompletedAt(now);
+
+        // Benzersiz indeks, aynı anahtarla eşzamanlı gelen işlemlerden yalnızca birinin kaydedilmesini sağlar
+        StockTransfer savedTransfer = stockTransferRepository.insert(transfer);
+        stockService.changeStockBatch(toStockChanges(savedTransfer, userId));
+
+        log.info("Depo transferi tamamlandı. No: {}, Satır: {}", savedTransfer.getTransferNumber(), savedTransfer.getLines().size());
+        return savedTransfer;
+    }
+
+    // Commit sırasındaki çakışma TransactionSystemException içinde etiketli MongoException olarak gelir
+    private static boolean isRetryable(RuntimeException e) {
+        if (e instanceof DuplicateKeyException || e instanceof TransientDataAccessException) {
+            return true;
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException
+                    && mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sleepBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(RETRY_BACKOFF_MS * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Transfer işlemi kesildi.");
+        }
+    }
+
+    // Satır maliyeti, kaynak depodaki ağırlıklı ortalama maliyettir; değer hedef depoya aynen taşınır.
+    private List<StockTransfer.TransferLine> buildLines(Map<String, Integer> quantities, String sourceWarehouseId, String tenantId) {
+        List<StockTransfer.TransferLine> lines = new ArrayList<>();
+        quantities.forEach((plantId, quantity) -> {
+            StockTransfer.TransferLine line = new StockTransfer.TransferLine();
+            line.setPlantId(plantId);
+            line.setQuantity(quantity);
+            line.setUnitCost(stockValuationRepository
+                    .findByTenantIdAndPlantIdAndWarehouseId(tenantId, plantId, sourceWarehouseId)
+                    .map(StockValuation::getAverageUnitCost)
+                    .orElse(BigDecimal.ZERO));
+            lines.add(line);
+        });
+        return lines;
+    }
+
+    private List<StockChange> toStockChanges(StockTransfer transfer, String userId) {
+        List<StockChange> changes = new ArrayList<>();
+        for (StockTransfer.TransferLine line : transfer.getLines()) {
+            changes.add(StockChange.builder()
+                    .plantId(line.getPlantId())
+                    .warehouseId(transfer.getSourceWarehouseId())
+                    .quantity(-line.getQuantity())
+                    .type(StockMovement.MovementType.TRANSFER_OUT)
+                    .relatedDocumentId(transfer.getId())
+                    .description("Depo Transferi Çıkışı - No: " + transfer.getTransferNumber())
+                    .userId(userId)
+                    .tenantId(transfer.getTenantId())
+                    .unitCost(line.getUnitCost())
+                    .build());
+            changes.add(StockChange.builder()
+                    .plantId(line.getPlantId())
+                    .warehouseId(transfer.getTargetWarehouseId())
+                    .quantity(line.getQuantity())
+                    .type(StockMovement.MovementType.TRANSFER_IN)
+                    .relatedDocumentId(transfer.getId())
+                    .description("Depo Transferi Girişi - No: " + transfer.getTransferNumber())
+                    .userId(userId)
+                    .tenantId(transfer.getTenantId())
+                    .unitCost(line.getUnitCost())
+                    .build());
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,248 @@
+package com.fidanlik.fidanysserver.stock.service;
+
+import com.fidanlik.fidanysserver.stock.model.StockMovement;
+import com.fidanlik.fidanysserver.stock.model.StockValuation;
+import com.fidanlik.fidanysserver.stock.repository.StockValuationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockValuationService {
+
+    private final StockValuationRepository stockValuationRepository;
+    private final MongoTemplate mongoTemplate;
+
+    // Bu hareket tiplerinde maliyet, hareketin kendi unitCost değerinden alınır.
+    // Diğerlerinde (satış, iade, zayiat...) mevcut ağırlıklı ortalama maliyet kullanılır;
+    // örneğin SALE hareketindeki unitCost satış fiyatıdır, maliyet değildir.
+    private static final Set<StockMovement.MovementType> COST_BEARING_TYPES = EnumSet.of(
+            StockMovement.MovementType.GOODS_RECEIPT,
+            StockMovement.MovementType.GOODS_RECEIPT_CANCEL,
+            StockMovement.MovementType.TRANSFER_IN
+    );
+
+    private static final Decimal128 DECIMAL_ZERO = new Decimal128(BigDecimal.ZERO);
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    /**
+     * Tek bir stok hareketini değerleme defterine işler.
+     * Oku-hesapla-yaz yerine tek bir pipeline update (upsert) ile atomik olarak yapılır.
+     */
+    public void applyMovement(StockMovement movement) {
+        mongoTemplate.upsert(
+                keyQuery(movement.getTenantId(), movement.getPlantId(), movement.getWarehouseId()),
+                buildValuationUpdate(movement),
+                StockValuation.class);
+    }
+
+    /**
+     * Toplu stok değişikliklerinin hareketlerini tek bir bulk işlemle deftere işler.
+     * Aynı fidan/depo için birden fazla hareket olabileceğinden sıralı (ORDERED) çalışır.
+     */
+    public void applyMovements(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, StockValuation.class);
+        for (StockMovement movement : movements) {
+            bulkOperations.upsert(
+                    keyQuery(movement.getTenantId(), movement.getPlantId(), movement.getWarehouseId()),
+                    buildValuationUpdate(movement));
+        }
+        bulkOperations.execute();
+    }
+
+    // Tenant'ın toplam stok değeri: küçük bir $group ile hesaplanır.
+    public BigDecimal getTotalStockValue(String tenantId) {
+        Aggregation aggregation = newAggregation(
+                match(Criteria.where("tenantId").is(tenantId)),
+                group().sum("totalValue").as("totalValue")
+        );
+        Document result = mongoTemplate.aggregate(aggregation, StockValuation.class, Document.class).getUniqueMappedResult();
+        return toBigDecimal(result != null ? result.get("totalValue") : null).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public List<StockValuation> getValuationsByTenant(String tenantId) {
+        return stockValuationRepository.findAllByTenantId(tenantId);
+    }
+
+    /**
+     * Mevcut veriler için defteri stockMovements geçmişinden baştan oluşturur.
+     * Hareketler zaman sırasıyla okunur (aynı toplu işlemdeki hareketler aynı zamanı taşıdığından _id ile sıralanır)
+     * ve applyMovement ile aynı kurallarla bellekte işlenir.
+     * Kayıtlar silinmeden anahtar bazında yerinde güncellenir; okuma sırasında canlı bir hareketle güncellenmiş
+     * (lastMovementAt daha yeni olan) kayıtların üzerine yazılmaz. Hiç hareketi olmayan kayıtlara dokunulmaz.
+     * @return Oluşturulan değerleme kaydı sayısı.
+     */
+    public int rebuildValuations(String tenantId) {
+        log.info("Stok değerleme defteri yeniden oluşturuluyor. Tenant: {}", tenantId);
+
+        Map<String, StockValuation> valuations = new LinkedHashMap<>();
+        Query query = new Query(Criteria.where("tenantId").is(tenantId))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp", "_id"));
+
+        try (Stream<StockMovement> movements = mongoTemplate.stream(query, StockMovement.class)) {
+            movements.forEach(movement -> {
+                StockValuation valuation = valuations.computeIfAbsent(
+                        movement.getPlantId() + "|" + movement.getWarehouseId(),
+                        key -> newValuation(movement));
+                applyInMemory(valuation, movement);
+            });
+        }
+
+        int skipped = replaceValuations(valuations.values());
+
+        log.info("Stok değerleme defteri yeniden oluşturuldu. Kayıt sayısı: {}, Canlı güncellendiği için atlanan: {}",
+                valuations.size(), skipped);
+        return valuations.size();
+    }
+
+    // Yeniden hesaplanan kayıtları anahtar bazında yazar; okuma sonrasında canlı güncellenmiş kayıtlar atlanır.
+    private int replaceValuations(Iterable<StockValuation> valuations) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StockValuation.class);
+        boolean hasUpdates = false;
+        for (StockValuation valuation : valuations) {
+            Query guarded = keyQuery(valuation.getTenantId(), valuation.getPlantId(), valuation.getWarehouseId())
+                    .addCriteria(new Criteria().orOperator(
+                            Criteria.where("lastMovementAt").exists(false),
+                            Criteria.where("lastMovementAt").lte(valuation.getLastMovementAt())));
+            Update update = new Update()
+                    .set("quantity", valuation.getQuantity())
+                    .set("totalValue", new Decimal128(valuation.getTotalValue()))
+                    .set("averageUnitCost", valuation.getAverageUnitCost() != null ? new Decimal128(valuation.getAverageUnitCost()) : null)
+                    .set("lastMovementAt", valuation.getLastMovementAt());
+            bulkOperations.upsert(guarded, update);
+            hasUpdates = true;
+        }
+        if (!hasUpdates) {
+            return 0;
+        }
+        try {
+            bulkOperations.execute();
+            return 0;
+        } catch (BulkOperationException e) {
+            // Koşul eşleşmediğinde upsert mevcut anahtarla ekleme yapmaya çalışır: kayıt daha yeni bir hareketle güncellenmiştir
+            if (e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY_ERROR)) {
+                return e.getErrors().size();
+            }
+            throw e;
+        }
+    }
+
+    // --- Yardımcı Metotlar ---
+
+    private Query keyQuery(String tenantId, String plantId, String warehouseId) {
+        return new Query(Criteria.where("tenantId").is(tenantId)
+                .and("plantId").is(plantId)
+                .and("warehouseId").is(warehouseId));
+    }
+
+    private AggregationUpdate buildValuationUpdate(StockMovement movement) {
+        int delta = movement.getQuantity();
+        BigDecimal explicitCost = explicitCost(movement);
+
+        Object oldQuantity = new Document("$ifNull", List.of("$quantity", 0));
+        Object oldValue = new Document("$ifNull", List.of("$totalValue", DECIMAL_ZERO));
+        Object oldAverage = new Document("$ifNull", List.of("$averageUnitCost", DECIMAL_ZERO));
+        Object cost = explicitCost != null ? new Decimal128(explicitCost) : oldAverage;
+        Object newQuantity = new Document("$add", List.of(oldQuantity, delta));
+
+        // 1. aşama: miktar ve toplam değer (tüm ifadeler eski dokümana göre hesaplanır)
+        Document totals = new Document()
+                .append("quantity", newQuantity)
+                .append("totalValue", new Document("$cond", List.of(
+                        new Document("$gt", List.of(newQuantity, 0)),
+                        new Document("$add", List.of(oldValue, new Document("$multiply", List.of(delta, cost)))),
+                        DECIMAL_ZERO)))
+                // Raw dokümanda Spring dönüşümü devreye girmediği için LocalDateTime elle Date'e çevrilir
+                .append("lastMovementAt", Date.from(movement.getTimestamp().atZone(ZoneId.systemDefault()).toInstant()));
+
+        // 2. aşama: yeni toplamlara göre ağırlıklı ortalama maliyet
+        Document average = new Document("averageUnitCost", new Document("$cond", List.of(
+                new Document("$gt", List.of("$quantity", 0)),
+                new Document("$divide", List.of("$totalValue", "$quantity")),
+                explicitCost != null ? new Document("$ifNull", List.of("$averageUnitCost", cost)) : oldAverage)));
+
+        List<AggregationOperation> stages = List.of(
+                context -> new Document("$set", totals),
+                context -> new Document("$set", average)
+        );
+        return AggregationUpdate.from(stages);
+    }
+
+    private void applyInMemory(StockValuation valuation, StockMovement movement) {
+        int delta = movement.getQuantity();
+        BigDecimal explicitCost = explicitCost(movement);
+        BigDecimal oldAverage = valuation.getAverageUnitCost() != null ? valuation.getAverageUnitCost() : BigDecimal.ZERO;
+        BigDecimal cost = explicitCost != null ? explicitCost : oldAverage;
+
+        int newQuantity = valuation.getQuantity() + delta;
+        BigDecimal newValue = newQuantity > 0
+                ? valuation.getTotalValue().add(cost.multiply(BigDecimal.valueOf(delta)), MathContext.DECIMAL128)
+                : BigDecimal.ZERO;
+
+        valuation.setQuantity(newQuantity);
+        valuation.setTotalValue(newValue);
+        if (newQuantity > 0) {
+            valuation.setAverageUnitCost(newValue.divide(BigDecimal.valueOf(newQuantity), MathContext.DECIMAL128));
+        } else if (valuation.getAverageUnitCost() == null) {
+            valuation.setAverageUnitCost(cost);
+        }
+        valuation.setLastMovementAt(movement.getTimestamp());
+    }
+
+    private StockValuation newValuation(StockMovement movement) {
+        StockValuation valuation = new StockValuation();
+        valuation.setTenantId(movement.getTenantId());
+        valuation.setPlantId(movement.getPlantId());
+        valuation.setWarehouseId(movement.getWarehouseId());
+        valuation.setQuantity(0);
+        valuation.setTotalValue(BigDecimal.ZERO);
+        return valuation;
+    }
+
+    private BigDecimal explicitCost(StockMovement movement) {
+        return COST_BEARING_TYPES.contains(movement.getType()) ? movement.getUnitCost() : null;
+    }
+
+    private BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        if (value instanceof Number number) {
+            return new BigDecimal(number.toString());
+        }
+        return BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,204 @@
+package com.fidanlik.fidanysserver.stock.service;
+
+import com.fidanlik.fidanysserver.common.exception.InsufficientStockException;
+import com.fidanlik.fidanysserver.stock.model.Stock;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Yoğun satış dönemlerinde aynı stok satırına (tenant + fidan + depo) gelen eşzamanlı miktar değişikliklerini
+ * kısa bir zaman penceresi içinde toplayıp tek bir $inc ile yazar. Varsayılan olarak kapalıdır (stock.coalescing.enabled).
+ * Her çağıran kendi isteği için ayrı bir sonuç (CompletableFuture) alır. Birleştirilmiş çıkış koşulu
+ * sağlanamazsa istekler tek tek uygulanır; böylece yalnızca yetersiz kalan istekler başarısız olur.
+ * <p>
+ * DİKKAT: Yazmalar farklı isteklerden toplandığı için çağıranın MongoDB işlemine (transaction) dahil DEĞİLDİR.
+ * Çağıranın işlemi geri alınırsa değişiklik StockService tarafından telafi edici bir $inc ile geri alınır;
+ * bu telafi atomik değildir ve arada stok tüketildiyse uygulanamaz (hata loglanır, stok elle düzeltilmelidir).
+ * Sunucu telafiden önce kapanırsa değişiklik kalıcı olur. Bu nedenle yalnızca bu tutarsızlık riskinin
+ * yazma çekişmesinden daha az maliyetli olduğu kurulumlarda açılmalıdır.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockWriteCoalescer {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${stock.coalescing.enabled:false}")
+    private boolean enabled;
+
+    // Bir anahtar için ilk istekten sonra yazmanın bekletileceği süre
+    @Value("${stock.coalescing.window-ms:20}")
+    private long windowMs;
+
+    // Bir anahtarda bu kadar istek birikirse pencere beklenmeden yazılır
+    @Value("${stock.coalescing.max-batch:64}")
+    private int maxBatch;
+
+    @Value("${stock.coalescing.flush-threads:2}")
+    private int flushThreads;
+
+    // Çağıranın sonucu en fazla bu kadar bekleyeceği süre (pencere dahil)
+    @Value("${stock.coalescing.result-timeout-ms:2000}")
+    private long resultTimeoutMs;
+
+    private final ConcurrentHashMap<CoalescingKey, Bucket> buckets = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            AtomicInteger counter = new AtomicInteger();
+            flusher = Executors.newScheduledThreadPool(flushThreads, runnable -> {
+                Thread thread = new Thread(runnable, "stock-coalescer-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            log.warn("Stok yazma birleştirme etkin. Birleştirilen yazmalar MongoDB işlemi dışında uygulanır. Pencere: {} ms, En fazla: {}",
+                    windowMs, maxBatch);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (flusher == null) {
+            return;
+        }
+        // Bekleyen istekler kapanmadan önce yazılır
+        buckets.forEach((key, bucket) -> {
+            if (buckets.remove(key, bucket)) {
+                apply(key, bucket.writes);
+            }
+        });
+        flusher.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Bekleme süresi üst sınırı; pencereden kısa olamaz
+    public long resultTimeoutMs() {
+        return Math.max(resultTimeoutMs, windowMs);
+    }
+
+    /**
+     * Bir stok satırına miktar değişikliği ekler. Negatif değerler koşullu (yeterli stok varsa) uygulanır.
+     * @return Değişiklik yazıldığında tamamlanan, yetersiz stokta InsufficientStockException ile biten sonuç.
+     */
+    public CompletableFuture<Void> submit(String tenantId, String plantId, String warehouseId, int delta) {
+        CoalescingKey key = new CoalescingKey(tenantId, plantId, warehouseId);
+        PendingWrite write = new PendingWrite(delta, new CompletableFuture<>());
+        Bucket[] full = new Bucket[1];
+
+        buckets.compute(key, (k, bucket) -> {
+            if (bucket == null) {
+                Bucket created = new Bucket();
+                flusher.schedule(() -> flush(k, created), windowMs, TimeUnit.MILLISECONDS);
+                bucket = created;
+            }
+            bucket.writes.add(write);
+            if (bucket.writes.size() >= maxBatch) {
+                full[0] = bucket;
+                return null; // Yeni istekler yeni bir kovaya düşer
+            }
+            return bucket;
+        });
+
+        if (full[0] != null) {
+            Bucket bucket = full[0];
+            flusher.execute(() -> apply(key, bucket.writes));
+        }
+        return write.result();
+    }
+
+    private void flush(CoalescingKey key, Bucket bucket) {
+        // Kova dolduğu için zaten yazıldıysa remove false döner
+        if (buckets.remove(key, bucket)) {
+            apply(key, bucket.writes);
+        }
+    }
+
+    private void apply(CoalescingKey key, List<PendingWrite> writes) {
+        int increments = writes.stream().filter(w -> w.delta() > 0).mapToInt(PendingWrite::delta).sum();
+        int decrements = writes.stream().filter(w -> w.delta() < 0).mapToInt(w -> -w.delta()).sum();
+        int net = increments - decrements;
+        try {
+            if (net >= 0) {
+                if (net > 0) {
+                    mongoTemplate.upsert(key.toQuery(), new Update().inc("quantity", net), Stock.class);
+                }
+                writes.forEach(w -> w.result().complete(null));
+                return;
+            }
+            if (guardedInc(key, net)) {
+                writes.forEach(w -> w.result().complete(null));
+                return;
+            }
+
+            // Birleştirilmiş çıkış sığmadı: girişler yazılır, çıkışlar tek tek denenir
+            if (increments > 0) {
+                mongoTemplate.upsert(key.toQuery(), new Update().inc("quantity", increments), Stock.class);
+            }
+            for (PendingWrite write : writes) {
+                if (write.delta() > 0) {
+                    write.result().complete(null);
+                } else if (write.delta() == 0 || guardedInc(key, write.delta())) {
+                    write.result().complete(null);
+                } else {
+                    write.result().completeExceptionally(insufficientStock(key, -write.delta()));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Birleştirilmiş stok yazması başarısız. Anahtar: {}", key, e);
+            writes.forEach(w -> w.result().completeExceptionally(e));
+        }
+    }
+
+    private boolean guardedInc(CoalescingKey key, int negativeDelta) {
+        Query guarded = new Query(key.toCriteria().andOperator(StockService.availableAtLeast(-negativeDelta)));
+        return mongoTemplate.findAndModify(guarded, new Update().inc("quantity", negativeDelta),
+                FindAndModifyOptions.options().returnNew(true), Stock.class) != null;
+    }
+
+    private InsufficientStockException insufficientStock(CoalescingKey key, int requested) {
+        Stock currentStock = mongoTemplate.findOne(key.toQuery(), Stock.class);
+        int available = currentStock != null ? currentStock.getAvailableQuantity() : 0;
+        return new InsufficientStockException("Yetersiz stok. İstenen: " + requested + ", Mevcut: " + available);
+    }
+
+    private record CoalescingKey(String tenantId, String plantId, String warehouseId) {
+        Criteria toCriteria() {
+            return Criteria.where("tenantId").is(tenantId).and("plantId").is(plantId).and("warehouseId").is(warehouseId);
+        }
+
+        Query toQuery() {
+            return new Query(toCriteria());
+        }
+    }
+
+    private record PendingWrite(int delta, CompletableFuture<Void> result) {
+    }
+
+    private static class Bucket {
+        private final List<PendingWrite> writes = new ArrayList<>();
+    }
+}
@@ -3,6 +3,7 @@ package com.fidanlik.fidanysserver.warehouse.service;
 
 import com.fidanlik.fidanysserver.warehouse.model.Warehouse;
 import com.fidanlik.fidanysserver.warehouse.repository.WarehouseRepository;
+import com.fidanlik.fidanysserver.stock.service.StockSummaryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,7 @@ import java.util.List;
 public class WarehouseService {
 
     private final WarehouseRepository warehouseRepository;
+    private final StockSummaryService stockSummaryService;
 
     public Warehouse createWarehouse(Warehouse warehouse, String tenantId) {
         if (warehouseRepository.findByNameAndTenantId(warehouse.getName(), tenantId).isPresent()) {
@@ -47,7 +49,10 @@ public class WarehouseService {
             existingWarehouse.setAddress(warehouseDetails.getAddress());
         }
 
-        return warehouseRepository.save(existingWarehouse);
+        Warehouse savedWarehouse = warehouseRepository.save(existingWarehouse);
+        // Stok özet tablosundaki adları güncelle
+        stockSummaryService.propagateName(StockSummaryService.NameField.WAREHOUSE, savedWarehouse.getId(), tenantId, savedWarehouse.getName());
+        return savedWarehouse;
     }
 
     public void deleteWarehouse(String id, String tenantId) {
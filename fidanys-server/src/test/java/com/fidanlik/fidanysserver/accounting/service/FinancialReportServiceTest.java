@@ -0,0 +1,59 @@
+package com.fidanlik.fidanysserver.accounting.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FinancialReportServiceTest {
+
+    @Test
+    void rangeWithoutClosedMonthsIsOneSegment() {
+        assertThat(segments(date(2025, 1, 15), date(2025, 4, 10), Set.of()))
+                .containsExactly(List.of(date(2025, 1, 15), date(2025, 4, 10)));
+    }
+
+    @Test
+    void closedMonthInTheMiddleSplitsTheRange() {
+        assertThat(segments(date(2025, 1, 15), date(2025, 4, 10), Set.of(date(2025, 2, 1))))
+                .containsExactly(
+                        List.of(date(2025, 1, 15), date(2025, 1, 31)),
+                        List.of(date(2025, 3, 1), date(2025, 4, 10)));
+    }
+
+    @Test
+    void adjacentClosedMonthsAtBothEndsLeaveOnlyTheOpenMiddle() {
+        Set<LocalDate> closed = Set.of(date(2024, 12, 1), date(2025, 1, 1), date(2025, 4, 1));
+
+        assertThat(segments(date(2024, 12, 1), date(2025, 4, 30), closed))
+                .containsExactly(List.of(date(2025, 2, 1), date(2025, 3, 31)));
+    }
+
+    @Test
+    void fullyClosedRangeHasNoOpenSegments() {
+        Set<LocalDate> closed = Set.of(date(2025, 1, 1), date(2025, 2, 1));
+
+        assertThat(segments(date(2025, 1, 1), date(2025, 2, 28), closed)).isEmpty();
+    }
+
+    @Test
+    void closedMonthsOutsideTheRangeAreIgnored() {
+        Set<LocalDate> closed = Set.of(date(2024, 6, 1), date(2025, 9, 1));
+
+        assertThat(segments(date(2025, 3, 5), date(2025, 3, 20), closed))
+                .containsExactly(List.of(date(2025, 3, 5), date(2025, 3, 20)));
+    }
+
+    private static List<List<LocalDate>> segments(LocalDate startDate, LocalDate endDate, Set<LocalDate> closedMonths) {
+        return FinancialReportService.openSegments(startDate, endDate, closedMonths).stream()
+                .map(List::of)
+                .toList();
+    }
+
+    private static LocalDate date(int year, int month, int day) {
+        return LocalDate.of(year, month, day);
+    }
+}
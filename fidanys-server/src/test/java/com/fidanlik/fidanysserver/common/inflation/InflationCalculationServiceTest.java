@@ -0,0 +1,179 @@
+package com.fidanlik.fidanysserver.common.inflation;
+
+import com.fidanlik.fidanysserver.inflation.model.InflationData;
+import com.fidanlik.fidanysserver.inflation.repository.InflationDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InflationCalculationServiceTest {
+
+    private InflationCalculationService service;
+
+    @BeforeEach
+    void setUp() {
+        // 2020-01 ile 2024-12 arası; bazı aylar eksik (önceki ayın oranı kullanılmalı)
+        Random random = new Random(42);
+        List<InflationData> data = new ArrayList<>();
+        for (int month = 0; month < 60; month++) {
+            if (month % 7 == 3) {
+                continue;
+            }
+            InflationData item = new InflationData();
+            item.setDate(LocalDate.of(2020, 1, 1).plusMonths(month));
+            item.setValue(BigDecimal.valueOf(random.nextInt(900) - 100, 2)); // -1.00 ile 7.99 arası
+            data.add(item);
+        }
+
+        InflationDataRepository repository = mock(InflationDataRepository.class);
+        when(repository.findAll()).thenReturn(data);
+        service = new InflationCalculationService(repository);
+    }
+
+    @Test
+    void bulkConversionMatchesPerItemConversion() {
+        Random random = new Random(7);
+        List<BigDecimal> amounts = new ArrayList<>();
+        List<LocalDate> dates = new ArrayList<>();
+        // Tablonun öncesi ve sonrası dahil geniş bir tarih aralığı
+        for (int i = 0; i < 5000; i++) {
+            amounts.add(BigDecimal.valueOf(random.nextInt(10_000_000), 2));
+            dates.add(LocalDate.of(2018, 1, 1).plusDays(random.nextInt(365 * 9)));
+        }
+
+        for (LocalDate target : List.of(LocalDate.of(2019, 6, 15), LocalDate.of(2022, 3, 1), LocalDate.of(2026, 1, 31))) {
+            List<BigDecimal> bulk = service.calculateRealValues(amounts, dates, target);
+
+            assertThat(bulk).hasSize(amounts.size());
+            for (int i = 0; i < amounts.size(); i++) {
+                assertThat(bulk.get(i))
+                        .as("tutar=%s tarih=%s hedef=%s", amounts.get(i), dates.get(i), target)
+                        .isEqualTo(service.calculateRealValue(amounts.get(i), dates.get(i), target));
+            }
+        }
+    }
+
+    @Test
+    void indexMatchesPreviousMonthByMonthAlgorithm() {
+        // Ayın farklı günlerine düşen kayıtlar, tek aylık ve çok aylık boşluklar, aynı ayda iki kayıt
+        Random random = new Random(2024);
+        List<InflationData> data = new ArrayList<>();
+        for (int month = 0; month < 72; month++) {
+            if (month % 11 == 4 || (month >= 30 && month < 34)) {
+                continue;
+            }
+            LocalDate monthStart = LocalDate.of(2019, 3, 1).plusMonths(month);
+            data.add(inflationData(monthStart.withDayOfMonth(1 + random.nextInt(monthStart.lengthOfMonth())),
+                    BigDecimal.valueOf(random.nextInt(1200) - 200, 2)));
+            if (month % 13 == 0) {
+                data.add(inflationData(monthStart.withDayOfMonth(monthStart.lengthOfMonth()),
+                        BigDecimal.valueOf(random.nextInt(1200) - 200, 2)));
+            }
+        }
+
+        InflationDataRepository repository = mock(InflationDataRepository.class);
+        when(repository.findAll()).thenReturn(data);
+        InflationCalculationService indexed = new InflationCalculationService(repository);
+        LegacyInflationCalculation legacy = new LegacyInflationCalculation(data);
+
+        // Tablonun öncesi (2017) ve sonrası (2026) dahil, ileri ve geri yönde rastgele dönüşümler
+        Random conversions = new Random(99);
+        LocalDate rangeStart = LocalDate.of(2017, 1, 1);
+        int rangeDays = 365 * 10;
+        for (int i = 0; i < 20_000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(conversions.nextInt(100_000_000), 2);
+            LocalDate transactionDate = rangeStart.plusDays(conversions.nextInt(rangeDays));
+            LocalDate targetDate = rangeStart.plusDays(conversions.nextInt(rangeDays));
+
+            assertThat(indexed.calculateRealValue(amount, transactionDate, targetDate))
+                    .as("tutar=%s tarih=%s hedef=%s", amount, transactionDate, targetDate)
+                    .isEqualTo(legacy.calculateRealValue(amount, transactionDate, targetDate));
+        }
+    }
+
+    @Test
+    void sameMonthAmountsAreReturnedUnchanged() {
+        BigDecimal amount = new BigDecimal("123.456");
+
+        List<BigDecimal> result = service.calculateRealValues(List.of(amount), List.of(LocalDate.of(2021, 5, 2)), LocalDate.of(2021, 5, 28));
+
+        assertThat(result).containsExactly(amount);
+    }
+
+    @Test
+    void emptyInputReturnsEmptyList() {
+        assertThat(service.calculateRealValues(List.of(), List.of(), LocalDate.of(2021, 5, 28))).isEmpty();
+    }
+
+    @Test
+    void mismatchedInputSizesAreRejected() {
+        assertThatThrownBy(() -> service.calculateRealValues(List.of(BigDecimal.ONE), List.of(), LocalDate.now()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static InflationData inflationData(LocalDate date, BigDecimal value) {
+        InflationData item = new InflationData();
+        item.setDate(date);
+        item.setValue(value);
+        return item;
+    }
+
+    /**
+     * Endeks tablosundan önceki ay ay döngüsüyle çalışan hesaplamanın referans kopyası.
+     * Depo sorguları (findByDate / findTopByDateLessThanEqualOrderByDateDesc) sıralı bir harita ile taklit edilir.
+     */
+    private static final class LegacyInflationCalculation {
+
+        private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+        private final TreeMap<LocalDate, BigDecimal> valuesByDate = new TreeMap<>();
+
+        LegacyInflationCalculation(List<InflationData> data) {
+            data.forEach(item -> valuesByDate.put(item.getDate(), item.getValue()));
+        }
+
+        BigDecimal getMonthlyInflationRate(LocalDate date) {
+            LocalDate lastDayOfMonth = date.withDayOfMonth(date.lengthOfMonth());
+            BigDecimal exact = valuesByDate.get(lastDayOfMonth);
+            if (exact != null) {
+                return exact.divide(HUNDRED, 10, RoundingMode.HALF_UP);
+            }
+            Map.Entry<LocalDate, BigDecimal> latest = valuesByDate.floorEntry(lastDayOfMonth);
+            return latest != null ? latest.getValue().divide(HUNDRED, 10, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+        }
+
+        BigDecimal calculateRealValue(BigDecimal nominalAmount, LocalDate transactionDate, LocalDate targetDate) {
+            if (transactionDate.getYear() == targetDate.getYear() && transactionDate.getMonth() == targetDate.getMonth()) {
+                return nominalAmount;
+            }
+
+            BigDecimal cumulativeFactor = BigDecimal.ONE;
+            LocalDate startMonth = transactionDate.withDayOfMonth(1);
+            LocalDate endMonth = targetDate.withDayOfMonth(1);
+
+            if (startMonth.isBefore(endMonth)) {
+                for (LocalDate month = startMonth; !month.isAfter(endMonth); month = month.plusMonths(1)) {
+                    cumulativeFactor = cumulativeFactor.multiply(BigDecimal.ONE.add(getMonthlyInflationRate(month)));
+                }
+            } else {
+                for (LocalDate month = endMonth; !month.isAfter(startMonth); month = month.plusMonths(1)) {
+                    BigDecimal inverseFactor = BigDecimal.ONE.divide(BigDecimal.ONE.add(getMonthlyInflationRate(month)), 10, RoundingMode.HALF_UP);
+                    cumulativeFactor = cumulativeFactor.multiply(inverseFactor);
+                }
+            }
+            return nominalAmount.multiply(cumulativeFactor).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+}
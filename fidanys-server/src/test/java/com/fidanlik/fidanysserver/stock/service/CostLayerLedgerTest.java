@@ -0,0 +1,171 @@
+package com.fidanlik.fidanysserver.stock.service;
+
+import com.fidanlik.fidanysserver.stock.model.CostConsumption;
+import com.fidanlik.fidanysserver.stock.model.CostLayer;
+import com.fidanlik.fidanysserver.stock.model.StockMovement;
+import com.fidanlik.fidanysserver.stock.model.StockMovement.MovementType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// FIFO kuralları, veritabanı gerektirmeyen InMemoryLedger üzerinden hareket dizileri oynatılarak doğrulanır
+class CostLayerLedgerTest {
+
+    private static final String TENANT = "t1";
+    private static final String PLANT = "p1";
+    private static final String WAREHOUSE = "w1";
+    private static final String OTHER_WAREHOUSE = "w2";
+
+    private CostLayerService.InMemoryLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new CostLayerService.InMemoryLedger();
+    }
+
+    @Test
+    void saleConsumesOldestLayersFirst() {
+        apply(MovementType.GOODS_RECEIPT, WAREHOUSE, 10, "5.00", "gr1", 1);
+        apply(MovementType.GOODS_RECEIPT, WAREHOUSE, 10, "7.00", "gr2", 2);
+        apply(MovementType.SALE, WAREHOUSE, -12, "20.00", "o1", 3);
+
+        CostConsumption sale = lastConsumption();
+        assertThat(sale.getPieces())
+                .extracting(CostConsumption.Piece::getQuantity, CostConsumption.Piece::getUnitCost)
+                .containsExactly(tuple(10, new BigDecimal("5.00")), tuple(2, new BigDecimal("7.00")));
+        assertThat(sale.getTotalCost()).isEqualByComparingTo("64.00");
+        assertThat(sale.getUncoveredQuantity()).isZero();
+        assertThat(ledger.layers)
+                .extracting(CostLayer::getSourceDocumentId, CostLayer::getRemainingQuantity)
+                .containsExactly(tuple("gr1", 0), tuple("gr2", 8));
+    }
+
+    @Test
+    void receiptCancelPrefersLayersOfTheCancelledReceipt() {
+        apply(MovementType.GOODS_RECEIPT, WAREHOUSE, 10, "5.00", "gr1", 1);
+        apply(MovementType.GOODS_RECEIPT, WAREHOUSE, 10, "7.00", "gr2", 2);
+        apply(MovementType.GOODS_RECEIPT_CANCEL, WAREHOUSE, -4, "7.00", "gr2", 3);
+
+        assertThat(lastConsumption().getPieces())
+                .extracting(CostConsumption.Piece::getQuantity, CostConsumption.Piece::getUnitCost)
+                .containsExactly(tuple(4, new BigDecimal("7.00")));
+        assertThat(ledger.layers)
+                .extracting(CostLayer::getSourceDocumentId, CostLayer::getRemainingQuantity)
+                .containsExactly(tuple("gr1", 10), tuple("gr2", 6));
+    }
+
+    @Test
+    void transferCarriesSourceCostAndFifoPositionToTargetWarehouse() {
+        apply(MovementType.GOODS_RECEIPT, WAREHOUSE, 5, "5.00", "gr1", 1);
+        apply(MovementType.GOODS_RECEIPT, WAREHOUSE, 5, "9.00", "gr2", 2);
+        apply(MovementType.TRANSFER_OUT, WAREHOUSE, -7, null, "tr1", 3);
+        // Transfer girişindeki birim maliyet, kaynak parçalar varken kullanılmaz
+        apply(MovementType.TRANSFER_IN, OTHER_WAREHOUSE, 7, "100.00", "tr1", 3);
+
+        List<CostLayer> targetLayers = ledger.layers.stream()
+                .filter(layer -> OTHER_WAREHOUSE.equals(layer.getWarehouseId()))
+                .toList();
+        assertThat(targetLayers)
+                .extracting(CostLayer::getRemainingQuantity, CostLayer::getUnitCost, CostLayer::getCostDate, CostLayer::getReceivedAt)
+                .containsExactly(
+                        tuple(5, new BigDecimal("5.00"), day(1).toLocalDate(), day(1)),
+                        tuple(2, new BigDecimal("9.00"), day(2).toLocalDate(), day(2)));
+        assertThat(remainingIn(WAREHOUSE)).isEqualTo(3);
+    }
+
+    @Test
+    void partialAndRepeatedSaleCancellationsRestoreConsumedPieces() {
+        apply(MovementType.GOODS_RECEIPT, WAREHOUSE, 10, "5.00", "gr1", 1);
+        apply(MovementType.GOODS_RECEIPT, WAREHOUSE, 10, "7.00", "gr2", 2);
+        apply(MovementType.SALE, WAREHOUSE, -15, "20.00", "o1", 3);
+
+        apply(MovementType.SALE_CANCEL, WAREHOUSE, 3, "20.00", "o1", 4);
+        assertThat(lastConsumption().getPieces())
+                .extracting(CostConsumption.Piece::getQuantity, CostConsumption.Piece::getUnitCost)
+                .containsExactly(tuple(-3, new BigDecimal("5.00")));
+        assertThat(lastConsumption().getTotalCost()).isEqualByComparingTo("-15.00");
+
+        apply(MovementType.SALE_CANCEL, WAREHOUSE, 9, "20.00", "o1", 5);
+        assertThat(lastConsumption().getPieces())
+                .extracting(CostConsumption.Piece::getQuantity, CostConsumption.Piece::getUnitCost)
+                .containsExactly(tuple(-7, new BigDecimal("5.00")), tuple(-2, new BigDecimal("7.00")));
+
+        // Kalan 3 adet 7.00'lik parça; fazlası iade hareketinin maliyetiyle yeni katman açar
+        apply(MovementType.SALE_CANCEL, WAREHOUSE, 5, "11.00", "o1", 6);
+        assertThat(lastConsumption().getPieces())
+                .extracting(CostConsumption.Piece::getQuantity, CostConsumption.Piece::getUnitCost)
+                .containsExactly(tuple(-3, new BigDecimal("7.00")));
+        assertThat(ledger.layers)
+                .filteredOn(layer -> layer.getSourceType() == MovementType.SALE_CANCEL && layer.getReceivedAt().equals(day(6)))
+                .extracting(CostLayer::getRemainingQuantity, CostLayer::getUnitCost)
+                .containsExactly(tuple(2, new BigDecimal("11.00")));
+        assertThat(remainingIn(WAREHOUSE)).isEqualTo(22);
+    }
+
+    @Test
+    void restoredPiecesKeepTheirFifoPosition() {
+        apply(MovementType.GOODS_RECEIPT, WAREHOUSE, 10, "5.00", "gr1", 1);
+        apply(MovementType.GOODS_RECEIPT, WAREHOUSE, 10, "7.00", "gr2", 2);
+        apply(MovementType.SALE, WAREHOUSE, -10, "20.00", "o1", 3);
+        apply(MovementType.SALE_CANCEL, WAREHOUSE, 4, "20.00", "o1", 4);
+
+        // İade edilen 5.00'lik parçalar ilk girişin zamanını taşıdığından 7.00'lik katmandan önce tüketilir
+        apply(MovementType.SALE, WAREHOUSE, -6, "20.00", "o2", 5);
+        assertThat(lastConsumption().getPieces())
+                .extracting(CostConsumption.Piece::getQuantity, CostConsumption.Piece::getUnitCost, CostConsumption.Piece::getReceivedAt)
+                .containsExactly(tuple(4, new BigDecimal("5.00"), day(1)), tuple(2, new BigDecimal("7.00"), day(2)));
+    }
+
+    @Test
+    void uncoveredQuantityIsRecordedAtZeroCost() {
+        apply(MovementType.GOODS_RECEIPT, WAREHOUSE, 3, "5.00", "gr1", 1);
+        apply(MovementType.SALE, WAREHOUSE, -5, "20.00", "o1", 2);
+
+        CostConsumption partial = lastConsumption();
+        assertThat(partial.getPieces()).extracting(CostConsumption.Piece::getQuantity).containsExactly(3);
+        assertThat(partial.getUncoveredQuantity()).isEqualTo(2);
+        assertThat(partial.getQuantity()).isEqualTo(5);
+        assertThat(partial.getTotalCost()).isEqualByComparingTo("15.00");
+
+        apply(MovementType.WASTAGE, OTHER_WAREHOUSE, -4, null, null, 3);
+        CostConsumption uncovered = lastConsumption();
+        assertThat(uncovered.getPieces()).isEmpty();
+        assertThat(uncovered.getUncoveredQuantity()).isEqualTo(4);
+        assertThat(uncovered.getTotalCost()).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    private void apply(MovementType type, String warehouseId, int quantity, String unitCost, String documentId, int day) {
+        StockMovement movement = new StockMovement();
+        movement.setTenantId(TENANT);
+        movement.setPlantId(PLANT);
+        movement.setWarehouseId(warehouseId);
+        movement.setType(type);
+        movement.setQuantity(quantity);
+        movement.setUnitCost(unitCost != null ? new BigDecimal(unitCost) : null);
+        movement.setRelatedDocumentId(documentId);
+        movement.setTimestamp(day(day));
+        ledger.apply(movement);
+    }
+
+    private CostConsumption lastConsumption() {
+        return ledger.consumptions.get(ledger.consumptions.size() - 1);
+    }
+
+    private int remainingIn(String warehouseId) {
+        return ledger.layers.stream()
+                .filter(layer -> warehouseId.equals(layer.getWarehouseId()))
+                .mapToInt(CostLayer::getRemainingQuantity)
+                .sum();
+    }
+
+    private static LocalDateTime day(int day) {
+        return LocalDate.of(2025, 1, day).atTime(10, 0);
+    }
+}